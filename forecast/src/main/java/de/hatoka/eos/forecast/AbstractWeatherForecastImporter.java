@@ -1,5 +1,6 @@
 package de.hatoka.eos.forecast;
 
+import de.hatoka.eos.forecast.http.ForecastHttpClient;
 import de.hatoka.eos.persistence.capi.weather.WeatherStation;
 import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
 import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
@@ -11,8 +12,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.time.ZoneId;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,6 +29,9 @@ public abstract class AbstractWeatherForecastImporter
     @Inject
     protected WeatherForcastDAO weatherDao;
 
+    @Inject
+    protected ForecastHttpClient httpClient;
+
     /**
      * Gets the source identifier for this importer.
      * 
@@ -47,15 +53,10 @@ public abstract class AbstractWeatherForecastImporter
 
         try
         {
-            // Download and process the weather data (implementation specific)
-            Map<ZonedDateTime, Integer> sunshineDurationPerHour = downloadAndProcessWeatherData(station, startDate);
-
-            logger.info("Extracted sunshine data for {} hours", sunshineDurationPerHour.size());
+            // Download, process and store the weather data (implementation specific)
+            WriteStatistics statistics = createImportTask(station, startDate).execute(httpClient);
 
-            // Store the data in the database
-            storeSunshineData(sunshineDurationPerHour, station);
-
-            logger.info("Successfully imported weather forecast data for {}", startDate);
+            logger.info("Successfully imported weather forecast data for {}: {}", startDate, statistics);
         }
         catch (Exception e)
         {
@@ -67,47 +68,70 @@ public abstract class AbstractWeatherForecastImporter
     }
 
     /**
-     * Downloads and processes weather data from the specific weather service.
+     * Creates the task to download, process and store weather data from the specific weather service, so the import of many stations can
+     * run in the {@link ForecastImportPipeline}.
      * This method must be implemented by subclasses to handle their specific data sources.
-     * 
+     *
      * @param station the weather station to get data for
      * @param startDate the start date for the forecast
-     * @return map of datetime to sunshine minutes per hour
-     * @throws IOException if there's an error downloading or processing the data
-     * @throws InterruptedException if the operation is interrupted
+     * @return import task, converts to sunshine minutes per hour
      */
-    protected abstract Map<ZonedDateTime, Integer> downloadAndProcessWeatherData(WeatherStation station, ZonedDateTime startDate) 
-            throws IOException, InterruptedException;
+    public abstract ImportTask<?, SunshineMinutes> createImportTask(WeatherStation station, ZonedDateTime startDate);
 
     /**
      * Stores sunshine duration data in the database.
-     * Converts sunshine minutes (0-60) to sun probability (0.0-1.0) and stores in the database.
+     * Converts sunshine minutes (0-60) to sun probability (0.0-1.0). The stored forecasts of the range are loaded once, only new or changed
+     * forecasts are stored with one request. Persistence objects are created for the written forecasts only.
      * 
-     * @param sunshineDurationPerHour map of datetime to sunshine minutes
+     * @param sunshine sunshine minutes per hour
      * @param station the weather station this data belongs to
+     * @return number of inserted, updated and unchanged forecasts
      */
-    protected void storeSunshineData(Map<ZonedDateTime, Integer> sunshineDurationPerHour, WeatherStation station)
+    protected WriteStatistics storeSunshineData(SunshineMinutes sunshine, WeatherStation station)
     {
-        for (Map.Entry<ZonedDateTime, Integer> entry : sunshineDurationPerHour.entrySet())
+        logger.info("Extracted sunshine data of station {} for {} hours", station.name(), sunshine.size());
+        if (sunshine.size() == 0)
+        {
+            return WriteStatistics.NONE;
+        }
+        long[] times = sunshine.times();
+        int[] minutes = sunshine.minutes();
+        // stored sun probability by index of the hour, NaN if not stored
+        double[] stored = new double[times.length];
+        Arrays.fill(stored, Double.NaN);
+        weatherDao.forEachInRange(new WeatherForecastKey(station, times[0], getSource()),
+                        new WeatherForecastKey(station, times[times.length - 1] + 1, getSource()), (key, po) -> {
+                            int index = Arrays.binarySearch(times, key.time());
+                            if (index >= 0 && po.getSunProbability() != null)
+                            {
+                                stored[index] = po.getSunProbability().value();
+                            }
+                        });
+        Map<WeatherForecastKey, WeatherForecastPO> forecasts = new HashMap<>();
+        int inserted = 0;
+        for (int i = 0; i < times.length; i++)
         {
-            ZonedDateTime dateTime = entry.getKey();
-            Integer sunshineMinutes = entry.getValue();
-
             // Convert sunshine minutes (0-60) to probability (0.0-1.0)
-            double sunProbability = Math.min(1.0, sunshineMinutes / 60.0);
-
-            WeatherForecastPO forecast = new WeatherForecastPO();
-            forecast.setSunProbability(new Percentage(sunProbability));
-
-            try
+            double sunProbability = Math.min(1.0, minutes[i] / 60.0);
+            if (sunProbability == stored[i])
             {
-                weatherDao.update(WeatherForecastKey.valueOf(station, dateTime, getSource()), forecast);
-                logger.debug("Stored weather data for {}: {}% sun probability", dateTime, Math.round(sunProbability * 100));
+                continue;
             }
-            catch(Exception e)
+            if (Double.isNaN(stored[i]))
             {
-                logger.error("Failed to store weather data for " + dateTime, e);
+                inserted++;
             }
+            WeatherForecastPO forecast = new WeatherForecastPO();
+            forecast.setSunProbability(new Percentage(sunProbability));
+            forecasts.put(new WeatherForecastKey(station, times[i], getSource()), forecast);
+            logger.debug("Weather data for {}: {}% sun probability", Instant.ofEpochMilli(times[i]), Math.round(sunProbability * 100));
+        }
+        if (!forecasts.isEmpty())
+        {
+            weatherDao.updateAll(forecasts);
         }
+        WriteStatistics statistics = new WriteStatistics(inserted, forecasts.size() - inserted, times.length - forecasts.size());
+        logger.info("Stored weather data of station {}: {}", station.name(), statistics);
+        return statistics;
     }
-}
\ No newline at end of file
+}
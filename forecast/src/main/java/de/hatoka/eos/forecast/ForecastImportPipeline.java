@@ -0,0 +1,141 @@
+package de.hatoka.eos.forecast;
+
+import de.hatoka.eos.forecast.http.ForecastHttpClient;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ForecastImportPipeline runs import tasks in parallel on virtual threads. Downloads are parsed while streaming and limited per host by the
+ * {@link ForecastHttpClient}, converting is limited to the number of processors and writing to the configured number of writers. So
+ * downloads of the next tasks overlap with converting and writing of former tasks. The number of tasks between start of download and end of
+ * write is limited, so only a bounded number of parsed documents is held in memory. A failing task doesn't stop the other tasks.
+ */
+@Singleton
+public class ForecastImportPipeline
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ForecastImportPipeline.class);
+
+    /**
+     * @param name name of task
+     * @param statistics written points, NONE if the task failed
+     * @param error failure of task, null if the task was successful
+     */
+    public record Result(String name, WriteStatistics statistics, Exception error)
+    {
+        public boolean isSuccessful()
+        {
+            return error == null;
+        }
+    }
+
+    private final ForecastHttpClient httpClient;
+    private final Semaphore converters = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private final Semaphore writers;
+    private final Semaphore inFlight;
+
+    /**
+     * @param httpClient shared http client
+     * @param writers maximal number of parallel writes
+     * @param maxInFlight maximal number of tasks between start of download and end of write
+     */
+    @Inject
+    public ForecastImportPipeline(ForecastHttpClient httpClient,
+                    @ConfigProperty(name = "eos.forecast.import.writers", defaultValue = "2") int writers,
+                    @ConfigProperty(name = "eos.forecast.import.max-in-flight", defaultValue = "8") int maxInFlight)
+    {
+        if (maxInFlight < 1)
+        {
+            throw new IllegalArgumentException("At least one task in flight is required: " + maxInFlight);
+        }
+        this.httpClient = httpClient;
+        this.writers = new Semaphore(writers);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Runs the tasks and waits until all tasks are finished.
+     *
+     * @param tasks import tasks
+     * @return results in order of tasks
+     */
+    public List<Result> run(List<? extends ImportTask<?, ?>> tasks) throws InterruptedException
+    {
+        List<Future<Result>> futures = new ArrayList<>(tasks.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (ImportTask<?, ?> task : tasks)
+            {
+                futures.add(executor.submit(() -> execute(task)));
+            }
+        }
+        List<Result> results = new ArrayList<>(futures.size());
+        for (Future<Result> future : futures)
+        {
+            try
+            {
+                results.add(future.get());
+            }
+            catch(ExecutionException e)
+            {
+                throw new IllegalStateException("Import task failed unexpectedly", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private <R, D> Result execute(ImportTask<R, D> task) throws InterruptedException
+    {
+        inFlight.acquire();
+        try
+        {
+            // parsing streams the body while downloading
+            R response = httpClient.getJson(task.getUri(), task.getUserAgent(), task::parse);
+            D data;
+            converters.acquire();
+            try
+            {
+                data = task.convert(response);
+            }
+            finally
+            {
+                converters.release();
+            }
+            WriteStatistics statistics;
+            writers.acquire();
+            try
+            {
+                statistics = task.write(data);
+            }
+            finally
+            {
+                writers.release();
+            }
+            LOGGER.debug("Imported {}: {}", task.getName(), statistics);
+            return new Result(task.getName(), statistics, null);
+        }
+        catch(InterruptedException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            LOGGER.error("Failed to import {}", task.getName(), e);
+            return new Result(task.getName(), WriteStatistics.NONE, e);
+        }
+        finally
+        {
+            inFlight.release();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.hatoka.eos.forecast;
+
+import de.hatoka.eos.forecast.http.ForecastHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * ImportTask describes the stages of importing one forecast document: download, parse, convert and write.
+ *
+ * @param <R> parsed response
+ * @param <D> converted data
+ */
+public interface ImportTask<R, D>
+{
+    /**
+     * @return name of the task for logging (e.g. station)
+     */
+    String getName();
+
+    /**
+     * @return location of the document
+     */
+    URI getUri();
+
+    /**
+     * @return user agent of the download
+     */
+    String getUserAgent();
+
+    /**
+     * @param body document, streamed while downloading
+     * @return parsed response
+     * @throws IOException if the document can't be parsed
+     */
+    R parse(InputStream body) throws IOException;
+
+    /**
+     * @param response parsed response
+     * @return data to store
+     */
+    D convert(R response);
+
+    /**
+     * @param data data to store
+     * @return number of inserted, updated and unchanged points
+     */
+    WriteStatistics write(D data);
+
+    /**
+     * Runs all stages in the current thread.
+     *
+     * @param httpClient client for download
+     * @return number of inserted, updated and unchanged points
+     * @throws IOException if the download or parsing fails
+     * @throws InterruptedException if the download is interrupted
+     */
+    default WriteStatistics execute(ForecastHttpClient httpClient) throws IOException, InterruptedException
+    {
+        return write(convert(httpClient.getJson(getUri(), getUserAgent(), this::parse)));
+    }
+}
@@ -0,0 +1,78 @@
+package de.hatoka.eos.forecast;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads JSON arrays of numbers of a streaming parser into primitive arrays.
+ */
+public final class JsonArrays
+{
+    private static final int INITIAL_CAPACITY = 256;
+
+    private JsonArrays()
+    {
+    }
+
+    /**
+     * @param parser parser positioned at the start of the array
+     * @return values of the array, NaN for null
+     * @throws IOException if the array contains other values than numbers
+     */
+    public static double[] readDoubles(JsonParser parser) throws IOException
+    {
+        expectArray(parser);
+        double[] values = new double[INITIAL_CAPACITY];
+        int size = 0;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken())
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = switch(token)
+            {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+                case VALUE_NULL -> Double.NaN;
+                default -> throw new IOException("Number expected at " + parser.currentLocation() + ", got " + token);
+            };
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @param parser parser positioned at the start of the array
+     * @return values of the array
+     * @throws IOException if the array contains other values than integral numbers
+     */
+    public static long[] readLongs(JsonParser parser) throws IOException
+    {
+        expectArray(parser);
+        long[] values = new long[INITIAL_CAPACITY];
+        int size = 0;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken())
+        {
+            if (token != JsonToken.VALUE_NUMBER_INT)
+            {
+                throw new IOException("Integral number expected at " + parser.currentLocation() + ", got " + token);
+            }
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getLongValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static void expectArray(JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() != JsonToken.START_ARRAY)
+        {
+            throw new IOException("Array expected at " + parser.currentLocation() + ", got " + parser.currentToken());
+        }
+    }
+}
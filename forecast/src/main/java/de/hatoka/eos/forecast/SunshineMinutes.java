@@ -0,0 +1,28 @@
+package de.hatoka.eos.forecast;
+
+/**
+ * Sunshine minutes per hour of a weather forecast, kept in primitive arrays in order of time.
+ *
+ * @param times start of the hours (epoch milli seconds, ascending)
+ * @param minutes sunshine minutes (0-60) of the hours
+ */
+public record SunshineMinutes(long[] times, int[] minutes)
+{
+    public static final SunshineMinutes NONE = new SunshineMinutes(new long[0], new int[0]);
+
+    public SunshineMinutes
+    {
+        if (times.length != minutes.length)
+        {
+            throw new IllegalArgumentException("Times and minutes have different sizes: " + times.length + " vs " + minutes.length);
+        }
+    }
+
+    /**
+     * @return number of hours
+     */
+    public int size()
+    {
+        return times.length;
+    }
+}
@@ -0,0 +1,26 @@
+package de.hatoka.eos.forecast;
+
+/**
+ * Result of writing imported data, only new or changed points are written.
+ *
+ * @param inserted number of new points
+ * @param updated number of changed points
+ * @param unchanged number of points equal to the stored ones
+ */
+public record WriteStatistics(int inserted, int updated, int unchanged)
+{
+    public static final WriteStatistics NONE = new WriteStatistics(0, 0, 0);
+
+    /**
+     * @return number of written points
+     */
+    public int written()
+    {
+        return inserted + updated;
+    }
+
+    public WriteStatistics add(WriteStatistics other)
+    {
+        return new WriteStatistics(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+}
@@ -0,0 +1,74 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BackfillCheckpoint records completed weeks of a backfill in a file (one week per line, e.g. 2025-W32), so an interrupted backfill resumes
+ * with the missing weeks.
+ */
+class BackfillCheckpoint
+{
+    private final Path file;
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param file checkpoint file, created with the first completed week
+     * @throws IOException if an existing file can't be read
+     */
+    BackfillCheckpoint(Path file) throws IOException
+    {
+        this.file = file;
+        if (Files.exists(file))
+        {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+            {
+                if (!line.isBlank())
+                {
+                    completed.add(line.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param week id of week
+     * @return true if the week is completed
+     */
+    boolean isCompleted(String week)
+    {
+        return completed.contains(week);
+    }
+
+    /**
+     * Appends the week to the file.
+     *
+     * @param week id of week
+     */
+    synchronized void markCompleted(String week)
+    {
+        if (!completed.add(week))
+        {
+            return;
+        }
+        try
+        {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null)
+            {
+                Files.createDirectories(directory);
+            }
+            Files.writeString(file, week + System.lineSeparator(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't write checkpoint " + file, e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import de.hatoka.eos.forecast.ForecastImportPipeline;
+import de.hatoka.eos.forecast.ImportTask;
+import de.hatoka.eos.forecast.WriteStatistics;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EnergyChartsBackfill imports the day ahead prices of a date range week by week. The weeks are downloaded in parallel by the
+ * {@link ForecastImportPipeline} (limited per host). Completed weeks are recorded in a checkpoint file, so an interrupted backfill resumes
+ * with the missing weeks. Weeks already complete in the {@link EnergyStockDao} aren't downloaded again.
+ */
+@Singleton
+public class EnergyChartsBackfill
+{
+    private static final Logger logger = LoggerFactory.getLogger(EnergyChartsBackfill.class);
+    private static final Duration INTERVAL = Duration.ofMinutes(15);
+
+    /**
+     * @param weeks number of weeks of the range
+     * @param skipped weeks completed already (checkpoint or storage)
+     * @param imported imported weeks
+     * @param failed weeks failed to import
+     */
+    public record Result(int weeks, int skipped, int imported, int failed)
+    {
+    }
+
+    @Inject
+    EnergyChartsImporter importer;
+    @Inject
+    EnergyStockDao stockDao;
+    @Inject
+    ForecastImportPipeline pipeline;
+
+    @ConfigProperty(name = "eos.forecast.backfill.checkpoint-file", defaultValue = "data/energycharts-backfill.checkpoint")
+    Path checkpointFile;
+
+    /**
+     * Imports the weeks (ISO, UTC) of the range.
+     *
+     * @param from first day of range
+     * @param to last day of range (inclusive)
+     * @return statistics of backfill
+     * @throws IOException if the checkpoint can't be read
+     * @throws InterruptedException if the backfill is interrupted
+     */
+    public Result backfill(LocalDate from, LocalDate to) throws IOException, InterruptedException
+    {
+        BackfillCheckpoint checkpoint = new BackfillCheckpoint(checkpointFile);
+        Instant now = Instant.now();
+        List<ImportTask<?, ?>> tasks = new ArrayList<>();
+        int weeks = 0;
+        for (LocalDate monday = from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)); !monday.isAfter(to); monday = monday.plusWeeks(1))
+        {
+            weeks++;
+            String week = getWeekId(monday);
+            ZonedDateTime start = monday.atStartOfDay(ZoneOffset.UTC);
+            ZonedDateTime end = start.plusWeeks(1);
+            if (checkpoint.isCompleted(week))
+            {
+                continue;
+            }
+            // only past weeks are final
+            boolean past = !end.toInstant().isAfter(now);
+            if (past && isComplete(start, end))
+            {
+                checkpoint.markCompleted(week);
+                continue;
+            }
+            tasks.add(withCheckpoint(importer.createImportTask(start), () -> {
+                // undefined or missing prices of the download are imported again by the next backfill
+                if (past && isComplete(start, end))
+                {
+                    checkpoint.markCompleted(week);
+                }
+                else if (past)
+                {
+                    logger.warn("Day ahead prices of week {} are incomplete, week isn't recorded as completed", week);
+                }
+            }));
+        }
+        logger.info("Backfill of {} weeks from {} to {}, {} weeks to import", weeks, from, to, tasks.size());
+        List<ForecastImportPipeline.Result> results = pipeline.run(tasks);
+        int failed = (int)results.stream().filter(r -> !r.isSuccessful()).count();
+        Result result = new Result(weeks, weeks - tasks.size(), tasks.size() - failed, failed);
+        logger.info("Backfill finished: {}", result);
+        return result;
+    }
+
+    private static String getWeekId(LocalDate monday)
+    {
+        return "%d-W%02d".formatted(monday.get(WeekFields.ISO.weekBasedYear()), monday.get(WeekFields.ISO.weekOfWeekBasedYear()));
+    }
+
+    /**
+     * @return true if storage contains all day ahead prices of the range
+     */
+    private boolean isComplete(ZonedDateTime start, ZonedDateTime end)
+    {
+        long expected = Duration.between(start, end).dividedBy(INTERVAL);
+        long present = stockDao.getRange(EnergyStockKey.valueOf(start), EnergyStockKey.valueOf(end))
+                               .values()
+                               .stream()
+                               .map(EnergyStockPO::getDayAheadPrice)
+                               .filter(price -> price != null)
+                               .count();
+        return present >= expected;
+    }
+
+    /**
+     * @return task, which runs the action after the data is written
+     */
+    private static <R, D> ImportTask<R, D> withCheckpoint(ImportTask<R, D> task, Runnable written)
+    {
+        return new ImportTask<>()
+        {
+            @Override
+            public String getName()
+            {
+                return task.getName();
+            }
+
+            @Override
+            public URI getUri()
+            {
+                return task.getUri();
+            }
+
+            @Override
+            public String getUserAgent()
+            {
+                return task.getUserAgent();
+            }
+
+            @Override
+            public R parse(InputStream body) throws IOException
+            {
+                return task.parse(body);
+            }
+
+            @Override
+            public D convert(R response)
+            {
+                return task.convert(response);
+            }
+
+            @Override
+            public WriteStatistics write(D data)
+            {
+                WriteStatistics statistics = task.write(data);
+                written.run();
+                return statistics;
+            }
+        };
+    }
+}
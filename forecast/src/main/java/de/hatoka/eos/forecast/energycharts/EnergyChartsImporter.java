@@ -1,84 +1,190 @@
 package de.hatoka.eos.forecast.energycharts;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hatoka.eos.forecast.ImportTask;
+import de.hatoka.eos.forecast.WriteStatistics;
+import de.hatoka.eos.forecast.energycharts.EnergyChartsParser.DayAheadAuction;
+import de.hatoka.eos.forecast.http.ForecastHttpClient;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
 import de.hatoka.eos.units.capi.Money;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.WeekFields;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Singleton
 public class EnergyChartsImporter
 {
-    private static final String URI_FORMAT = "https://energy-charts.info/charts/price_spot_market/data/de/week_15min_%s_%02d.json"; // format parameters: year, week
-    private static final String DAY_AHEAD_AUCTION_NAME_EN = "Day Ahead Auction (DE-LU)";
+    private static final String BASE_URL = "https://energy-charts.info/charts/price_spot_market/data/de";
+    private static final String URI_FORMAT = "%s/week_15min_%s_%02d.json"; // format parameters: base url, year, week
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36";
+    private static final long INTERVAL_MILLIS = Duration.ofMinutes(15).toMillis();
     private static final Logger logger = LoggerFactory.getLogger(EnergyChartsImporter.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Day ahead prices of a week, kept in primitive arrays.
+     *
+     * @param start start of week (epoch milli seconds)
+     * @param currency currency of prices
+     * @param prices price per 15 minutes since start of week, NaN if the price isn't defined yet
+     */
+    public record DayAheadPrices(long start, String currency, double[] prices)
+    {
+        /**
+         * @return number of defined prices
+         */
+        public int count()
+        {
+            int result = 0;
+            for (double price : prices)
+            {
+                if (!Double.isNaN(price))
+                {
+                    result++;
+                }
+            }
+            return result;
+        }
+    }
 
     @Inject
     private EnergyStockDao stockDao;
 
-    public void importStockData(ZonedDateTime startDate)
+    @Inject
+    private ForecastHttpClient httpClient;
+
+    @ConfigProperty(name = "eos.forecast.energycharts.url", defaultValue = BASE_URL)
+    String baseUrl;
+
+    /**
+     * @param startDate date of the week
+     * @return number of inserted, updated and unchanged prices
+     */
+    public WriteStatistics importStockData(ZonedDateTime startDate)
                     throws IOException, InterruptedException
     {
-        List<EnergyChartsResponse> responses = downloadData(URI.create(URI_FORMAT.formatted(getYearOfWeek(startDate), getWeekOfYear(startDate))));
-        EnergyChartsResponse dayAheadAuction = findDayAheadAuction(responses);
-        Map<ZonedDateTime, Double> dayAheadPrices = mapDataToTime(startDate, dayAheadAuction.getData());
-        String currency = dayAheadAuction.getCurrency();
-        Map<ZonedDateTime, Money> dayAheadPricesAsMoney = dayAheadPrices.entrySet().stream()
-                .filter(e -> e.getValue() != null) // may some prices in the future are still not defined (null)
-                .collect(java.util.stream.Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> new Money(java.math.BigDecimal.valueOf(entry.getValue()), currency)
-                ));
-        storePrices(dayAheadPricesAsMoney);
+        return createImportTask(startDate).execute(httpClient);
     }
 
-    private void storePrices(Map<ZonedDateTime, Money> dayAheadPrices)
+    /**
+     * @param startDate date of the week
+     * @return task to import the day ahead prices of the week, e.g. for the {@link de.hatoka.eos.forecast.ForecastImportPipeline}
+     */
+    public ImportTask<?, DayAheadPrices> createImportTask(ZonedDateTime startDate)
     {
-        for (Map.Entry<ZonedDateTime, Money> dayAheadPrice : dayAheadPrices.entrySet())
+        return new ImportTask<DayAheadAuction, DayAheadPrices>()
         {
-            EnergyStockKey key = EnergyStockKey.valueOf(dayAheadPrice.getKey());
-            EnergyStockPO existingData = stockDao.get(key);
-            if (existingData == null)
+            @Override
+            public String getName()
             {
-                existingData = new EnergyStockPO();
+                return "Energy Charts week " + getYearOfWeek(startDate) + "/" + getWeekOfYear(startDate);
             }
-            existingData.setDayAheadPrice(dayAheadPrice.getValue());
-            stockDao.update(key, existingData);
-        }
+
+            @Override
+            public URI getUri()
+            {
+                return URI.create(URI_FORMAT.formatted(baseUrl, getYearOfWeek(startDate), getWeekOfYear(startDate)));
+            }
+
+            @Override
+            public String getUserAgent()
+            {
+                return USER_AGENT;
+            }
+
+            @Override
+            public DayAheadAuction parse(InputStream body) throws IOException
+            {
+                return EnergyChartsParser.parseDayAheadAuction(body);
+            }
+
+            @Override
+            public DayAheadPrices convert(DayAheadAuction dayAheadAuction)
+            {
+                return convertToPrices(startDate, dayAheadAuction);
+            }
+
+            @Override
+            public WriteStatistics write(DayAheadPrices prices)
+            {
+                return storePrices(prices);
+            }
+        };
     }
 
-    private Map<ZonedDateTime, Double> mapDataToTime(ZonedDateTime startDate, List<Double> priceData)
+    /**
+     * @return prices per 15 minutes since start of week (Monday 00:00), prices not defined yet are NaN
+     */
+    private DayAheadPrices convertToPrices(ZonedDateTime startDate, DayAheadAuction dayAheadAuction)
     {
-        // Calculate the start of the week (Monday 00:00)
-        ZonedDateTime dateOfPrice = getStartOfWeek(startDate);
-        Map<ZonedDateTime, Double> result = new HashMap<>();
+        return new DayAheadPrices(getStartOfWeek(startDate).toInstant().toEpochMilli(), dayAheadAuction.currency(), dayAheadAuction.prices());
+    }
 
-        // Map each 15-minute interval to its price
-        for (Double price : priceData)
+    /**
+     * Loads the stored prices of the range once and writes only new or changed prices with one request. Persistence objects are created for the
+     * written prices only.
+     */
+    private WriteStatistics storePrices(DayAheadPrices dayAheadPrices)
+    {
+        double[] prices = dayAheadPrices.prices();
+        int defined = dayAheadPrices.count();
+        if (defined == 0)
+        {
+            return WriteStatistics.NONE;
+        }
+        long start = dayAheadPrices.start();
+        String currency = dayAheadPrices.currency();
+        // stored price by index of the quarter hour, NaN if not stored or stored with another currency
+        double[] stored = new double[prices.length];
+        boolean[] present = new boolean[prices.length];
+        Arrays.fill(stored, Double.NaN);
+        stockDao.forEachInRange(new EnergyStockKey(start), new EnergyStockKey(start + prices.length * INTERVAL_MILLIS), (key, po) -> {
+            long offset = key.time() - start;
+            Money price = po.getDayAheadPrice();
+            if (offset % INTERVAL_MILLIS == 0 && price != null)
+            {
+                int index = (int)(offset / INTERVAL_MILLIS);
+                present[index] = true;
+                stored[index] = currency.equals(price.currencyMnemonic()) ? price.amount().doubleValue() : Double.NaN;
+            }
+        });
+        Map<EnergyStockKey, EnergyStockPO> updates = new HashMap<>();
+        int inserted = 0;
+        for (int i = 0; i < prices.length; i++)
+        {
+            if (Double.isNaN(prices[i]) || prices[i] == stored[i])
+            {
+                continue;
+            }
+            if (!present[i])
+            {
+                inserted++;
+            }
+            EnergyStockPO data = new EnergyStockPO();
+            data.setDayAheadPrice(new Money(BigDecimal.valueOf(prices[i]), currency));
+            updates.put(new EnergyStockKey(start + i * INTERVAL_MILLIS), data);
+        }
+        if (!updates.isEmpty())
         {
-            result.put(dateOfPrice, price);
-            dateOfPrice = dateOfPrice.plusMinutes(15);
+            stockDao.updateAll(updates);
         }
-        return result;
+        WriteStatistics statistics = new WriteStatistics(inserted, updates.size() - inserted, defined - updates.size());
+        logger.debug("Stored day ahead prices: {}", statistics);
+        return statistics;
     }
 
     private Integer getYearOfWeek(ZonedDateTime date)
@@ -103,68 +209,4 @@ public class EnergyChartsImporter
         WeekFields weekFields = WeekFields.ISO;
         return date.get(weekFields.weekOfWeekBasedYear());
     }
-
-    private List<EnergyChartsResponse> downloadData(URI dataUrl) throws IOException, InterruptedException
-    {
-        try (HttpClient httpClient = HttpClient.newBuilder()
-                                               .connectTimeout(Duration.ofSeconds(30))
-                                               .followRedirects(HttpClient.Redirect.NORMAL)
-                                               .build())
-        {
-            HttpRequest request = HttpRequest.newBuilder()
-                                             .uri(dataUrl)
-                                             .timeout(Duration.ofSeconds(30))
-                                             .header("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36")
-                                             .header("Accept", "application/json")
-                                             .GET()
-                                             .build();
-
-            logger.debug("Sending HTTP request to: {}", dataUrl);
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200)
-            {
-                throw new IOException("HTTP request failed with status code: " + response.statusCode());
-            }
-            return objectMapper.readValue(
-                            response.body(),
-                            new TypeReference<>() {}
-            );
-        }
-    }
-
-    /**
-     * Find the "Day Ahead Auction (DE-LU)" section
-     * @param responses response from Url or resource
-     * @return day ahead auction
-     */
-    static EnergyChartsResponse findDayAheadAuction(List<EnergyChartsResponse> responses)
-    {
-        for (EnergyChartsResponse response : responses)
-        {
-            if (response.getName() != null)
-            {
-                Object nameAttribute = response.getName();
-                if (nameAttribute instanceof List<?> listAttribute)
-                {
-                    Object firstNameAttribute = listAttribute.getFirst();
-                    if (firstNameAttribute instanceof Map<?,?> mapName)
-                    {
-                        for(Map.Entry<?, ?> entry : mapName.entrySet())
-                        {
-                            if (entry.getKey() instanceof String language && entry.getValue() instanceof String name)
-                            {
-                                if ("en".equals(language) && DAY_AHEAD_AUCTION_NAME_EN.equals(name))
-                                {
-                                    return response;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        throw new RuntimeException("Can't find " + DAY_AHEAD_AUCTION_NAME_EN);
-    }
 }
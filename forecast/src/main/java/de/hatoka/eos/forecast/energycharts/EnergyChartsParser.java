@@ -0,0 +1,137 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.hatoka.eos.forecast.JsonArrays;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * EnergyChartsParser reads the "Day Ahead Auction (DE-LU)" series of an Energy Charts price document with a streaming parser. The other
+ * series are skipped, only the prices of the auction are kept in a primitive array.
+ */
+final class EnergyChartsParser
+{
+    private static final String DAY_AHEAD_AUCTION_NAME_EN = "Day Ahead Auction (DE-LU)";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * @param currency currency of prices
+     * @param prices price per 15 minutes since start of week, NaN if the price isn't defined yet
+     */
+    record DayAheadAuction(String currency, double[] prices)
+    {
+    }
+
+    private EnergyChartsParser()
+    {
+    }
+
+    /**
+     * @param body document (array of series)
+     * @return day ahead auction
+     * @throws IOException if the document is invalid or doesn't contain the day ahead auction
+     */
+    static DayAheadAuction parseDayAheadAuction(InputStream body) throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(body))
+        {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+            {
+                throw new IOException("Array of series expected");
+            }
+            while(parser.nextToken() == JsonToken.START_OBJECT)
+            {
+                DayAheadAuction auction = parseSeries(parser);
+                if (auction != null)
+                {
+                    return auction;
+                }
+            }
+        }
+        throw new IOException("Can't find " + DAY_AHEAD_AUCTION_NAME_EN);
+    }
+
+    /**
+     * @return day ahead auction, null if the series is another one
+     */
+    private static DayAheadAuction parseSeries(JsonParser parser) throws IOException
+    {
+        boolean nameRead = false;
+        boolean dayAheadAuction = false;
+        String currency = null;
+        double[] prices = null;
+        while(parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("name".equals(field))
+            {
+                nameRead = true;
+                dayAheadAuction = isDayAheadAuction(parser, token);
+            }
+            else if ("currency".equals(field))
+            {
+                currency = parser.getValueAsString();
+            }
+            else if ("data".equals(field) && token == JsonToken.START_ARRAY && (!nameRead || dayAheadAuction))
+            {
+                // name may follow the data, so the data of an unknown series is read too
+                prices = JsonArrays.readDoubles(parser);
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        return dayAheadAuction && prices != null ? new DayAheadAuction(currency, prices) : null;
+    }
+
+    /**
+     * Name is an object of names per language, or an array of them.
+     */
+    private static boolean isDayAheadAuction(JsonParser parser, JsonToken token) throws IOException
+    {
+        if (token == JsonToken.START_OBJECT)
+        {
+            return hasEnglishName(parser);
+        }
+        boolean result = false;
+        if (token == JsonToken.START_ARRAY)
+        {
+            for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken())
+            {
+                if (element == JsonToken.START_OBJECT)
+                {
+                    result |= hasEnglishName(parser);
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasEnglishName(JsonParser parser) throws IOException
+    {
+        boolean result = false;
+        while(parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String language = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("en".equals(language) && token == JsonToken.VALUE_STRING)
+            {
+                result |= DAY_AHEAD_AUCTION_NAME_EN.equals(parser.getText());
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,530 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * HighchartsSvg reads the parts of an Energy Charts (highcharts) SVG, which are needed to extract the prices, in one pass over the content:
+ * <ul>
+ * <li>date labels of the x-axis (text elements with MM/dd/yyyy)</li>
+ * <li>price labels of the y-axis (text-anchor="end" with an integer)</li>
+ * <li>plot background rectangle (y and height of the chart)</li>
+ * <li>coordinates of the red price line path</li>
+ * </ul>
+ * The tokenizer walks from tag to tag and only looks at the attributes of interest, coordinates are collected in primitive buffers.
+ */
+final class HighchartsSvg
+{
+    private static final String PRICE_LINE_STROKE = "rgb(228, 26, 28)";
+    /**
+     * The price line of the chart starts at this coordinate and contains the bottom of the chart, other red paths (e.g. legend) don't.
+     */
+    private static final String PRICE_LINE_START = "M 3.055";
+    private static final String PRICE_LINE_BOTTOM = "876.94444";
+    private static final String PLOT_BACKGROUND_CLASS = "highcharts-plot-background";
+    private static final int MAX_ATTRIBUTES = 32;
+
+    /**
+     * Numbers with more digits are parsed by Double.parseDouble
+     */
+    private static final int MAX_FAST_DIGITS = 17;
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+    static
+    {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+        {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final String svg;
+
+    private LocalDate startDate;
+    private int numberOfDates;
+    private double minPriceLabel = Double.POSITIVE_INFINITY;
+    private double maxPriceLabel = Double.NEGATIVE_INFINITY;
+    private double plotY = Double.NaN;
+    private double plotHeight = Double.NaN;
+    // positions of the d attribute of the price line, preferred line first, any red path as fallback
+    private int pathStart = -1;
+    private int pathEnd = -1;
+    private int fallbackPathStart = -1;
+    private int fallbackPathEnd = -1;
+
+    // attribute positions of current tag: name start, name end, value start, value end
+    private final int[] attributes = new int[MAX_ATTRIBUTES * 4];
+    private int attributeCount;
+
+    private HighchartsSvg(String svg)
+    {
+        this.svg = svg;
+    }
+
+    /**
+     * @param svg content of SVG
+     * @return parsed chart
+     */
+    static HighchartsSvg parse(String svg)
+    {
+        HighchartsSvg result = new HighchartsSvg(svg);
+        result.scan();
+        return result;
+    }
+
+    /**
+     * @return earliest date label, null if there is none
+     */
+    LocalDate getStartDate()
+    {
+        return startDate;
+    }
+
+    /**
+     * @return number of date labels
+     */
+    int getNumberOfDates()
+    {
+        return numberOfDates;
+    }
+
+    /**
+     * @return true if the chart has price labels
+     */
+    boolean hasPriceLabels()
+    {
+        return minPriceLabel <= maxPriceLabel;
+    }
+
+    double getMinPriceLabel()
+    {
+        return minPriceLabel;
+    }
+
+    double getMaxPriceLabel()
+    {
+        return maxPriceLabel;
+    }
+
+    /**
+     * @return height of plot area, NaN if the plot background is missing
+     */
+    double getPlotHeight()
+    {
+        return plotHeight;
+    }
+
+    /**
+     * @return y of plot area, NaN if the plot background is missing
+     */
+    double getPlotY()
+    {
+        return plotY;
+    }
+
+    /**
+     * @return true if the chart has a price line
+     */
+    boolean hasPriceLine()
+    {
+        return pathStart >= 0 || fallbackPathStart >= 0;
+    }
+
+    /**
+     * Reads the coordinates of the price line.
+     *
+     * @return x coordinates at even, y coordinates at odd indexes
+     */
+    double[] getPriceLineCoordinates()
+    {
+        int start = pathStart >= 0 ? pathStart : fallbackPathStart;
+        int end = pathStart >= 0 ? pathEnd : fallbackPathEnd;
+        if (start < 0)
+        {
+            return new double[0];
+        }
+        double[] coordinates = new double[512];
+        int size = 0;
+        int position = start;
+        while(position < end)
+        {
+            char c = svg.charAt(position);
+            if (isNumberChar(c))
+            {
+                int numberEnd = position + 1;
+                while(numberEnd < end && isNumberChar(svg.charAt(numberEnd)))
+                {
+                    numberEnd++;
+                }
+                if (numberEnd - position == 1 && c == '.')
+                {
+                    position = numberEnd;
+                    continue;
+                }
+                if (size == coordinates.length)
+                {
+                    coordinates = Arrays.copyOf(coordinates, size * 2);
+                }
+                coordinates[size++] = parseNumber(position, numberEnd);
+                position = numberEnd;
+            }
+            else
+            {
+                // commands (M, L) and separators
+                position++;
+            }
+        }
+        // ignore incomplete pair
+        return Arrays.copyOf(coordinates, size & ~1);
+    }
+
+    private static boolean isNumberChar(char c)
+    {
+        return c >= '0' && c <= '9' || c == '.';
+    }
+
+    /**
+     * @return unsigned decimal number
+     */
+    private double parseNumber(int start, int end)
+    {
+        if (end - start > MAX_FAST_DIGITS)
+        {
+            return Double.parseDouble(svg.substring(start, end));
+        }
+        long mantissa = 0;
+        int decimals = -1;
+        for (int i = start; i < end; i++)
+        {
+            char c = svg.charAt(i);
+            if (c == '.')
+            {
+                if (decimals >= 0)
+                {
+                    throw new IllegalStateException("Invalid number in price line: " + svg.substring(start, end));
+                }
+                decimals = 0;
+            }
+            else
+            {
+                mantissa = mantissa * 10 + (c - '0');
+                if (decimals >= 0)
+                {
+                    decimals++;
+                }
+            }
+        }
+        if (decimals < 0)
+        {
+            return mantissa;
+        }
+        if (mantissa >= 1L << 53)
+        {
+            return Double.parseDouble(svg.substring(start, end));
+        }
+        // correctly rounded for mantissa < 2^53 and powers of ten up to 10^22, like Double.parseDouble
+        return mantissa / POWERS_OF_TEN[decimals];
+    }
+
+    private void scan()
+    {
+        int length = svg.length();
+        int position = svg.indexOf('<');
+        while(position >= 0 && position + 1 < length)
+        {
+            char first = svg.charAt(position + 1);
+            if (first == '/' || first == '!' || first == '?')
+            {
+                // closing tag, comment or declaration
+                int end = svg.indexOf('>', position);
+                position = end < 0 ? -1 : svg.indexOf('<', end);
+                continue;
+            }
+            int nameStart = position + 1;
+            int nameEnd = nameStart;
+            while(nameEnd < length && !isTagNameEnd(svg.charAt(nameEnd)))
+            {
+                nameEnd++;
+            }
+            int tagEnd = readAttributes(nameEnd);
+            if (tagEnd < 0)
+            {
+                return;
+            }
+            int contentStart = tagEnd + 1;
+            int contentEnd = svg.indexOf('<', contentStart);
+            handleTag(nameStart, nameEnd, contentStart, contentEnd < 0 ? length : contentEnd);
+            position = contentEnd;
+        }
+    }
+
+    private static boolean isTagNameEnd(char c)
+    {
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    /**
+     * Reads the attributes of the current tag.
+     *
+     * @return position of '&gt;', -1 if the tag isn't closed
+     */
+    private int readAttributes(int position)
+    {
+        attributeCount = 0;
+        int length = svg.length();
+        while(position < length)
+        {
+            char c = svg.charAt(position);
+            if (c == '>')
+            {
+                return position;
+            }
+            if (c == '/' || Character.isWhitespace(c))
+            {
+                position++;
+                continue;
+            }
+            int nameStart = position;
+            while(position < length && svg.charAt(position) != '=' && svg.charAt(position) != '>' && !Character.isWhitespace(svg.charAt(position)))
+            {
+                position++;
+            }
+            int nameEnd = position;
+            while(position < length && Character.isWhitespace(svg.charAt(position)))
+            {
+                position++;
+            }
+            if (position >= length || svg.charAt(position) != '=')
+            {
+                // attribute without value
+                continue;
+            }
+            position++;
+            while(position < length && Character.isWhitespace(svg.charAt(position)))
+            {
+                position++;
+            }
+            if (position >= length)
+            {
+                return -1;
+            }
+            char quote = svg.charAt(position);
+            int valueStart;
+            int valueEnd;
+            if (quote == '"' || quote == '\'')
+            {
+                valueStart = position + 1;
+                valueEnd = svg.indexOf(quote, valueStart);
+                if (valueEnd < 0)
+                {
+                    return -1;
+                }
+                position = valueEnd + 1;
+            }
+            else
+            {
+                valueStart = position;
+                while(position < length && svg.charAt(position) != '>' && !Character.isWhitespace(svg.charAt(position)))
+                {
+                    position++;
+                }
+                valueEnd = position;
+            }
+            if (attributeCount < MAX_ATTRIBUTES)
+            {
+                int index = attributeCount++ * 4;
+                attributes[index] = nameStart;
+                attributes[index + 1] = nameEnd;
+                attributes[index + 2] = valueStart;
+                attributes[index + 3] = valueEnd;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of attribute of current tag, -1 if the tag hasn't the attribute
+     */
+    private int attribute(String name)
+    {
+        for (int i = 0; i < attributeCount * 4; i += 4)
+        {
+            if (attributes[i + 1] - attributes[i] == name.length() && svg.startsWith(name, attributes[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean attributeEquals(String name, String value)
+    {
+        int index = attribute(name);
+        return index >= 0 && attributes[index + 3] - attributes[index + 2] == value.length() && svg.startsWith(value, attributes[index + 2]);
+    }
+
+    private boolean isTag(int nameStart, int nameEnd, String name)
+    {
+        return nameEnd - nameStart == name.length() && svg.startsWith(name, nameStart);
+    }
+
+    private void handleTag(int nameStart, int nameEnd, int contentStart, int contentEnd)
+    {
+        if (isTag(nameStart, nameEnd, "text"))
+        {
+            handleText(contentStart, contentEnd);
+        }
+        else if (isTag(nameStart, nameEnd, "path"))
+        {
+            handlePath();
+        }
+        else if (isTag(nameStart, nameEnd, "rect"))
+        {
+            handleRect();
+        }
+        if (attributeEquals("text-anchor", "end"))
+        {
+            handlePriceLabel(contentStart, contentEnd);
+        }
+    }
+
+    private void handleText(int contentStart, int contentEnd)
+    {
+        int start = skipWhitespace(contentStart, contentEnd);
+        int end = skipTrailingWhitespace(start, contentEnd);
+        // MM/dd/yyyy
+        if (end - start != 10 || svg.charAt(start + 2) != '/' || svg.charAt(start + 5) != '/')
+        {
+            return;
+        }
+        int month = parseDigits(start, 2);
+        int day = parseDigits(start + 3, 2);
+        int year = parseDigits(start + 6, 4);
+        if (month < 0 || day < 0 || year < 0)
+        {
+            return;
+        }
+        try
+        {
+            LocalDate date = LocalDate.of(year, month, day);
+            numberOfDates++;
+            if (startDate == null || date.isBefore(startDate))
+            {
+                startDate = date;
+            }
+        }
+        catch(DateTimeException e)
+        {
+            // not a date
+        }
+    }
+
+    private void handlePriceLabel(int contentStart, int contentEnd)
+    {
+        int start = skipWhitespace(contentStart, contentEnd);
+        int end = skipTrailingWhitespace(start, contentEnd);
+        boolean negative = start < end && svg.charAt(start) == '-';
+        int digitsStart = negative ? start + 1 : start;
+        // limit to int range, other labels aren't prices
+        if (end <= digitsStart || end - digitsStart > 9)
+        {
+            return;
+        }
+        int value = parseDigits(digitsStart, end - digitsStart);
+        if (value < 0)
+        {
+            return;
+        }
+        double price = negative ? -value : value;
+        minPriceLabel = Math.min(minPriceLabel, price);
+        maxPriceLabel = Math.max(maxPriceLabel, price);
+    }
+
+    private void handlePath()
+    {
+        int d = attribute("d");
+        if (d < 0 || !attributeEquals("stroke", PRICE_LINE_STROKE))
+        {
+            return;
+        }
+        int valueStart = attributes[d + 2];
+        int valueEnd = attributes[d + 3];
+        if (pathStart < 0 && svg.startsWith(PRICE_LINE_START, valueStart) && contains(valueStart, valueEnd, PRICE_LINE_BOTTOM))
+        {
+            pathStart = valueStart;
+            pathEnd = valueEnd;
+        }
+        else if (fallbackPathStart < 0)
+        {
+            fallbackPathStart = valueStart;
+            fallbackPathEnd = valueEnd;
+        }
+    }
+
+    private boolean contains(int start, int end, String value)
+    {
+        int index = svg.indexOf(value, start);
+        return index >= 0 && index + value.length() <= end;
+    }
+
+    private void handleRect()
+    {
+        if (!Double.isNaN(plotHeight) || !attributeEquals("class", PLOT_BACKGROUND_CLASS))
+        {
+            return;
+        }
+        int y = attribute("y");
+        int height = attribute("height");
+        if (y >= 0 && height >= 0)
+        {
+            try
+            {
+                plotY = Double.parseDouble(svg.substring(attributes[y + 2], attributes[y + 3]));
+                plotHeight = Double.parseDouble(svg.substring(attributes[height + 2], attributes[height + 3]));
+            }
+            catch(NumberFormatException e)
+            {
+                plotY = Double.NaN;
+                plotHeight = Double.NaN;
+            }
+        }
+    }
+
+    private int skipWhitespace(int position, int end)
+    {
+        while(position < end && Character.isWhitespace(svg.charAt(position)))
+        {
+            position++;
+        }
+        return position;
+    }
+
+    private int skipTrailingWhitespace(int start, int end)
+    {
+        while(end > start && Character.isWhitespace(svg.charAt(end - 1)))
+        {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return value of digits, -1 if there are other characters
+     */
+    private int parseDigits(int start, int length)
+    {
+        int result = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            int digit = svg.charAt(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -2,32 +2,36 @@ package de.hatoka.eos.forecast.energycharts;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * StockEnergyPriceConverter extracts the hourly stock prices of Energy Charts SVG charts (see {@link HighchartsSvg}) and writes them as CSV,
+ * one line per day: date (yyyy/MM/dd) followed by the prices of the hours of the day.
+ */
 public class StockEnergyPriceConverter
 {
     private static final ZoneId ZONE_ID = ZoneId.of("Europe/Berlin");
-    private static final String DATE_PATTERN = "<text[^>]*>\\s*(\\d{2}/\\d{2}/\\d{4})\\s*</text>";
-
-    // Search directly for the path element with the long coordinate sequence
-    // This is the red price line at the end of the SVG
-    private static final String PATH_PATTERN = "<path[^>]*d=\"(M 3\\.055[^\"]+876\\.94444[^\"]+)\"[^>]*stroke=\"rgb\\(228, 26, 28\\)\"[^>]*>";
-    private static final String COORDINATES_PATTERN = "([ML]?)\\s*([0-9.]+)\\s+([0-9.]+)";
-    private static final String PATH_PRICE_PATTERN = "<path[^>]*d=\"([^\"]+)\"[^>]*stroke=\"rgb\\(228, 26, 28\\)\"[^>]*>";
-    // Pattern to extract Y-axis price labels - handle multi-line formatting with whitespace
-    private static final String Y_AXIS_PRICE_LABEL_PATTERN = "text-anchor=\"end\"[^>]*>\\s*(-?\\d+)\\s*<";
-    private static final String RECT_PATTERN = "<rect[^>]*class=\"highcharts-plot-background\"[^>]*y=\"([0-9.]+)\"[^>]*height=\"([0-9.]+)\"[^>]*>";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder().setDelimiter(",").setSkipHeaderRecord(true).get();
+    private static final int HOURS_PER_DAY = 24;
+    private static final String SVG_SUFFIX = ".svg";
 
     record PriceRange(double min, double max)
     {
@@ -37,80 +41,133 @@ public class StockEnergyPriceConverter
     {
     }
 
-    private record Coordinate(double x, double y)
+    record DateExtractorResult(LocalDate startDate, int numberOfDays)
     {
     }
 
-    record DateExtractorResult(LocalDate startDate, int numberOfDays)
+    /**
+     * Hourly prices of one chart
+     *
+     * @param startDate first day of the chart
+     * @param prices price per hour since start date 00:00 (Europe/Berlin), NaN if the chart has no price for the hour
+     */
+    record ChartPrices(LocalDate startDate, double[] prices)
     {
+        Instant getTime(int hour)
+        {
+            return startDate.atStartOfDay().plusHours(hour).atZone(ZONE_ID).toInstant();
+        }
     }
 
     public String exportToCSV(ZoneId zone, String... svgContents) throws IOException
     {
-        Map<Instant, Double> prices = new HashMap<>();
-        for(String svgContent : svgContents)
+        List<ChartPrices> charts = new ArrayList<>(svgContents.length);
+        for (String svgContent : svgContents)
         {
-            prices.putAll(extractStockPrices(svgContent));
+            charts.add(extractChartPrices(svgContent));
         }
-        Map<String, List<String>> priceLists = consolidatePricesPerDay(prices, zone);
-        return exportToCSV(priceLists);
+        StringWriter sw = new StringWriter();
+        writeCSV(consolidatePricesPerDay(charts, zone), sw);
+        return sw.toString().trim();
     }
 
-    String exportToCSV(Map<String, List<String>> priceLists) throws IOException
+    /**
+     * Converts all SVG files of a directory to one CSV file. The files are read and converted in parallel, prices of a later file (in order
+     * of file names) replace the prices of a former file for the same hour.
+     *
+     * @param zone time zone of the CSV
+     * @param directory directory with SVG files
+     * @param csvFile target file
+     * @throws IOException if a file can't be read or written
+     */
+    public void exportToCSV(ZoneId zone, Path directory, Path csvFile) throws IOException
     {
-        // consolidate per day
-        StringWriter sw = new StringWriter();
-        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setDelimiter(",").setSkipHeaderRecord(true).get();
-        try (final CSVPrinter printer = new CSVPrinter(sw, csvFormat))
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory))
+        {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(SVG_SUFFIX)).sorted().toList();
+        }
+        List<ChartPrices> charts;
+        try
+        {
+            // toList keeps the order of the files
+            charts = files.parallelStream().map(this::extractChartPrices).toList();
+        }
+        catch(UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        try (Writer writer = Files.newBufferedWriter(csvFile))
+        {
+            writeCSV(consolidatePricesPerDay(charts, zone), writer);
+        }
+    }
+
+    private ChartPrices extractChartPrices(Path file)
+    {
+        try
+        {
+            return extractChartPrices(Files.readString(file));
+        }
+        catch(IOException e)
         {
-            priceLists.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
-                try
+            throw new UncheckedIOException("Can't read " + file, e);
+        }
+    }
+
+    void writeCSV(SortedMap<LocalDate, double[]> pricesPerDay, Appendable out) throws IOException
+    {
+        try (final CSVPrinter printer = new CSVPrinter(out, CSV_FORMAT))
+        {
+            List<String> data = new ArrayList<>(HOURS_PER_DAY + 1);
+            for (Map.Entry<LocalDate, double[]> entry : pricesPerDay.entrySet())
+            {
+                double[] prices = entry.getValue();
+                int hours = prices.length;
+                while(hours > 0 && Double.isNaN(prices[hours - 1]))
                 {
-                    List<Object> data = new ArrayList<>();
-                    data.add(entry.getKey());
-                    data.addAll(entry.getValue());
-                    printer.printRecord(data);
+                    hours--;
                 }
-                catch(IOException e)
+                data.clear();
+                data.add(DATE_FORMAT.format(entry.getKey()));
+                for (int hour = 0; hour < hours; hour++)
                 {
-                    throw new RuntimeException("Can't write csv data.", e);
+                    data.add(Double.isNaN(prices[hour]) ? "" : String.format(Locale.ROOT, "%.2f", prices[hour]));
                 }
-            });
+                printer.printRecord(data);
+            }
         }
-        return sw.toString().trim();
     }
 
-    Map<String, List<String>> consolidatePricesPerDay(Map<Instant, Double> prices, ZoneId zone)
+    /**
+     * @param charts prices of charts, prices of later charts replace prices of former charts
+     * @param zone time zone of the days
+     * @return prices per hour of day (NaN if there is no price) by day
+     */
+    SortedMap<LocalDate, double[]> consolidatePricesPerDay(List<ChartPrices> charts, ZoneId zone)
     {
-        Map<String, Map<Integer, Double>> pricesPerDay = new HashMap<>();
-        prices.forEach((time, price) -> {
-            ZonedDateTime timeAtZone = time.atZone(zone);
-            String lineDate = formatDate(timeAtZone);
-            int hourOfDay = timeAtZone.getHour();
-            pricesPerDay.computeIfAbsent(lineDate, l -> new HashMap<>()).put(hourOfDay, price);
-        });
-        Map<String, List<String>> result = new HashMap<>();
-        pricesPerDay.forEach((day, pricesAtDay) -> {
-            int maxNumber = pricesAtDay.keySet().stream().mapToInt(i -> i).max().orElse(0);
-            List<String> priceList = new ArrayList<>(maxNumber + 1);
-            for (int i = 0; i <= maxNumber; i++)
+        SortedMap<LocalDate, double[]> result = new TreeMap<>();
+        for (ChartPrices chart : charts)
+        {
+            double[] prices = chart.prices();
+            for (int hour = 0; hour < prices.length; hour++)
             {
-                priceList.add(convertToString(pricesAtDay.get(i)));
+                if (Double.isNaN(prices[hour]))
+                {
+                    continue;
+                }
+                ZonedDateTime timeAtZone = chart.getTime(hour).atZone(zone);
+                result.computeIfAbsent(timeAtZone.toLocalDate(), d -> newDay())[timeAtZone.getHour()] = prices[hour];
             }
-            result.put(day, priceList);
-        });
+        }
         return result;
     }
 
-    private String convertToString(Double value)
-    {
-        return String.format("%.2f", value);
-    }
-
-    String formatDate(ZonedDateTime timeAtZone)
+    private static double[] newDay()
     {
-        DateTimeFormatter pattern = DateTimeFormatter.ofPattern("yyyy/MM/dd");
-        return pattern.format(timeAtZone);
+        double[] prices = new double[HOURS_PER_DAY];
+        Arrays.fill(prices, Double.NaN);
+        return prices;
     }
 
     /**
@@ -119,174 +176,98 @@ public class StockEnergyPriceConverter
      */
     Map<Instant, Double> extractStockPrices(String svgContent)
     {
-        // Extract the price line path data
-        String pathData = extractPricePath(svgContent);
-        if (pathData == null)
+        ChartPrices chartPrices = extractChartPrices(svgContent);
+        Map<Instant, Double> result = new HashMap<>();
+        for (int hour = 0; hour < chartPrices.prices().length; hour++)
         {
-            return new HashMap<>();
+            if (!Double.isNaN(chartPrices.prices()[hour]))
+            {
+                result.put(chartPrices.getTime(hour), chartPrices.prices()[hour]);
+            }
         }
+        return result;
+    }
 
-        // Extract date range from the chart
-        DateExtractorResult dateExtractor = extractStartDate(svgContent);
-        LocalDate startDate = dateExtractor.startDate();
-        int numberOfDays = dateExtractor.numberOfDays();
+    /**
+     * @param svgContent
+     * @return hourly prices of the chart, empty if the chart has no price line
+     */
+    ChartPrices extractChartPrices(String svgContent)
+    {
+        HighchartsSvg chart = HighchartsSvg.parse(svgContent);
+        if (!chart.hasPriceLine())
+        {
+            return new ChartPrices(chart.getStartDate(), new double[0]);
+        }
+        if (chart.getStartDate() == null)
+        {
+            throw new IllegalStateException("Can't retrieve start date");
+        }
 
         // Extract price range dynamically from Y-axis labels
-        PriceRange priceRange = extractPriceRange(svgContent);
+        PriceRange priceRange = getPriceRange(chart);
 
         // Extract chart dimensions dynamically from SVG
-        ChartDimensions chartDimensions = extractChartDimensions(svgContent);
+        ChartDimensions chartDimensions = getChartDimensions(chart);
 
-        // Parse all coordinates from the path data and extract both timestamps and prices
-        return extractTimestampsAndPrices(pathData, startDate, priceRange, chartDimensions, numberOfDays);
+        // Parse all coordinates from the path data and extract both hours and prices
+        return extractHoursAndPrices(chart, priceRange, chartDimensions);
     }
 
     PriceRange extractPriceRange(String svgContent)
     {
-        Pattern pricePattern = Pattern.compile(Y_AXIS_PRICE_LABEL_PATTERN);
-        Matcher matcher = pricePattern.matcher(svgContent);
-
-        double minPrice = Double.MAX_VALUE;
-        double maxPrice = Double.MIN_VALUE;
-
-        while(matcher.find())
-        {
-            try
-            {
-                double price = Double.parseDouble(matcher.group(1));
-                minPrice = Math.min(minPrice, price);
-                maxPrice = Math.max(maxPrice, price);
-            }
-            catch(NumberFormatException e)
-            {
-                // Skip invalid price values
-            }
-        }
+        return getPriceRange(HighchartsSvg.parse(svgContent));
+    }
 
-        // Fallback to default values if no prices found
-        if (minPrice == Double.MAX_VALUE || maxPrice == Double.MIN_VALUE)
+    private PriceRange getPriceRange(HighchartsSvg chart)
+    {
+        if (!chart.hasPriceLabels())
         {
-            throw new IllegalStateException("Can't retrieve min " + minPrice + " or max " + maxPrice + " value");
+            throw new IllegalStateException("Can't retrieve min or max value");
         }
-        return new PriceRange(minPrice, maxPrice);
+        return new PriceRange(chart.getMinPriceLabel(), chart.getMaxPriceLabel());
     }
 
-    private ChartDimensions extractChartDimensions(String svgContent)
+    private ChartDimensions getChartDimensions(HighchartsSvg chart)
     {
-        // Look for the plot background rectangle which defines the chart area
-        // Pattern: <rect ... class="highcharts-plot-background" x="65" y="43" width="880" height="426" ...>
-        Matcher matcher = Pattern.compile(RECT_PATTERN).matcher(svgContent);
-
-        if (matcher.find())
+        // plot background rectangle defines the chart area
+        // <rect ... class="highcharts-plot-background" x="65" y="43" width="880" height="426" ...>
+        if (Double.isNaN(chart.getPlotHeight()))
         {
-            try
-            {
-                double yOffset = Double.parseDouble(matcher.group(1));
-                double height = Double.parseDouble(matcher.group(2));
-                return new ChartDimensions(yOffset, height);
-            }
-            catch(NumberFormatException e)
-            {
-                // Fall back to default values
-            }
+            throw new IllegalStateException("Can't retrieve chart dimension");
         }
-        throw new IllegalStateException("Can't retrieve chart dimension");
+        return new ChartDimensions(chart.getPlotY(), chart.getPlotHeight());
     }
 
-    private Map<Instant, Double> extractTimestampsAndPrices(String pathData, LocalDate startDate, PriceRange priceRange,
-                    ChartDimensions chartDimensions, int numberOfDays)
+    private ChartPrices extractHoursAndPrices(HighchartsSvg chart, PriceRange priceRange, ChartDimensions chartDimensions)
     {
-        // Extract all coordinate pairs from the path using regex
-        Pattern coordPattern = Pattern.compile(COORDINATES_PATTERN);
-        Matcher matcher = coordPattern.matcher(pathData);
+        double[] coordinates = chart.getPriceLineCoordinates();
 
-        // First, collect all X coordinates to find min and max dynamically
+        // First, find min and max of X coordinates dynamically
         double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-
-        // Store coordinates for second pass
-        List<Coordinate> coordinates = new ArrayList<>();
-
-        while(matcher.find())
+        double maxX = -Double.MAX_VALUE;
+        for (int i = 0; i < coordinates.length; i += 2)
         {
-            try
-            {
-                double x = Double.parseDouble(matcher.group(2));
-                double y = Double.parseDouble(matcher.group(3));
-
-                coordinates.add(new Coordinate(x, y));
-                minX = Math.min(minX, x);
-                maxX = Math.max(maxX, x);
-            }
-            catch(NumberFormatException e)
-            {
-                LoggerFactory.getLogger(getClass()).warn("Could not parse coordinates: {}, {} ", matcher.group(2), matcher.group(3));
-            }
+            minX = Math.min(minX, coordinates[i]);
+            maxX = Math.max(maxX, coordinates[i]);
         }
 
         // Now process coordinates with dynamically determined min/max X values and price range
-        Map<Instant, Double> priceMap = new HashMap<>();
-        for (Coordinate coordinate : coordinates)
-        {
-            // Calculate timestamp and price from coordinates
-            Instant timestamp = convertXToTimestamp(coordinate.x(), startDate, minX, maxX, numberOfDays);
-            double price = convertYToPrice(coordinate.y(), priceRange, chartDimensions);
-            priceMap.put(timestamp, price);
-        }
-
-        return priceMap;
-    }
-
-    private String extractPricePath(String svg)
-    {
-        Matcher matcher = Pattern.compile(PATH_PATTERN).matcher(svg);
-        if (matcher.find())
-        {
-            return matcher.group(1);
-        }
-
-        // Fallback: Search for any path with red stroke
-        matcher = Pattern.compile(PATH_PRICE_PATTERN).matcher(svg);
-        if (matcher.find())
+        int totalHours = chart.getNumberOfDates() * HOURS_PER_DAY; // 144 hours for 6 days; 168 for 7 days
+        double[] prices = new double[totalHours];
+        Arrays.fill(prices, Double.NaN);
+        for (int i = 0; i < coordinates.length; i += 2)
         {
-            return matcher.group(1);
+            int hour = convertXToHour(coordinates[i], minX, maxX, totalHours);
+            prices[hour] = convertYToPrice(coordinates[i + 1], priceRange, chartDimensions);
         }
-        return null;
+        return new ChartPrices(chart.getStartDate(), prices);
     }
 
     DateExtractorResult extractStartDate(String svg)
     {
-        // Look for all date patterns and find the first (earliest) one
-        Matcher matcher = Pattern.compile(DATE_PATTERN).matcher(svg);
-
-        LocalDate earliestDate = null;
-        int numberOfDates = 0;
-        while(matcher.find())
-        {
-            String dateStr = matcher.group(1);
-            String[] parts = dateStr.split("/");
-            if (parts.length == 3)
-            {
-                try
-                {
-                    int month = Integer.parseInt(parts[0]);
-                    int day = Integer.parseInt(parts[1]);
-                    int year = Integer.parseInt(parts[2]);
-                    LocalDate currentDate = LocalDate.of(year, month, day);
-                    numberOfDates++;
-                    if (earliestDate == null || currentDate.isBefore(earliestDate))
-                    {
-                        earliestDate = currentDate;
-                    }
-                }
-                catch(NumberFormatException e)
-                {
-                    // Invalid date format, skip
-                }
-            }
-        }
-
-        return new DateExtractorResult(earliestDate, numberOfDates);
+        HighchartsSvg chart = HighchartsSvg.parse(svg);
+        return new DateExtractorResult(chart.getStartDate(), chart.getNumberOfDates());
     }
 
     private double convertYToPrice(double y, PriceRange priceRange, ChartDimensions chartDimensions)
@@ -300,14 +281,10 @@ public class StockEnergyPriceConverter
         return priceRange.min + normalizedY * (priceRange.max - priceRange.min);
     }
 
-    private Instant convertXToTimestamp(double x, LocalDate startDate, double minX, double maxX, int numberOfDays)
+    private int convertXToHour(double x, double minX, double maxX, int totalHours)
     {
-        // Convert SVG X coordinate to timestamp
-        // Chart spans 6 days (week 33), X goes from minX to maxX
-        // The X coordinates are now dynamically determined from the actual data
-
-        // Calculate the normalized position within the chart
-        // The first X coordinate should lead to 00:00 on the start date
+        // Convert SVG X coordinate to the hour since start date
+        // The X coordinates are dynamically determined from the actual data, the first X coordinate leads to 00:00 on the start date
 
         // Normalize X between 0 and 1
         double normalizedX = (x - minX) / (maxX - minX);
@@ -315,21 +292,16 @@ public class StockEnergyPriceConverter
         // Chart shows 6 days * 24 hours = 144 hours (0-143)
         // We want the first point to be at hour 0 of day 1,
         // not at a negative hour
-        int totalHours = numberOfDays * 24; // 144 hours for 6 days; 168 for 7 days
         double hoursFromStart = normalizedX * (totalHours - 1); // 0 to 143/167
 
         // Round to the next full hour for clean hourly data points
         long hourIndex = Math.round(hoursFromStart);
 
         // Ensure we stay within the expected hours
-        if (hourIndex != Math.max(0, Math.min(totalHours - 1, hourIndex)))
+        if (hourIndex < 0 || hourIndex >= totalHours)
         {
             throw new IllegalStateException("We calculated an hour outside of the range");
         }
-
-        LocalDateTime startDateTime = startDate.atStartOfDay(); // start date 00:00
-        LocalDateTime pointDateTime = startDateTime.plusHours(hourIndex);
-
-        return pointDateTime.atZone(ZONE_ID).toInstant();
+        return (int)hourIndex;
     }
 }
@@ -0,0 +1,120 @@
+package de.hatoka.eos.forecast.http;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP client shared by all importers. The connections are reused between requests, the number of parallel requests to one host is limited, so
+ * a large import doesn't overload the forecast services.
+ */
+@Singleton
+public class ForecastHttpClient implements AutoCloseable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ForecastHttpClient.class);
+
+    /**
+     * Reads the body of a response while it is downloaded.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface BodyParser<T>
+    {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final int maxRequestsPerHost;
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxRequestsPerHost maximal number of parallel requests to one host
+     * @param timeout timeout for connect and response
+     */
+    @Inject
+    public ForecastHttpClient(@ConfigProperty(name = "eos.forecast.http.max-requests-per-host", defaultValue = "4") int maxRequestsPerHost,
+                    @ConfigProperty(name = "eos.forecast.http.timeout", defaultValue = "PT30S") Duration timeout)
+    {
+        if (maxRequestsPerHost < 1)
+        {
+            throw new IllegalArgumentException("At least one request per host is required: " + maxRequestsPerHost);
+        }
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                                    .connectTimeout(timeout)
+                                    .followRedirects(HttpClient.Redirect.NORMAL)
+                                    .executor(executor)
+                                    .build();
+    }
+
+    /**
+     * Requests the JSON document of the URI, waits while the limit of the host is reached. The body is streamed to the parser, so the
+     * document is never held completely in memory.
+     *
+     * @param uri location of document
+     * @param userAgent user agent of the request
+     * @param parser reads the body
+     * @return result of parser
+     * @throws IOException if the request or parsing fails or the status isn't 200
+     * @throws InterruptedException if the request is interrupted
+     */
+    public <T> T getJson(URI uri, String userAgent, BodyParser<T> parser) throws IOException, InterruptedException
+    {
+        HttpRequest request = HttpRequest.newBuilder()
+                                         .uri(uri)
+                                         .timeout(timeout)
+                                         .header("User-Agent", userAgent)
+                                         .header("Accept", "application/json")
+                                         .GET()
+                                         .build();
+        Semaphore hostLimit = hostLimits.computeIfAbsent(uri.getHost() + ":" + uri.getPort(), h -> new Semaphore(maxRequestsPerHost));
+        hostLimit.acquire();
+        try
+        {
+            LOGGER.debug("Sending HTTP request to: {}", uri);
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body())
+            {
+                if (response.statusCode() != 200)
+                {
+                    throw new IOException("HTTP request to " + uri + " failed with status code: " + response.statusCode() + ", response: "
+                                    + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                return parser.parse(body);
+            }
+        }
+        finally
+        {
+            hostLimit.release();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close()
+    {
+        httpClient.close();
+        executor.close();
+    }
+}
@@ -0,0 +1,77 @@
+package de.hatoka.eos.forecast.openmeteo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.hatoka.eos.forecast.JsonArrays;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * OpenMeteoParser reads the hourly sunshine duration of an OpenMeteo forecast (requested with timeformat=unixtime) with a streaming parser.
+ * Other values are skipped, the series is kept in primitive arrays.
+ */
+final class OpenMeteoParser
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * @param times start of hours in epoch seconds, null if missing
+     * @param sunshineDurations sunshine per hour in seconds, NaN if undefined, null if missing
+     */
+    record SunshineSeries(long[] times, double[] sunshineDurations)
+    {
+    }
+
+    private OpenMeteoParser()
+    {
+    }
+
+    /**
+     * @param body forecast document
+     * @return sunshine series, arrays are null if the document has no hourly sunshine duration
+     * @throws IOException if the document is invalid
+     */
+    static SunshineSeries parseSunshineDuration(InputStream body) throws IOException
+    {
+        long[] times = null;
+        double[] sunshineDurations = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(body))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                throw new IOException("Object expected");
+            }
+            while(parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT && "hourly".equals(field))
+                {
+                    while(parser.nextToken() == JsonToken.FIELD_NAME)
+                    {
+                        String hourlyField = parser.currentName();
+                        JsonToken token = parser.nextToken();
+                        if ("time".equals(hourlyField) && token == JsonToken.START_ARRAY)
+                        {
+                            times = JsonArrays.readLongs(parser);
+                        }
+                        else if ("sunshine_duration".equals(hourlyField) && token == JsonToken.START_ARRAY)
+                        {
+                            sunshineDurations = JsonArrays.readDoubles(parser);
+                        }
+                        else
+                        {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new SunshineSeries(times, sunshineDurations);
+    }
+}
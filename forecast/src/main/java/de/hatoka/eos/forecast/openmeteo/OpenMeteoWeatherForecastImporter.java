@@ -1,40 +1,40 @@
 package de.hatoka.eos.forecast.openmeteo;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hatoka.eos.forecast.AbstractWeatherForecastImporter;
+import de.hatoka.eos.forecast.ImportTask;
+import de.hatoka.eos.forecast.SunshineMinutes;
+import de.hatoka.eos.forecast.WriteStatistics;
+import de.hatoka.eos.forecast.openmeteo.OpenMeteoParser.SunshineSeries;
 import de.hatoka.eos.persistence.capi.weather.WeatherStation;
 import de.hatoka.eos.persistence.capi.weather.WeatherDataSource;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Downloads weather forecast data from OpenMeteo API and processes it to extract sunshine duration data.
  *
  * OpenMeteo API Documentation: https://open-meteo.com/en/docs
  *
- * Example API call: https://api.open-meteo.com/v1/forecast?latitude=51.0262&longitude=11.5164&hourly=sunshine_duration&forecast_days=3&timezone=UTC
+ * Example API call: https://api.open-meteo.com/v1/forecast?latitude=51.0262&longitude=11.5164&hourly=sunshine_duration&forecast_days=3&timezone=UTC&timeformat=unixtime
  */
 @Singleton
 public class OpenMeteoWeatherForecastImporter extends AbstractWeatherForecastImporter
 {
     private static final String API_BASE_URL = "https://api.open-meteo.com/v1/forecast";
-    private static final String API_QUERY = API_BASE_URL + "?latitude=%.4f&longitude=%.4f&hourly=sunshine_duration&forecast_days=%s&timezone=%s";
+    private static final String API_QUERY = "%s?latitude=%.4f&longitude=%.4f&hourly=sunshine_duration&forecast_days=%s&timezone=%s&timeformat=unixtime";
 
     private static final String FORECAST_DAYS = "3";
     private static final String TIMEZONE = "UTC";
+    private static final String USER_AGENT = "EOS-Weather-Forecast-Importer/1.0";
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @ConfigProperty(name = "eos.forecast.openmeteo.url", defaultValue = API_BASE_URL)
+    String apiBaseUrl;
 
     @Override
     protected WeatherDataSource getSource()
@@ -43,22 +43,46 @@ public class OpenMeteoWeatherForecastImporter extends AbstractWeatherForecastImp
     }
 
     @Override
-    protected Map<ZonedDateTime, Integer> downloadAndProcessWeatherData(WeatherStation station, ZonedDateTime startDate)
-                    throws IOException, InterruptedException
+    public ImportTask<?, SunshineMinutes> createImportTask(WeatherStation station, ZonedDateTime startDate)
     {
-        // Build the OpenMeteo API URL
-        String apiUrl = buildApiUrl(station);
-        logger.debug("Requesting OpenMeteo API: {}", apiUrl);
+        return new ImportTask<SunshineSeries, SunshineMinutes>()
+        {
+            @Override
+            public String getName()
+            {
+                return "OpenMeteo " + station.name();
+            }
+
+            @Override
+            public URI getUri()
+            {
+                return URI.create(buildApiUrl(station));
+            }
+
+            @Override
+            public String getUserAgent()
+            {
+                return USER_AGENT;
+            }
 
-        // Download the JSON data from OpenMeteo API
-        String jsonResponse = downloadJsonData(URI.create(apiUrl));
-        logger.debug("Downloaded {} characters of JSON data", jsonResponse.length());
+            @Override
+            public SunshineSeries parse(InputStream body) throws IOException
+            {
+                return OpenMeteoParser.parseSunshineDuration(body);
+            }
 
-        // Parse the JSON response
-        OpenMeteoResponse response = objectMapper.readValue(jsonResponse, OpenMeteoResponse.class);
+            @Override
+            public SunshineMinutes convert(SunshineSeries response)
+            {
+                return convertToSunshineMinutes(response);
+            }
 
-        // Convert the response to our internal format
-        return convertToSunshineDurationMap(response);
+            @Override
+            public WriteStatistics write(SunshineMinutes data)
+            {
+                return storeSunshineData(data, station);
+            }
+        };
     }
 
     /**
@@ -69,118 +93,61 @@ public class OpenMeteoWeatherForecastImporter extends AbstractWeatherForecastImp
      */
     private String buildApiUrl(WeatherStation station)
     {
-        return API_QUERY.formatted(station.getLatitude(), station.getLongitude(), FORECAST_DAYS, TIMEZONE);
-    }
-
-    /**
-     * Downloads JSON data from the OpenMeteo API.
-     *
-     * @param apiUrl the API URL to call
-     * @return the JSON response as a string
-     * @throws IOException if the HTTP request fails
-     * @throws InterruptedException if the request is interrupted
-     */
-    private String downloadJsonData(URI apiUrl) throws IOException, InterruptedException
-    {
-        try (HttpClient httpClient = HttpClient.newBuilder()
-                                               .connectTimeout(Duration.ofSeconds(30))
-                                               .followRedirects(HttpClient.Redirect.NORMAL)
-                                               .build())
-        {
-            HttpRequest request = HttpRequest.newBuilder()
-                                             .uri(apiUrl)
-                                             .timeout(Duration.ofSeconds(30))
-                                             .header("User-Agent", "EOS-Weather-Forecast-Importer/1.0")
-                                             .header("Accept", "application/json")
-                                             .GET()
-                                             .build();
-
-            logger.debug("Sending HTTP request to OpenMeteo API: {}", apiUrl);
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200)
-            {
-                throw new IOException("OpenMeteo API request failed with status code: " + response.statusCode() + ", response: " + response.body());
-            }
-
-            return response.body();
-        }
+        return API_QUERY.formatted(apiBaseUrl, station.getLatitude(), station.getLongitude(), FORECAST_DAYS, TIMEZONE);
     }
 
     /**
-     * Converts the OpenMeteo API response to our internal sunshine duration format.
+     * Converts the OpenMeteo sunshine series to our internal sunshine duration format.
      *
-     * @param response the OpenMeteo API response
-     * @return map of datetime to sunshine duration in minutes
+     * @param series the sunshine series of the OpenMeteo API response
+     * @return sunshine minutes per hour
      */
-    private Map<ZonedDateTime, Integer> convertToSunshineDurationMap(OpenMeteoResponse response)
+    private SunshineMinutes convertToSunshineMinutes(SunshineSeries series)
     {
-        Map<ZonedDateTime, Integer> result = new HashMap<>();
-
-        if (response.getHourly() == null)
-        {
-            logger.warn("No hourly data in OpenMeteo response");
-            return result;
-        }
-
-        List<String> times = response.getHourly().getTime();
-        List<Double> sunshineDurations = response.getHourly().getSunshineDuration();
+        long[] times = series.times();
+        double[] sunshineDurations = series.sunshineDurations();
 
         if (times == null || sunshineDurations == null)
         {
             logger.warn("Missing time or sunshine_duration data in OpenMeteo response");
-            return result;
+            return SunshineMinutes.NONE;
         }
 
-        if (times.size() != sunshineDurations.size())
+        if (times.length != sunshineDurations.length)
         {
-            logger.warn("Time and sunshine_duration arrays have different sizes: {} vs {}", times.size(), sunshineDurations.size());
-            return result;
+            logger.warn("Time and sunshine_duration arrays have different sizes: {} vs {}", times.length, sunshineDurations.length);
+            return SunshineMinutes.NONE;
         }
 
-        // Parse each time/sunshine pair
-        for (int i = 0; i < times.size(); i++)
+        long[] resultTimes = new long[times.length];
+        int[] resultMinutes = new int[times.length];
+        int size = 0;
+        for (int i = 0; i < times.length; i++)
         {
-            try
+            // Convert sunshine duration from seconds to minutes
+            // OpenMeteo returns sunshine duration in seconds for the past hour
+            double sunshineSeconds = sunshineDurations[i];
+            int sunshineMinutes = Double.isNaN(sunshineSeconds) ? 0 : (int)Math.round(sunshineSeconds / 60.0);
+
+            if (sunshineMinutes > 60)
             {
-                String timeString = times.get(i);
-                ZonedDateTime dateTime;
-
-                // Handle OpenMeteo time format which might be with or without timezone
-                if (timeString.contains("T") && !timeString.contains("Z") && !timeString.contains("+") && !timeString.substring(
-                                timeString.indexOf("T")).contains("-"))
-                {
-                    // Format like "2025-11-05T15:00" - add UTC timezone
-                    dateTime = ZonedDateTime.parse(timeString + "Z", DateTimeFormatter.ISO_ZONED_DATE_TIME);
-                }
-                else
-                {
-                    // Format with timezone information
-                    dateTime = ZonedDateTime.parse(timeString, DateTimeFormatter.ISO_ZONED_DATE_TIME);
-                }
-
-                // Convert sunshine duration from seconds to minutes
-                // OpenMeteo returns sunshine duration in seconds for the past hour
-                Double sunshineSeconds = sunshineDurations.get(i);
-                int sunshineMinutes = sunshineSeconds != null ? (int)Math.round(sunshineSeconds / 60.0) : 0;
-
-                if (sunshineMinutes > 60)
-                {
-                    throw new IllegalArgumentException("Sunshine minutes exceed 60: " + sunshineMinutes);
-                }
-
-                result.put(dateTime, sunshineMinutes);
-
-                logger.trace("Parsed {}: {} minutes sunshine", dateTime, sunshineMinutes);
+                logger.warn("Sunshine minutes exceed 60 at index {}: {}", i, sunshineMinutes);
+                continue;
             }
-            catch(Exception e)
+            if (size > 0 && times[i] * 1000 <= resultTimes[size - 1])
             {
-                logger.warn("Failed to parse time entry at index {}: '{}', sunshine: {}", i, times.get(i), sunshineDurations.get(i), e);
+                logger.warn("Time at index {} isn't ascending: {}", i, times[i]);
+                continue;
             }
+
+            resultTimes[size] = times[i] * 1000;
+            resultMinutes[size] = sunshineMinutes;
+            size++;
+
+            logger.trace("Parsed {}: {} minutes sunshine", times[i], sunshineMinutes);
         }
 
-        logger.info("Converted {} OpenMeteo data points to sunshine duration map", result.size());
-        return result;
+        logger.info("Converted {} OpenMeteo data points to sunshine minutes", size);
+        return new SunshineMinutes(Arrays.copyOf(resultTimes, size), Arrays.copyOf(resultMinutes, size));
     }
 }
@@ -0,0 +1,148 @@
+package de.hatoka.eos.forecast;
+
+import com.sun.net.httpserver.HttpServer;
+import de.hatoka.eos.forecast.http.ForecastHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ForecastImportPipelineTest
+{
+    private static final int MAX_REQUESTS_PER_HOST = 2;
+    private static final int MAX_IN_FLIGHT = 3;
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicInteger maxActiveTasks = new AtomicInteger();
+    private final Map<String, Integer> written = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ForecastHttpClient httpClient;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        // stub of a forecast service, responds with the number of the path: /station/<number>
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/station/", exchange -> {
+            maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+            try
+            {
+                Thread.sleep(20);
+                String number = exchange.getRequestURI().getPath().substring("/station/".length());
+                byte[] body = number.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(number.equals("13") ? 404 : 200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody())
+                {
+                    outputStream.write(body);
+                }
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                activeRequests.decrementAndGet();
+            }
+        });
+        server.start();
+        httpClient = new ForecastHttpClient(MAX_REQUESTS_PER_HOST, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private ImportTask<Integer, String> createTask(int number)
+    {
+        URI uri = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/station/" + number);
+        return new ImportTask<>()
+        {
+            @Override
+            public String getName()
+            {
+                return "station " + number;
+            }
+
+            @Override
+            public URI getUri()
+            {
+                return uri;
+            }
+
+            @Override
+            public String getUserAgent()
+            {
+                return "EOS-Test";
+            }
+
+            @Override
+            public Integer parse(InputStream body) throws IOException
+            {
+                maxActiveTasks.accumulateAndGet(activeTasks.incrementAndGet(), Math::max);
+                return Integer.valueOf(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String convert(Integer response)
+            {
+                return "station " + response;
+            }
+
+            @Override
+            public WriteStatistics write(String data)
+            {
+                written.put(data, number);
+                activeTasks.decrementAndGet();
+                return new WriteStatistics(1, 0, 0);
+            }
+        };
+    }
+
+    @Test
+    public void testImportsAllTasksWithLimitPerHost() throws InterruptedException
+    {
+        List<ImportTask<?, ?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            tasks.add(createTask(i));
+        }
+        List<ForecastImportPipeline.Result> results = new ForecastImportPipeline(httpClient, 2, MAX_IN_FLIGHT).run(tasks);
+
+        assertEquals(20, results.size());
+        assertEquals("station 0", results.getFirst().name());
+        // failing download doesn't stop other tasks
+        assertFalse(results.get(13).isSuccessful());
+        assertEquals(19, results.stream().filter(ForecastImportPipeline.Result::isSuccessful).count());
+        assertEquals(19, written.size());
+        assertEquals(7, written.get("station 7"));
+        assertEquals(new WriteStatistics(19, 0, 0),
+                        results.stream().map(ForecastImportPipeline.Result::statistics).reduce(WriteStatistics.NONE, WriteStatistics::add));
+        assertTrue(maxActiveRequests.get() <= MAX_REQUESTS_PER_HOST, "parallel requests " + maxActiveRequests.get());
+        assertTrue(maxActiveTasks.get() <= MAX_IN_FLIGHT, "tasks in flight " + maxActiveTasks.get());
+    }
+}
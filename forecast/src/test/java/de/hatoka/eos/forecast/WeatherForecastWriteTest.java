@@ -0,0 +1,44 @@
+package de.hatoka.eos.forecast;
+
+import de.hatoka.eos.forecast.openmeteo.OpenMeteoWeatherForecastImporter;
+import de.hatoka.eos.persistence.capi.weather.WeatherDataSource;
+import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
+import de.hatoka.eos.persistence.capi.weather.WeatherStation;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class WeatherForecastWriteTest
+{
+    private static final ZonedDateTime START = ZonedDateTime.of(2020, 6, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+    private static final long HOUR = 3_600_000L;
+
+    @Inject
+    OpenMeteoWeatherForecastImporter importer;
+    @Inject
+    WeatherForcastDAO weatherDao;
+
+    @Test
+    void testWritesOnlyNewOrChangedForecasts()
+    {
+        long start = START.toInstant().toEpochMilli();
+        long[] times = { start, start + HOUR, start + 2 * HOUR };
+        SunshineMinutes sunshine = new SunshineMinutes(times, new int[] { 0, 30, 60 });
+
+        assertEquals(new WriteStatistics(3, 0, 0), importer.storeSunshineData(sunshine, WeatherStation.LEIPZIG_STADTWERKE));
+        assertEquals(new WriteStatistics(0, 0, 3), importer.storeSunshineData(sunshine, WeatherStation.LEIPZIG_STADTWERKE));
+
+        sunshine = new SunshineMinutes(new long[] { start, start + HOUR, start + 2 * HOUR, start + 3 * HOUR }, new int[] { 0, 45, 60, 15 });
+        assertEquals(new WriteStatistics(1, 1, 2), importer.storeSunshineData(sunshine, WeatherStation.LEIPZIG_STADTWERKE));
+
+        WeatherForecastKey key = WeatherForecastKey.valueOf(WeatherStation.LEIPZIG_STADTWERKE, START.plusHours(1), WeatherDataSource.OPENMETEO);
+        assertEquals(0.75, weatherDao.get(key).getSunProbability().value(), 0.0001);
+    }
+}
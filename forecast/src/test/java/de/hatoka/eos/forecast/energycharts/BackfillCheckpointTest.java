@@ -0,0 +1,32 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillCheckpointTest
+{
+    @Test
+    void testResume(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("checkpoints").resolve("backfill.checkpoint");
+        BackfillCheckpoint checkpoint = new BackfillCheckpoint(file);
+        assertFalse(checkpoint.isCompleted("2025-W32"));
+
+        checkpoint.markCompleted("2025-W32");
+        checkpoint.markCompleted("2025-W33");
+        checkpoint.markCompleted("2025-W32");
+
+        assertEquals(List.of("2025-W32", "2025-W33"), Files.readAllLines(file));
+        BackfillCheckpoint resumed = new BackfillCheckpoint(file);
+        assertTrue(resumed.isCompleted("2025-W32"));
+        assertTrue(resumed.isCompleted("2025-W33"));
+        assertFalse(resumed.isCompleted("2025-W34"));
+    }
+}
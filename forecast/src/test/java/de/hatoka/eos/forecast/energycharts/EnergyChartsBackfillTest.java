@@ -0,0 +1,134 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import com.sun.net.httpserver.HttpServer;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import de.hatoka.eos.units.capi.Money;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@QuarkusTest
+class EnergyChartsBackfillTest
+{
+    // weeks 2020-W10 and 2020-W11
+    private static final LocalDate FROM = LocalDate.of(2020, 3, 4);
+    private static final LocalDate TO = LocalDate.of(2020, 3, 10);
+
+    @Inject
+    EnergyChartsBackfill backfill;
+    @Inject
+    EnergyChartsImporter importer;
+    @Inject
+    EnergyStockDao stockDao;
+    @ConfigProperty(name = "eos.forecast.backfill.checkpoint-file")
+    Path checkpointFile;
+
+    @BeforeEach
+    void removeCheckpoint() throws IOException
+    {
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    private void storeWeek(LocalDate monday)
+    {
+        Map<EnergyStockKey, EnergyStockPO> prices = new HashMap<>();
+        ZonedDateTime end = monday.plusWeeks(1).atStartOfDay(ZoneOffset.UTC);
+        for (ZonedDateTime time = monday.atStartOfDay(ZoneOffset.UTC); time.isBefore(end); time = time.plusMinutes(15))
+        {
+            EnergyStockPO po = new EnergyStockPO();
+            po.setDayAheadPrice(new Money(BigDecimal.TEN, "EUR"));
+            prices.put(EnergyStockKey.valueOf(time), po);
+        }
+        stockDao.updateAll(prices);
+    }
+
+    @Test
+    void testSkipsCompleteAndCheckpointedWeeks() throws Exception
+    {
+        // Given - both weeks are present in storage
+        storeWeek(LocalDate.of(2020, 3, 2));
+        storeWeek(LocalDate.of(2020, 3, 9));
+
+        // When
+        EnergyChartsBackfill.Result result = backfill.backfill(FROM, TO);
+
+        // Then - nothing to download, weeks are recorded
+        assertEquals(new EnergyChartsBackfill.Result(2, 2, 0, 0), result);
+        assertEquals(List.of("2020-W10", "2020-W11"), Files.readAllLines(checkpointFile));
+
+        // When - resumed run
+        result = backfill.backfill(FROM, TO);
+
+        // Then
+        assertEquals(new EnergyChartsBackfill.Result(2, 2, 0, 0), result);
+        assertEquals(2, Files.readAllLines(checkpointFile).size());
+    }
+
+    @Test
+    void testIncompleteDownloadIsNotRecorded() throws Exception
+    {
+        // Given - stub of energy charts, the prices of the second half of the week are undefined
+        StringBuilder prices = new StringBuilder();
+        for (int i = 0; i < 7 * 96; i++)
+        {
+            prices.append(i == 0 ? "" : ",").append(i < 4 * 96 ? "10.0" : "null");
+        }
+        byte[] body = """
+                        [{"currency": "EUR", "data": [%s], "name": [{"en": "Day Ahead Auction (DE-LU)"}]}]
+                        """.formatted(prices).getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody())
+            {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        String baseUrl = importer.baseUrl;
+        importer.baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+        try
+        {
+            // When - week 2018-W10
+            LocalDate monday = LocalDate.of(2018, 3, 5);
+            EnergyChartsBackfill.Result result = backfill.backfill(monday, monday);
+
+            // Then - imported, but not recorded as completed
+            assertEquals(new EnergyChartsBackfill.Result(1, 0, 1, 0), result);
+            assertFalse(Files.exists(checkpointFile) && Files.readAllLines(checkpointFile).contains("2018-W10"));
+
+            // When - resumed run
+            result = backfill.backfill(monday, monday);
+
+            // Then - imported again
+            assertEquals(new EnergyChartsBackfill.Result(1, 0, 1, 0), result);
+        }
+        finally
+        {
+            importer.baseUrl = baseUrl;
+            server.stop(0);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package de.hatoka.eos.forecast.energycharts;
 
+import de.hatoka.eos.forecast.ImportTask;
+import de.hatoka.eos.forecast.WriteStatistics;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import de.hatoka.eos.units.capi.Money;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @QuarkusTest
@@ -31,4 +37,21 @@ public class EnergyChartsImporterTest
         assertNotNull(retrieved);
         assertNotNull(retrieved.getDayAheadPrice());
     }
+
+    @Test
+    void testWritesOnlyNewOrChangedPrices()
+    {
+        // Given - week 2019-W10, third quarter hour isn't defined yet
+        ZonedDateTime startDate = ZonedDateTime.of(2019, 3, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+        long start = startDate.toInstant().toEpochMilli();
+        ImportTask<?, EnergyChartsImporter.DayAheadPrices> task = importer.createImportTask(startDate);
+        double[] prices = { 10.5, 20.25, Double.NaN };
+
+        // When - Then
+        assertEquals(new WriteStatistics(2, 0, 0), task.write(new EnergyChartsImporter.DayAheadPrices(start, "EUR", prices)));
+        assertEquals(new WriteStatistics(0, 0, 2), task.write(new EnergyChartsImporter.DayAheadPrices(start, "EUR", prices)));
+        prices = new double[] { 10.5, 21.0, 30.0 };
+        assertEquals(new WriteStatistics(1, 1, 1), task.write(new EnergyChartsImporter.DayAheadPrices(start, "EUR", prices)));
+        assertEquals(new Money(BigDecimal.valueOf(21.0), "EUR"), dao.get(new EnergyStockKey(start + 15 * 60_000)).getDayAheadPrice());
+    }
 }
@@ -0,0 +1,63 @@
+package de.hatoka.eos.forecast.energycharts;
+
+import de.hatoka.eos.forecast.energycharts.EnergyChartsParser.DayAheadAuction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnergyChartsParserTest
+{
+    @Test
+    void testParseEnergyChartsResponse() throws Exception
+    {
+        // Load the test JSON file
+        try (InputStream inputStream = getClass().getResourceAsStream("/energycharts_2025_11_16.json"))
+        {
+            assertNotNull(inputStream, "Test resource file not found");
+
+            DayAheadAuction dayAheadAuction = EnergyChartsParser.parseDayAheadAuction(inputStream);
+            assertNotNull(dayAheadAuction, "Day Ahead Auction (DE-LU) section not found");
+
+            // Verify the data
+            assertEquals("EUR", dayAheadAuction.currency());
+            double[] data = dayAheadAuction.prices();
+            assertTrue(data.length > 0);
+
+            // Check first few data points match expected values
+            assertEquals(92.38, data[0], 0.001);
+            assertEquals(89.98, data[1], 0.001);
+            assertEquals(87.4, data[2], 0.001);
+        }
+    }
+
+    @Test
+    void testNameAfterDataAndUndefinedPrices() throws Exception
+    {
+        String json = """
+                        [
+                          {"data": [1.0, 2.0], "name": {"en": "Load"}},
+                          {"currency": "EUR", "data": [3.5, null, -1], "name": [{"de": "Day Ahead Auktion (DE-LU)", "en": "Day Ahead Auction (DE-LU)"}]}
+                        ]
+                        """;
+        DayAheadAuction dayAheadAuction = EnergyChartsParser.parseDayAheadAuction(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("EUR", dayAheadAuction.currency());
+        assertEquals(3, dayAheadAuction.prices().length);
+        assertEquals(3.5, dayAheadAuction.prices()[0]);
+        assertTrue(Double.isNaN(dayAheadAuction.prices()[1]));
+        assertEquals(-1.0, dayAheadAuction.prices()[2]);
+    }
+
+    @Test
+    void testMissingDayAheadAuction()
+    {
+        String json = "[{\"name\": {\"en\": \"Load\"}, \"data\": [1.0]}]";
+        assertThrows(IOException.class,
+                        () -> EnergyChartsParser.parseDayAheadAuction(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -2,9 +2,11 @@ package de.hatoka.eos.forecast.energycharts;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -12,8 +14,10 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -128,14 +132,33 @@ class StockEnergyPriceConverterTest
     void testExportCSVContent() throws IOException
     {
         String svgContent = loadIncompleteWeek();
-        Map<Instant, Double> prices = converter.extractStockPrices(svgContent);
-        Map<String, List<String>> pricesPerDay = converter.consolidatePricesPerDay(prices, ZONE_ID);
+        StockEnergyPriceConverter.ChartPrices prices = converter.extractChartPrices(svgContent);
+        SortedMap<LocalDate, double[]> pricesPerDay = converter.consolidatePricesPerDay(List.of(prices), ZONE_ID);
         assertEquals(6, pricesPerDay.size());
-        List<String> pricesOfFirstDay = pricesPerDay.get(converter.formatDate(FIRST_DATE_WEEK33.atZone(ZONE_ID)));
+        double[] pricesOfFirstDay = pricesPerDay.get(FIRST_DATE_WEEK33.atZone(ZONE_ID).toLocalDate());
         assertNotNull(pricesOfFirstDay);
-        assertEquals(24, pricesOfFirstDay.size());
-        String content = converter.exportToCSV(pricesPerDay);
-        assertTrue(content.contains("2025/08/11,99.82,"), content);
+        assertEquals(24, Arrays.stream(pricesOfFirstDay).filter(p -> !Double.isNaN(p)).count());
+        StringWriter content = new StringWriter();
+        converter.writeCSV(pricesPerDay, content);
+        assertTrue(content.toString().contains("2025/08/11,99.82,"), content.toString());
+    }
+
+    @Test
+    void testExportDirectory(@TempDir Path directory) throws IOException
+    {
+        String[] resources = Stream.of("stockprices_DE_LU_week_32_2025.svg", "stockprices_DE_LU_week_33_2025.svg")
+                                   .map(this::loadResource).toArray(String[]::new);
+        Files.writeString(directory.resolve("week_32.svg"), resources[0]);
+        Files.writeString(directory.resolve("week_33.svg"), resources[1]);
+        Files.writeString(directory.resolve("readme.txt"), "no chart");
+        Path csvFile = directory.resolve("prices.csv");
+
+        converter.exportToCSV(ZONE_ID, directory, csvFile);
+
+        String content = Files.readString(csvFile);
+        assertEquals(converter.exportToCSV(ZONE_ID, resources), content.trim());
+        assertEquals(13, content.lines().count(), "7 days of week 32, 6 days of week 33");
+        assertTrue(content.startsWith("2025/08/04,81.05,"), content);
     }
 
     @Test
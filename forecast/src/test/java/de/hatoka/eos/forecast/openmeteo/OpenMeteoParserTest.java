@@ -0,0 +1,47 @@
+package de.hatoka.eos.forecast.openmeteo;
+
+import de.hatoka.eos.forecast.openmeteo.OpenMeteoParser.SunshineSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenMeteoParserTest
+{
+    private static SunshineSeries parse(String json) throws IOException
+    {
+        return OpenMeteoParser.parseSunshineDuration(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testParseSunshineDuration() throws IOException
+    {
+        SunshineSeries series = parse("""
+                        {
+                          "latitude": 51.02, "longitude": 11.52, "timezone": "GMT",
+                          "hourly_units": {"time": "unixtime", "sunshine_duration": "s"},
+                          "hourly": {
+                            "time": [1762300800, 1762304400, 1762308000],
+                            "sunshine_duration": [0.00, 1800.5, null]
+                          }
+                        }
+                        """);
+
+        assertArrayEquals(new long[] { 1762300800, 1762304400, 1762308000 }, series.times());
+        assertEquals(3, series.sunshineDurations().length);
+        assertEquals(1800.5, series.sunshineDurations()[1]);
+        assertTrue(Double.isNaN(series.sunshineDurations()[2]));
+    }
+
+    @Test
+    void testMissingHourlyData() throws IOException
+    {
+        SunshineSeries series = parse("{\"latitude\": 51.02, \"error\": false}");
+
+        assertNull(series.times());
+        assertNull(series.sunshineDurations());
+    }
+}
@@ -3,24 +3,34 @@ package de.hatoka.eos.metrics.influx;
 import com.influxdb.client.DeleteApi;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
 import com.influxdb.client.domain.DeletePredicateRequest;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+import com.influxdb.client.write.events.BackpressureEvent;
+import com.influxdb.client.write.events.WriteErrorEvent;
 import com.influxdb.exceptions.NotFoundException;
 import de.hatoka.eos.persistence.influx.config.InfluxDBConfig;
 import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
 import de.hatoka.eos.simulation.capi.business.device.DeviceType;
 import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.Map;
 
+/**
+ * Exports the metrics of simulation steps to InfluxDB. Old metrics of the simulation are removed by one range delete at the begin of a run,
+ * the points are written in batches (gzip compressed) and flushed at the end of the run. The buffer of points is bounded, if the InfluxDB can't
+ * keep up, the oldest points are dropped and a warning is logged. Pending points are written on shutdown with the shared client.
+ */
 @Singleton
 public class InfluxDBMetricsExporter implements SimulationMetricsExporter
 {
@@ -33,27 +43,39 @@ public class InfluxDBMetricsExporter implements SimulationMetricsExporter
     private final DeleteApi deleteApi;
     private final String influxDbOrg;
 
+    /**
+     * @param config influx db configuration
+     * @param batchSize number of points written by one request
+     * @param flushInterval time in milliseconds after that pending points are written
+     * @param bufferLimit maximal number of points waiting to be written
+     */
     @Inject
-    InfluxDBMetricsExporter(InfluxDBConfig config)
+    InfluxDBMetricsExporter(InfluxDBConfig config, @ConfigProperty(name = "eos.metrics.influxdb.batch-size", defaultValue = "5000") int batchSize,
+                    @ConfigProperty(name = "eos.metrics.influxdb.flush-interval", defaultValue = "1000") int flushInterval,
+                    @ConfigProperty(name = "eos.metrics.influxdb.buffer-limit", defaultValue = "100000") int bufferLimit)
     {
-        InfluxDBClient client = config.getClient(BUCKET);
-        writeApi = client.makeWriteApi();
+        InfluxDBClient client = config.getClient(BUCKET).enableGzip();
+        writeApi = client.makeWriteApi(WriteOptions.builder().batchSize(batchSize).flushInterval(flushInterval).bufferLimit(bufferLimit).build());
+        writeApi.listenEvents(BackpressureEvent.class, event -> LOGGER.warn("Metrics buffer is full, points are dropped: {}", event.getReason()));
+        writeApi.listenEvents(WriteErrorEvent.class, event -> LOGGER.error("Failed to write metrics to InfluxDB", event.getThrowable()));
         deleteApi = client.getDeleteApi();
         influxDbOrg = config.getOrg();
     }
+
     /**
-     * Delete data from former simulation result
-     * @param result former/current simulation result (with same simulation-id, from and to date)
+     * Delete data from former simulation run with same simulation-id in the horizon of the request.
+     * @param request current simulation request
      */
-    private void deleteOldData(SimulationResult result)
+    @Override
+    public void beginSimulation(SimulationRequest request)
     {
         // https://docs.influxdata.com/influxdb/v2/write-data/delete-data/
         // '_measurement="example-measurement" AND exampleTag="exampleTagValue"'
         String condition = String.format("_measurement=\"%s\" AND %s=\"%s\"", quotePredicate(MEASUREMENT), TAG_SIMULATION,
-                        quotePredicate(result.request().simulationId()));
-        DeletePredicateRequest predicate = new DeletePredicateRequest()//.predicate(condition)
-                                                                       .start(result.step().startDate().toOffsetDateTime())
-                                                                       .stop(result.step().endDate().toOffsetDateTime());
+                        quotePredicate(request.simulationId()));
+        DeletePredicateRequest predicate = new DeletePredicateRequest().predicate(condition)
+                                                                       .start(request.startDate().toOffsetDateTime())
+                                                                       .stop(request.endDate().toOffsetDateTime());
         try
         {
             deleteApi.delete(predicate, BUCKET, influxDbOrg);
@@ -62,6 +84,27 @@ public class InfluxDBMetricsExporter implements SimulationMetricsExporter
         {
             // ignore if old data or bucket not found
         }
+        catch(Exception e)
+        {
+            LOGGER.error("Failed to delete old metrics from InfluxDB. simulation: {}", request.simulationId(), e);
+        }
+    }
+
+    /**
+     * Writes pending points of the simulation run.
+     * @param request current simulation request
+     */
+    @Override
+    public void endSimulation(SimulationRequest request)
+    {
+        try
+        {
+            writeApi.flush();
+        }
+        catch(Exception e)
+        {
+            LOGGER.error("Failed to flush metrics to InfluxDB. simulation: {}", request.simulationId(), e);
+        }
     }
 
     /**
@@ -87,7 +130,6 @@ public class InfluxDBMetricsExporter implements SimulationMetricsExporter
     @Override
     public void exportMetrics(SimulationResult result)
     {
-        deleteOldData(result);
         try
         {
             Instant timestamp = result.step().startDate().toInstant();
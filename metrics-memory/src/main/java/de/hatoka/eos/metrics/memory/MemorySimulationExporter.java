@@ -1,17 +1,61 @@
 package de.hatoka.eos.metrics.memory;
 
 import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exports the metrics of simulations into a {@link MetricsSeries} per simulation id. Metrics of a former run with the same simulation id are
+ * replaced at the begin of a run.
+ */
 @Singleton
 public class MemorySimulationExporter implements SimulationMetricsExporter
 {
+    private final Map<String, MetricsSeries> series = new ConcurrentHashMap<>();
+    private final int retention;
+
+    /**
+     * @param retention maximal number of steps kept per simulation, 0 keeps all steps
+     */
+    @Inject
+    public MemorySimulationExporter(@ConfigProperty(name = "eos.metrics.memory.retention", defaultValue = "0") int retention)
+    {
+        this.retention = retention;
+    }
+
+    @Override
+    public void beginSimulation(SimulationRequest request)
+    {
+        series.put(request.simulationId(), new MetricsSeries(retention));
+    }
 
     @Override
     public void exportMetrics(SimulationResult result)
     {
+        series.computeIfAbsent(result.request().simulationId(), id -> new MetricsSeries(retention))
+              .append(result.step().startDate().toInstant(), result.system(), result.endState());
+    }
 
+    /**
+     * @param simulationId simulation identifier
+     * @return metrics of the simulation, null if no metrics are exported
+     */
+    public MetricsSeries getSeries(String simulationId)
+    {
+        return series.get(simulationId);
     }
-}
 
+    /**
+     * Clear all data (useful for testing)
+     */
+    public void clear()
+    {
+        series.clear();
+    }
+}
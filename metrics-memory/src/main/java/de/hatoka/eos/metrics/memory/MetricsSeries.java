@@ -0,0 +1,294 @@
+package de.hatoka.eos.metrics.memory;
+
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MetricsSeries stores the metrics of one simulation in columns of primitive arrays, one row per exported step. Rows must be appended in order
+ * of time. With a retention the series is a ring buffer, that keeps the latest rows only. Values of a device are NaN for rows before the device
+ * was exported the first time.
+ * <p>
+ * Range queries use the start time of the rows: from inclusive, to exclusive.
+ */
+public class MetricsSeries
+{
+    /**
+     * Energy flow and revenue columns of a series. Energies are in kWh, revenues in the currency unit.
+     */
+    public enum Field
+    {
+        PRODUCED, CONSUMED, CHARGED, DISCHARGED, IMPORTED, EXPORTED, IMPORT_REVENUE, EXPORT_REVENUE
+    }
+
+    public enum Aggregation
+    {
+        SUM, MIN, MAX, AVERAGE
+    }
+
+    private static final int INITIAL_CAPACITY = 96;
+    private static final Field[] FIELDS = Field.values();
+
+    private final int retention;
+    private long[] epochSeconds;
+    private double[][] columns;
+    private final Map<DeviceRef, double[]> stateOfCharge = new LinkedHashMap<>();
+    /**
+     * physical index of the oldest row
+     */
+    private int head;
+    private int size;
+
+    /**
+     * @param retention maximal number of rows, 0 for unbounded series
+     */
+    public MetricsSeries(int retention)
+    {
+        if (retention < 0)
+        {
+            throw new IllegalArgumentException("Retention must not be negative: " + retention);
+        }
+        this.retention = retention;
+        int capacity = retention > 0 ? retention : INITIAL_CAPACITY;
+        this.epochSeconds = new long[capacity];
+        this.columns = new double[FIELDS.length][capacity];
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param time start of the step
+     * @param system energy flow of the step
+     * @param deviceStates states of the devices at the end of the step
+     */
+    public synchronized void append(Instant time, EnergySystem system, Map<DeviceRef, DeviceState> deviceStates)
+    {
+        long epochSecond = time.getEpochSecond();
+        if (size > 0 && epochSecond < epochSeconds[physical(size - 1)])
+        {
+            throw new IllegalArgumentException("Metrics must be appended in order of time: " + time);
+        }
+        int index = nextRow();
+        epochSeconds[index] = epochSecond;
+        columns[Field.PRODUCED.ordinal()][index] = system.produced().amount();
+        columns[Field.CONSUMED.ordinal()][index] = system.consumed().amount();
+        columns[Field.CHARGED.ordinal()][index] = system.charged().amount();
+        columns[Field.DISCHARGED.ordinal()][index] = system.discharged().amount();
+        columns[Field.IMPORTED.ordinal()][index] = system.imported().amount();
+        columns[Field.EXPORTED.ordinal()][index] = system.exported().amount();
+        columns[Field.IMPORT_REVENUE.ordinal()][index] = system.importRevenue().amount().doubleValue();
+        columns[Field.EXPORT_REVENUE.ordinal()][index] = system.exportRevenue().amount().doubleValue();
+        for (double[] column : stateOfCharge.values())
+        {
+            column[index] = Double.NaN;
+        }
+        deviceStates.forEach((ref, state) -> {
+            if (!state.maxEnergy().isZero())
+            {
+                stateOfCharge.computeIfAbsent(ref, r -> createDeviceColumn())[index] = state.percentage().toFraction();
+            }
+        });
+    }
+
+    /**
+     * @return physical index of the appended row, size is updated
+     */
+    private int nextRow()
+    {
+        if (size == epochSeconds.length)
+        {
+            if (retention > 0)
+            {
+                // overwrite oldest row
+                int index = head;
+                head = (head + 1) % retention;
+                return index;
+            }
+            grow();
+        }
+        return physical(size++);
+    }
+
+    private void grow()
+    {
+        int capacity = epochSeconds.length * 2;
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        stateOfCharge.replaceAll((ref, column) -> Arrays.copyOf(column, capacity));
+    }
+
+    private double[] createDeviceColumn()
+    {
+        double[] column = new double[epochSeconds.length];
+        Arrays.fill(column, Double.NaN);
+        return column;
+    }
+
+    private int physical(int row)
+    {
+        int index = head + row;
+        return index < epochSeconds.length ? index : index - epochSeconds.length;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return devices with state of charge
+     */
+    public synchronized Set<DeviceRef> getDevices()
+    {
+        return Set.copyOf(stateOfCharge.keySet());
+    }
+
+    /**
+     * @param from start of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return start times of the rows in range
+     */
+    public synchronized Instant[] getTimes(Instant from, Instant to)
+    {
+        int first = lowerBound(from.getEpochSecond());
+        int last = lowerBound(to.getEpochSecond());
+        Instant[] result = new Instant[Math.max(0, last - first)];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = Instant.ofEpochSecond(epochSeconds[physical(first + i)]);
+        }
+        return result;
+    }
+
+    /**
+     * @param field column
+     * @param from start of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return values of the rows in range
+     */
+    public synchronized double[] getValues(Field field, Instant from, Instant to)
+    {
+        return copyRange(columns[field.ordinal()], from, to);
+    }
+
+    /**
+     * @param device device with storage
+     * @param from start of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return state of charge (fraction) of the rows in range, empty for unknown devices
+     */
+    public synchronized double[] getStateOfCharge(DeviceRef device, Instant from, Instant to)
+    {
+        double[] column = stateOfCharge.get(device);
+        return column == null ? new double[0] : copyRange(column, from, to);
+    }
+
+    /**
+     * @param field column
+     * @param aggregation aggregation of values
+     * @param from start of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return aggregated value of the rows in range, NaN for empty range (except 0 for sum)
+     */
+    public synchronized double aggregate(Field field, Aggregation aggregation, Instant from, Instant to)
+    {
+        return aggregate(columns[field.ordinal()], aggregation, from, to);
+    }
+
+    /**
+     * @param device device with storage
+     * @param aggregation aggregation of values
+     * @param from start of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return aggregated state of charge (fraction) of the rows in range, rows without value are skipped
+     */
+    public synchronized double aggregateStateOfCharge(DeviceRef device, Aggregation aggregation, Instant from, Instant to)
+    {
+        double[] column = stateOfCharge.get(device);
+        return column == null ? aggregation == Aggregation.SUM ? 0.0 : Double.NaN : aggregate(column, aggregation, from, to);
+    }
+
+    private double[] copyRange(double[] column, Instant from, Instant to)
+    {
+        int first = lowerBound(from.getEpochSecond());
+        int last = lowerBound(to.getEpochSecond());
+        double[] result = new double[Math.max(0, last - first)];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = column[physical(first + i)];
+        }
+        return result;
+    }
+
+    private double aggregate(double[] column, Aggregation aggregation, Instant from, Instant to)
+    {
+        int first = lowerBound(from.getEpochSecond());
+        int last = lowerBound(to.getEpochSecond());
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        for (int row = first; row < last; row++)
+        {
+            double value = column[physical(row)];
+            if (Double.isNaN(value))
+            {
+                continue;
+            }
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            count++;
+        }
+        if (aggregation == Aggregation.SUM)
+        {
+            return sum;
+        }
+        if (count == 0)
+        {
+            return Double.NaN;
+        }
+        return switch(aggregation)
+        {
+            case MIN -> min;
+            case MAX -> max;
+            case AVERAGE -> sum / count;
+            case SUM -> sum;
+        };
+    }
+
+    /**
+     * @param epochSecond time
+     * @return first row with start time not before given time
+     */
+    private int lowerBound(long epochSecond)
+    {
+        int low = 0;
+        int high = size;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (epochSeconds[physical(mid)] < epochSecond)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,97 @@
+package de.hatoka.eos.metrics.memory;
+
+import de.hatoka.eos.metrics.memory.MetricsSeries.Aggregation;
+import de.hatoka.eos.metrics.memory.MetricsSeries.Field;
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.device.DeviceType;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.Money;
+import de.hatoka.eos.units.capi.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsSeriesTest
+{
+    private static final Instant START = Instant.parse("2025-06-21T00:00:00Z");
+    private static final int STEP_SECONDS = 900;
+    private static final DeviceRef BATTERY = new DeviceRef(DeviceType.BATTERY, "battery");
+    private static final DeviceRef CAR = new DeviceRef(DeviceType.ELECTRIC_CAR, "car");
+
+    private static Instant time(int step)
+    {
+        return START.plusSeconds((long)step * STEP_SECONDS);
+    }
+
+    private static void append(MetricsSeries series, int step)
+    {
+        EnergySystem system = EnergySystem.INIT.produce(Energy.ofKwh(step)).importEnergy(Energy.ofKwh(0.5), Money.ofEur(0.15));
+        series.append(time(step), system, Map.of(BATTERY, new DeviceState(Energy.ofKwh(10.0), new Percentage(step / 1000.0))));
+    }
+
+    @Test
+    void testRangeAndAggregates()
+    {
+        MetricsSeries series = new MetricsSeries(0);
+        // more rows than the initial capacity
+        for (int step = 0; step < 200; step++)
+        {
+            append(series, step);
+        }
+        assertEquals(200, series.size());
+        assertArrayEquals(new double[] { 10.0, 11.0, 12.0 }, series.getValues(Field.PRODUCED, time(10), time(13)));
+        assertArrayEquals(new Instant[] { time(10), time(11), time(12) }, series.getTimes(time(10), time(13)));
+        assertArrayEquals(new double[] { -0.15, -0.15 }, series.getValues(Field.IMPORT_REVENUE, time(0), time(2)));
+        assertEquals(33.0, series.aggregate(Field.PRODUCED, Aggregation.SUM, time(10), time(13)));
+        assertEquals(10.0, series.aggregate(Field.PRODUCED, Aggregation.MIN, time(10), time(13)));
+        assertEquals(12.0, series.aggregate(Field.PRODUCED, Aggregation.MAX, time(10), time(13)));
+        assertEquals(11.0, series.aggregate(Field.PRODUCED, Aggregation.AVERAGE, time(10), time(13)));
+        assertEquals(0.199, series.aggregateStateOfCharge(BATTERY, Aggregation.MAX, START, time(1000)));
+
+        // empty range
+        assertEquals(0, series.getValues(Field.PRODUCED, time(300), time(400)).length);
+        assertEquals(0.0, series.aggregate(Field.PRODUCED, Aggregation.SUM, time(300), time(400)));
+        assertTrue(Double.isNaN(series.aggregate(Field.PRODUCED, Aggregation.AVERAGE, time(300), time(400))));
+    }
+
+    @Test
+    void testRetention()
+    {
+        MetricsSeries series = new MetricsSeries(4);
+        for (int step = 0; step < 10; step++)
+        {
+            append(series, step);
+        }
+        assertEquals(4, series.size());
+        assertArrayEquals(new double[] { 6.0, 7.0, 8.0, 9.0 }, series.getValues(Field.PRODUCED, START, time(10)));
+        assertArrayEquals(new double[] { 7.0, 8.0 }, series.getValues(Field.PRODUCED, time(7), time(9)));
+        assertArrayEquals(new double[] { 0.006, 0.007, 0.008, 0.009 }, series.getStateOfCharge(BATTERY, START, time(10)));
+    }
+
+    @Test
+    void testDeviceAddedLater()
+    {
+        MetricsSeries series = new MetricsSeries(0);
+        append(series, 0);
+        series.append(time(1), EnergySystem.INIT, Map.of(CAR, new DeviceState(Energy.ofKwh(50.0), new Percentage(0.5))));
+        assertArrayEquals(new double[] { Double.NaN, 0.5 }, series.getStateOfCharge(CAR, START, time(2)));
+        assertArrayEquals(new double[] { 0.0, Double.NaN }, series.getStateOfCharge(BATTERY, START, time(2)));
+        assertEquals(0.5, series.aggregateStateOfCharge(CAR, Aggregation.AVERAGE, START, time(2)));
+    }
+
+    @Test
+    void testAppendOutOfOrder()
+    {
+        MetricsSeries series = new MetricsSeries(0);
+        append(series, 1);
+        assertThrows(IllegalArgumentException.class, () -> append(series, 0));
+    }
+}
@@ -6,11 +6,17 @@ import de.hatoka.eos.simulation.capi.business.config.SimulationTimeSettings;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 
-public record OptimizationRequest(ZonedDateTime startDate, ZonedDateTime endDate, Duration stepDuration)
+/**
+ * @param simulationId simulation id of the exported result, evaluations use ids derived of it
+ * @param startDate begin of optimized period
+ * @param endDate end of optimized period
+ * @param stepDuration duration of a simulation step
+ */
+public record OptimizationRequest(String simulationId, ZonedDateTime startDate, ZonedDateTime endDate, Duration stepDuration)
 {
     public static OptimizationRequest valueOf(SimulationConfig simulationConfig)
     {
         SimulationTimeSettings timeSettings = simulationConfig.getTimeSettings();
-        return new OptimizationRequest(timeSettings.getZonedStartTime(), timeSettings.getZonedEndTime(), timeSettings.getStepDuration());
+        return new OptimizationRequest(simulationConfig.getId(), timeSettings.getZonedStartTime(), timeSettings.getZonedEndTime(), timeSettings.getStepDuration());
     }
 }
@@ -11,7 +11,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,14 +26,21 @@ public record CarCharge(int hours, long from, long to, long start) implements De
         return valueOf(from, to, from, hours);
     }
 
+    /**
+     * Replaces the cars in the given devices, other devices are kept.
+     */
     @Override
     public Map<DeviceRef, Device> apply(ZonedDateTime time, Map<DeviceRef, Device> devices)
     {
-        Map<DeviceRef, Device> result = new HashMap<>();
-        devices.forEach((r, d) -> {
-            result.put(r, apply(time, r, d));
-        });
-        return result;
+        for (Map.Entry<DeviceRef, Device> entry : devices.entrySet())
+        {
+            Device device = apply(time, entry.getKey(), entry.getValue());
+            if (device != entry.getValue())
+            {
+                devices.put(entry.getKey(), device);
+            }
+        }
+        return devices;
     }
     private static final ZoneId UTC = ZoneId.of("UTC");
 
@@ -60,6 +66,15 @@ public record CarCharge(int hours, long from, long to, long start) implements De
         return device;
     }
 
+    /**
+     * Before the start the charging limit of the car isn't changed.
+     */
+    @Override
+    public Instant getEffectiveFrom()
+    {
+        return Instant.ofEpochMilli(start);
+    }
+
     @Override
     public List<DeviceManipulator> evolute()
     {
@@ -8,11 +8,13 @@ import de.hatoka.eos.optimization.capi.tasks.CarCharge;
 import de.hatoka.eos.simulation.capi.business.config.InstallationConfig;
 import de.hatoka.eos.simulation.capi.business.device.DeviceFactory;
 import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.metrics.MetricsExport;
 import de.hatoka.eos.simulation.capi.business.simulation.DeviceManipulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationCheckpoints;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
 import de.hatoka.eos.simulation.capi.business.simulation.Simulator;
-import jakarta.annotation.Nonnull;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
@@ -21,56 +23,63 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 
 /**
- * Implementation of an Optimizer
+ * Implementation of an Optimizer. The search state is kept per invocation, so concurrent optimizations are independent. The candidates are
+ * evaluated generation by generation in parallel; results are processed in candidate order, so the result doesn't depend on the number of
+ * threads.
  */
 @Singleton
 public class OptimizerImpl implements Optimizer
 {
     private static Logger LOGGER = LoggerFactory.getLogger(OptimizerImpl.class);
+    private static final int MAX_EVALUATIONS = 1000;
+
     @Inject
     private DeviceFactory deviceFactory;
     @Inject
     private Simulator simulator;
 
-    private final List<List<DeviceManipulator>> toDos = new ArrayList<>();
-    private final Set<List<DeviceManipulator>> done = new HashSet<>();
-
     @Override
     public OptimizationResult optimize(InstallationConfig config, OptimizationGoals goals, OptimizationRequest optimizationRequest)
     {
-        // initial without manipulation
-        OptimizationResult result = evaluate(config, goals, optimizationRequest, 0, List.of());
+        // forecasts are sampled once for all candidates
+        Forecasts forecasts = Forecasts.STANDARD.materialize(
+                        TimeGrid.of(optimizationRequest.startDate(), optimizationRequest.endDate(), optimizationRequest.stepDuration()));
+        // evaluations aren't exported, only the final result
+        SimulationRequest request = new SimulationRequest(optimizationRequest.simulationId() + "-0", optimizationRequest.startDate(), optimizationRequest.endDate(),
+                        optimizationRequest.stepDuration(), deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), forecasts,
+                        MetricsExport.NONE);
+
+        // initial without manipulation, candidates resume from its checkpoints
+        SimulationCheckpoints checkpoints = simulator.simulateWithCheckpoints(request, request.stepDuration());
+        OptimizationResult result = new OptimizationResult(goals.getPenalty(checkpoints.result()), List.of());
         LOGGER.info("initial result {}", result);
 
-        toDos.add(List.of(CarCharge.init(optimizationRequest.startDate(), optimizationRequest.endDate(), 1)));
-        for (int counter = 1; counter < 1000 && !toDos.isEmpty(); counter++)
+        Search search = new Search();
+        search.add(List.of(CarCharge.init(optimizationRequest.startDate(), optimizationRequest.endDate(), 1)));
+        int generation = 0;
+        for (int counter = 1; counter < MAX_EVALUATIONS && search.hasToDos(); )
         {
-            List<DeviceManipulator> manipulators = toDos.removeFirst();
-            OptimizationResult optResult = evaluate(config, goals, optimizationRequest, counter, manipulators);
-            if (optResult.isBetterThan(result))
+            List<List<DeviceManipulator>> candidates = search.nextGeneration(MAX_EVALUATIONS - counter);
+            SimulationRequest generationRequest = request.withMetricsExport(optimizationRequest.simulationId() + "-" + ++generation, MetricsExport.NONE);
+            for (OptimizationResult optResult : evaluate(goals, generationRequest, candidates, checkpoints))
             {
-                result = optResult;
-                LOGGER.info("found better result {}", optResult);
-            }
-            else {
-                LOGGER.trace("found worse result {}", optResult);
+                if (optResult.isBetterThan(result))
+                {
+                    result = optResult;
+                    LOGGER.info("found better result {}", optResult);
+                }
+                else
+                {
+                    LOGGER.trace("found worse result {}", optResult);
+                }
+                evolute(optResult.manipulators()).forEach(search::add);
             }
-            done.add(manipulators);
-            toDos.addAll(evolute(manipulators).stream().filter(this::doesNotExist).toList());
+            counter += candidates.size();
         }
+        simulator.simulate(request.withMetricsExport(optimizationRequest.simulationId(), MetricsExport.FULL), result.manipulators());
         return result;
     }
 
-    private boolean doesNotExist(List<DeviceManipulator> manipulators)
-    {
-        return !contains(manipulators);
-    }
-
-    private boolean contains(List<DeviceManipulator> manipulators)
-    {
-        return done.contains(manipulators) || toDos.contains(manipulators);
-    }
-
     private List<List<DeviceManipulator>> evolute(List<DeviceManipulator> manipulators)
     {
         List<List<DeviceManipulator>> result = new ArrayList<>();
@@ -87,14 +96,51 @@ public class OptimizerImpl implements Optimizer
         return result;
     }
 
-    @Nonnull
-    private OptimizationResult evaluate(InstallationConfig config, OptimizationGoals goals, OptimizationRequest optimizationRequest, int counter,
-                    List<DeviceManipulator> manipulators)
+    private List<OptimizationResult> evaluate(OptimizationGoals goals, SimulationRequest request, List<List<DeviceManipulator>> candidates,
+                    SimulationCheckpoints checkpoints)
     {
-        SimulationRequest request = new SimulationRequest("optimization-" + counter, optimizationRequest.startDate(), optimizationRequest.endDate(),
-                        optimizationRequest.stepDuration(), deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(),
-                        Forecasts.STANDARD);
-        SimulationResult simResult = simulator.simulate(request, manipulators);
-        return new OptimizationResult(goals.getPenalty(simResult), manipulators);
+        List<SimulationResult> simResults = simulator.simulateAll(request, candidates, checkpoints);
+        List<OptimizationResult> result = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++)
+        {
+            result.add(new OptimizationResult(goals.getPenalty(simResults.get(i)), candidates.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Search state of one optimization: candidates to evaluate (in order of creation) and all known candidates.
+     */
+    private static class Search
+    {
+        private final Deque<List<DeviceManipulator>> toDos = new ArrayDeque<>();
+        private final Set<List<DeviceManipulator>> known = new HashSet<>();
+
+        private void add(List<DeviceManipulator> manipulators)
+        {
+            if (known.add(manipulators))
+            {
+                toDos.addLast(manipulators);
+            }
+        }
+
+        private boolean hasToDos()
+        {
+            return !toDos.isEmpty();
+        }
+
+        /**
+         * @param maxSize maximal number of candidates
+         * @return next candidates in order of creation
+         */
+        private List<List<DeviceManipulator>> nextGeneration(int maxSize)
+        {
+            List<List<DeviceManipulator>> result = new ArrayList<>(Math.min(maxSize, toDos.size()));
+            while(result.size() < maxSize && !toDos.isEmpty())
+            {
+                result.add(toDos.removeFirst());
+            }
+            return result;
+        }
     }
 }
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -46,4 +47,26 @@ public class OptimizerTest
         // starts at 80% goal is 90% makes 10% difference, 5 EUR
         assertEquals(Money.ofEur(17.16), result.getPenalty());
     }
+
+    /**
+     * Concurrent optimizations don't share search state.
+     */
+    @Test
+    public void testConcurrentOptimizations() throws Exception
+    {
+        InstallationConfig config = configurationLoader.loadInstallation("test-installation-for-optimization-car-only.yaml");
+        SimulationConfig simulationConfig = configurationLoader.loadSimulation("test-simulation.yaml");
+        OptimizationGoals goals = optimizationConfigurationLoader.loadGoals("goal-for-optimization.yaml");
+        OptimizationRequest request = OptimizationRequest.valueOf(simulationConfig);
+        // each optimization exports its result with its own simulation id
+        OptimizationRequest otherRequest = new OptimizationRequest(request.simulationId() + "-other", request.startDate(), request.endDate(),
+                        request.stepDuration());
+
+        CompletableFuture<OptimizationResult> first = CompletableFuture.supplyAsync(() -> optimizer.optimize(config, goals, request));
+        CompletableFuture<OptimizationResult> second = CompletableFuture.supplyAsync(() -> optimizer.optimize(config, goals, otherRequest));
+
+        assertEquals(Money.ofEur(17.16), first.get().getPenalty());
+        assertEquals(Money.ofEur(17.16), second.get().getPenalty());
+        assertEquals(first.get().manipulators(), second.get().manipulators());
+    }
 }
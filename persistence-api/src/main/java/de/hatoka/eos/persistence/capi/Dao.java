@@ -1,5 +1,10 @@
 package de.hatoka.eos.persistence.capi;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
 /**
  * Generic access methods for storage
  */
@@ -13,6 +18,35 @@ public interface Dao<KEY, VALUE>
      */
     void update(KEY key, VALUE data);
 
+    /**
+     * Creates or updates multiple data with as few requests as possible
+     *
+     * @param data values of data by key
+     */
+    default void updateAll(Map<KEY, VALUE> data)
+    {
+        data.forEach(this::update);
+    }
+
+    /**
+     * Creates or updates multiple data without waiting for the storage. Storages without remote access write immediately.
+     *
+     * @param data values of data by key
+     * @return completed after the data is written, completed exceptionally if the data can't be written
+     */
+    default CompletableFuture<Void> updateAllAsync(Map<KEY, VALUE> data)
+    {
+        try
+        {
+            updateAll(data);
+            return CompletableFuture.completedFuture(null);
+        }
+        catch(RuntimeException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Deletes data
      *
@@ -20,6 +54,15 @@ public interface Dao<KEY, VALUE>
      */
     void delete(KEY key);
 
+    /**
+     * Deletes all data in a time range with one request. Keys of the range differ in time only, all other parts of the key are taken from the
+     * first key.
+     *
+     * @param from first key of range (inclusive)
+     * @param to end of range (exclusive)
+     */
+    void deleteRange(KEY from, KEY to);
+
     /**
      * Retrieves data
      *
@@ -27,4 +70,48 @@ public interface Dao<KEY, VALUE>
      * @return values of data or null if data not exists
      */
     VALUE get(KEY key);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves all data in a time range with one request. Keys of the range differ in time only, all other parts of the key are taken from
+     * the first key.
+     *
+     * @param from first key of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return values of data in order of time
+     */
+    default Map<KEY, VALUE> getRange(KEY from, KEY to)
+    {
+        Map<KEY, VALUE> result = new LinkedHashMap<>();
+        forEachInRange(from, to, result::put);
+        return result;
+    }
+
+    /**
+     * Retrieves all data in a time range without waiting for the storage. Storages without remote access read immediately.
+     *
+     * @param from first key of range (inclusive)
+     * @param to end of range (exclusive)
+     * @return values of data in order of time
+     */
+    default CompletableFuture<Map<KEY, VALUE>> getRangeAsync(KEY from, KEY to)
+    {
+        try
+        {
+            return CompletableFuture.completedFuture(getRange(from, to));
+        }
+        catch(RuntimeException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Streams all data in a time range with one request, without collecting the data. Keys of the range differ in time only, all other parts
+     * of the key are taken from the first key.
+     *
+     * @param from first key of range (inclusive)
+     * @param to end of range (exclusive)
+     * @param consumer receives key and values of data in order of time
+     */
+    void forEachInRange(KEY from, KEY to, BiConsumer<KEY, VALUE> consumer);
+}
@@ -0,0 +1,16 @@
+plugins {
+    `java-library`
+}
+
+dependencies {
+    implementation(project(":units"))
+    implementation(project(":persistence-api"))
+
+    implementation("org.slf4j:slf4j-api")
+    implementation("jakarta.inject:jakarta.inject-api")
+    implementation("jakarta.annotation:jakarta.annotation-api")
+    implementation("org.eclipse.microprofile.config:microprofile-config-api")
+
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
@@ -0,0 +1,94 @@
+package de.hatoka.eos.persistence.file.config;
+
+import de.hatoka.eos.persistence.file.store.TimeSeriesFile;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuration for file storage. Opens the time series files of the data directory, each file is opened once and shared by all DAOs.
+ */
+@Singleton
+public class FileStorageConfig
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileStorageConfig.class);
+    private static final String EXTENSION = ".eos";
+
+    private final Path directory;
+    private final Instant origin;
+    private final Duration interval;
+    private final Map<String, TimeSeriesFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory directory of the time series files
+     * @param origin time of the first slot of new files
+     * @param interval time between two slots of new files
+     */
+    @Inject
+    public FileStorageConfig(@ConfigProperty(name = "eos.persistence.file.directory", defaultValue = "data") Path directory,
+                    @ConfigProperty(name = "eos.persistence.file.origin", defaultValue = "2020-01-01T00:00:00Z") Instant origin,
+                    @ConfigProperty(name = "eos.persistence.file.interval", defaultValue = "PT15M") Duration interval)
+    {
+        if (interval.toMillis() <= 0)
+        {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        this.directory = directory;
+        this.origin = origin;
+        this.interval = interval;
+    }
+
+    /**
+     * @param name name of the time series (without extension)
+     * @return opened time series file, created on first access
+     */
+    public TimeSeriesFile getFile(String name)
+    {
+        return files.computeIfAbsent(name, this::open);
+    }
+
+    private TimeSeriesFile open(String name)
+    {
+        try
+        {
+            Files.createDirectories(directory);
+            return TimeSeriesFile.open(directory.resolve(name + EXTENSION), origin, interval);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't open time series file " + name + " in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes all changes and closes the files.
+     */
+    @PreDestroy
+    public void close()
+    {
+        for (TimeSeriesFile file : files.values())
+        {
+            try
+            {
+                file.close();
+            }
+            catch(IOException e)
+            {
+                LOGGER.warn("Can't close time series file", e);
+            }
+        }
+        files.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package de.hatoka.eos.persistence.file.dao;
+
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import de.hatoka.eos.persistence.file.config.FileStorageConfig;
+import de.hatoka.eos.persistence.file.store.TimeSeriesFile;
+import de.hatoka.eos.units.capi.Money;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * File implementation for EnergyStockDao, the day ahead prices are stored in one {@link TimeSeriesFile}. The currency is stored in the attribute
+ * of the slot.
+ */
+@Singleton
+public class FileEnergyStockDao implements EnergyStockDao
+{
+    private static final String FILE = "energystock";
+    /**
+     * marks an existing value, even without currency
+     */
+    private static final long PRESENT = Long.MIN_VALUE;
+    private static final int MAX_CURRENCY_LENGTH = 7;
+
+    private final TimeSeriesFile file;
+
+    @Inject
+    public FileEnergyStockDao(FileStorageConfig config)
+    {
+        file = config.getFile(FILE);
+    }
+
+    @Override
+    public void update(EnergyStockKey key, EnergyStockPO data)
+    {
+        Money price = data.getDayAheadPrice();
+        file.put(key.time(), price.amount().doubleValue(), encodeCurrency(price.currencyMnemonic()));
+    }
+
+    @Override
+    public void delete(EnergyStockKey key)
+    {
+        file.remove(key.time(), key.time() + 1);
+    }
+
+    @Override
+    public void deleteRange(EnergyStockKey from, EnergyStockKey to)
+    {
+        file.remove(from.time(), to.time());
+    }
+
+    @Override
+    public EnergyStockPO get(EnergyStockKey key)
+    {
+        EnergyStockPO[] result = new EnergyStockPO[1];
+        file.get(key.time(), (time, value, attribute) -> result[0] = toPO(value, attribute));
+        return result[0];
+    }
+
+    @Override
+    public void forEachInRange(EnergyStockKey from, EnergyStockKey to, BiConsumer<EnergyStockKey, EnergyStockPO> consumer)
+    {
+        file.forEachInRange(from.time(), to.time(), (time, value, attribute) -> consumer.accept(new EnergyStockKey(time), toPO(value, attribute)));
+    }
+
+    private static EnergyStockPO toPO(double amount, long attribute)
+    {
+        EnergyStockPO result = new EnergyStockPO();
+        result.setDayAheadPrice(new Money(BigDecimal.valueOf(amount), decodeCurrency(attribute)));
+        return result;
+    }
+
+    /**
+     * @param currency currency mnemonic (ASCII, up to seven characters)
+     * @return attribute with the characters of the currency
+     */
+    static long encodeCurrency(String currency)
+    {
+        byte[] bytes = currency.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > MAX_CURRENCY_LENGTH)
+        {
+            throw new IllegalArgumentException("Currency can't be stored: " + currency);
+        }
+        long result = PRESENT;
+        for (int i = 0; i < bytes.length; i++)
+        {
+            result |= (long)(bytes[i] & 0x7F) << (8 * i);
+        }
+        return result;
+    }
+
+    static String decodeCurrency(long attribute)
+    {
+        StringBuilder result = new StringBuilder(3);
+        for (int i = 0; i < MAX_CURRENCY_LENGTH; i++)
+        {
+            char c = (char)((attribute >>> (8 * i)) & 0x7F);
+            if (c == 0)
+            {
+                break;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package de.hatoka.eos.persistence.file.dao;
+
+import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastPO;
+import de.hatoka.eos.persistence.file.config.FileStorageConfig;
+import de.hatoka.eos.persistence.file.store.TimeSeriesFile;
+import de.hatoka.eos.units.capi.Percentage;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.function.BiConsumer;
+
+/**
+ * File implementation for WeatherForecastDAO, the sun probability of each station and source is stored in its own {@link TimeSeriesFile}.
+ */
+@Singleton
+public class FileWeatherForecastDao implements WeatherForcastDAO
+{
+    private static final String FILE_PREFIX = "weather-";
+    private static final long PRESENT = 1;
+
+    private final FileStorageConfig config;
+
+    @Inject
+    public FileWeatherForecastDao(FileStorageConfig config)
+    {
+        this.config = config;
+    }
+
+    private TimeSeriesFile getFile(WeatherForecastKey key)
+    {
+        return config.getFile(FILE_PREFIX + key.station().getStationNumber() + "-" + key.source().getIdentifier());
+    }
+
+    @Override
+    public void update(WeatherForecastKey key, WeatherForecastPO data)
+    {
+        getFile(key).put(key.time(), data.getSunProbability().value(), PRESENT);
+    }
+
+    @Override
+    public void delete(WeatherForecastKey key)
+    {
+        getFile(key).remove(key.time(), key.time() + 1);
+    }
+
+    @Override
+    public void deleteRange(WeatherForecastKey from, WeatherForecastKey to)
+    {
+        getFile(from).remove(from.time(), to.time());
+    }
+
+    @Override
+    public WeatherForecastPO get(WeatherForecastKey key)
+    {
+        WeatherForecastPO[] result = new WeatherForecastPO[1];
+        getFile(key).get(key.time(), (time, value, attribute) -> result[0] = toPO(value));
+        return result[0];
+    }
+
+    @Override
+    public void forEachInRange(WeatherForecastKey from, WeatherForecastKey to, BiConsumer<WeatherForecastKey, WeatherForecastPO> consumer)
+    {
+        getFile(from).forEachInRange(from.time(), to.time(),
+                        (time, value, attribute) -> consumer.accept(new WeatherForecastKey(from.station(), time, from.source()), toPO(value)));
+    }
+
+    private static WeatherForecastPO toPO(double sunProbability)
+    {
+        WeatherForecastPO result = new WeatherForecastPO();
+        result.setSunProbability(new Percentage(sunProbability));
+        return result;
+    }
+}
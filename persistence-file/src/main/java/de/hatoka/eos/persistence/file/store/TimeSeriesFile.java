@@ -0,0 +1,423 @@
+package de.hatoka.eos.persistence.file.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * TimeSeriesFile stores values of a fixed time interval in a memory-mapped file. The slot of a value is the offset of its time to the origin of
+ * the file divided by the interval, so a lookup is one read of the mapped buffer. Each slot has a fixed width: a sequence number (long), the value
+ * (double) and an attribute (long); a slot with attribute zero is empty. The file only grows at the end, written slots may be overwritten.
+ * <p>
+ * Writers are serialized, readers don't lock. A slot is written like a seqlock: the sequence number is odd while the slot is written, readers
+ * retry until they read the same even sequence number before and after value and attribute, so value and attribute of a slot are always read
+ * as a pair. The file is mapped in chunks of a fixed number of slots, growing the file maps an additional chunk and keeps the existing mappings.
+ * <p>
+ * File layout: header (magic, version, origin in epoch milli seconds, interval in milli seconds, number of slots), followed by the slots.
+ */
+public class TimeSeriesFile implements AutoCloseable
+{
+    /**
+     * Receives the values of a range.
+     */
+    @FunctionalInterface
+    public interface SlotConsumer
+    {
+        void accept(long epochMillis, double value, long attribute);
+    }
+
+    private static final int MAGIC = 0x454F5346; // EOSF
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int POSITION_SLOTS = 24;
+    private static final int SLOT_SIZE = Long.BYTES + Double.BYTES + Long.BYTES;
+    private static final int OFFSET_VALUE = Long.BYTES;
+    private static final int OFFSET_ATTRIBUTE = Long.BYTES + Double.BYTES;
+    /**
+     * File is mapped and extended by chunks of this number of slots
+     */
+    private static final int CHUNK_SLOTS = 4096;
+    private static final int CHUNK_SIZE = CHUNK_SLOTS * SLOT_SIZE;
+    /**
+     * atomic and ordered access to the longs of the mapped buffers (all positions are aligned to eight bytes)
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final long origin;
+    private final long interval;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] chunks;
+    private volatile int slots;
+
+    private TimeSeriesFile(FileChannel channel, long origin, long interval, int slots) throws IOException
+    {
+        this.channel = channel;
+        this.origin = origin;
+        this.interval = interval;
+        this.slots = slots;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        int capacity = Math.max(capacityOf(channel.size()), slots);
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(capacity + CHUNK_SLOTS - 1) / CHUNK_SLOTS];
+        for (int i = 0; i < mapped.length; i++)
+        {
+            mapped[i] = map(i);
+        }
+        this.chunks = mapped;
+    }
+
+    /**
+     * Opens an existing file or creates a new file.
+     *
+     * @param file path of file
+     * @param origin time of the first slot (for new files)
+     * @param interval time between two slots (for new files)
+     * @return opened file
+     * @throws IOException if the file can't be opened or has another format
+     */
+    public static TimeSeriesFile open(Path file, Instant origin, Duration interval) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            if (channel.size() == 0)
+            {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(origin.toEpochMilli()).putLong(interval.toMillis()).putLong(0).flip();
+                channel.write(header, 0);
+                return new TimeSeriesFile(channel, origin.toEpochMilli(), interval.toMillis(), 0);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+            {
+                throw new IOException("Unknown time series file format: " + file);
+            }
+            long fileOrigin = header.getLong();
+            long fileInterval = header.getLong();
+            return new TimeSeriesFile(channel, fileOrigin, fileInterval, (int)header.getLong());
+        }
+        catch(IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int capacityOf(long fileSize)
+    {
+        return (int)Math.max(0, (fileSize - HEADER_SIZE) / SLOT_SIZE);
+    }
+
+    private MappedByteBuffer map(int chunk) throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long)chunk * CHUNK_SIZE, CHUNK_SIZE);
+    }
+
+    /**
+     * @return time of the first slot
+     */
+    public Instant getOrigin()
+    {
+        return Instant.ofEpochMilli(origin);
+    }
+
+    /**
+     * @return time between two slots
+     */
+    public Duration getInterval()
+    {
+        return Duration.ofMillis(interval);
+    }
+
+    /**
+     * @return number of slots up to the last written slot
+     */
+    public int getSlots()
+    {
+        return slots;
+    }
+
+    /**
+     * @param epochMillis time
+     * @return slot of time, -1 if the time is before the origin or not aligned to the interval
+     */
+    private long slotOf(long epochMillis)
+    {
+        long offset = epochMillis - origin;
+        if (offset < 0 || offset % interval != 0)
+        {
+            return -1;
+        }
+        return offset / interval;
+    }
+
+    /**
+     * @param slot slot
+     * @return position of slot in its chunk
+     */
+    private static int position(int slot)
+    {
+        return (slot % CHUNK_SLOTS) * SLOT_SIZE;
+    }
+
+    /**
+     * @param slot slot
+     * @return chunk of a written slot, null if the slot isn't written yet
+     */
+    private MappedByteBuffer chunkOf(long slot)
+    {
+        if (slot < 0 || slot >= slots)
+        {
+            return null;
+        }
+        MappedByteBuffer[] current = chunks;
+        int chunk = (int)(slot / CHUNK_SLOTS);
+        return chunk < current.length ? current[chunk] : null;
+    }
+
+    /**
+     * @param epochMillis time of value
+     * @return true if there is a value
+     */
+    public boolean contains(long epochMillis)
+    {
+        return getAttribute(epochMillis) != 0;
+    }
+
+    /**
+     * @param epochMillis time of value
+     * @return value, NaN if there is no value
+     */
+    public double getValue(long epochMillis)
+    {
+        long slot = slotOf(epochMillis);
+        MappedByteBuffer chunk = chunkOf(slot);
+        if (chunk == null)
+        {
+            return Double.NaN;
+        }
+        int position = position((int)slot);
+        while(true)
+        {
+            long sequence = (long)LONGS.getAcquire(chunk, position);
+            long value = (long)LONGS.getOpaque(chunk, position + OFFSET_VALUE);
+            long attribute = (long)LONGS.getOpaque(chunk, position + OFFSET_ATTRIBUTE);
+            if (isStable(chunk, position, sequence))
+            {
+                return attribute == 0 ? Double.NaN : Double.longBitsToDouble(value);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @param epochMillis time of value
+     * @return attribute of value, zero if there is no value
+     */
+    public long getAttribute(long epochMillis)
+    {
+        long slot = slotOf(epochMillis);
+        MappedByteBuffer chunk = chunkOf(slot);
+        return chunk == null ? 0 : (long)LONGS.getAcquire(chunk, position((int)slot) + OFFSET_ATTRIBUTE);
+    }
+
+    /**
+     * Reads value and attribute of one time consistently.
+     *
+     * @param epochMillis time of value
+     * @param consumer receives the value, if there is one
+     * @return true if there is a value
+     */
+    public boolean get(long epochMillis, SlotConsumer consumer)
+    {
+        long slot = slotOf(epochMillis);
+        MappedByteBuffer chunk = chunkOf(slot);
+        return chunk != null && read(chunk, position((int)slot), epochMillis, consumer);
+    }
+
+    /**
+     * Reads a slot, retries while the slot is written.
+     *
+     * @return true if the slot has a value
+     */
+    private static boolean read(MappedByteBuffer chunk, int position, long epochMillis, SlotConsumer consumer)
+    {
+        while(true)
+        {
+            long sequence = (long)LONGS.getAcquire(chunk, position);
+            long value = (long)LONGS.getOpaque(chunk, position + OFFSET_VALUE);
+            long attribute = (long)LONGS.getOpaque(chunk, position + OFFSET_ATTRIBUTE);
+            if (isStable(chunk, position, sequence))
+            {
+                if (attribute == 0)
+                {
+                    return false;
+                }
+                consumer.accept(epochMillis, Double.longBitsToDouble(value), attribute);
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @param sequence sequence number read before value and attribute
+     * @return true if the slot wasn't written while value and attribute were read
+     */
+    private static boolean isStable(MappedByteBuffer chunk, int position, long sequence)
+    {
+        VarHandle.loadLoadFence();
+        return (sequence & 1) == 0 && sequence == (long)LONGS.getOpaque(chunk, position);
+    }
+
+    /**
+     * Writes a slot, must be called by the writer holding the lock only.
+     */
+    private static void write(MappedByteBuffer chunk, int position, long value, long attribute)
+    {
+        long sequence = (long)LONGS.getOpaque(chunk, position);
+        LONGS.setOpaque(chunk, position, sequence + 1);
+        VarHandle.storeStoreFence();
+        LONGS.setOpaque(chunk, position + OFFSET_VALUE, value);
+        LONGS.setOpaque(chunk, position + OFFSET_ATTRIBUTE, attribute);
+        LONGS.setRelease(chunk, position, sequence + 2);
+    }
+
+    /**
+     * @param epochMillis time of value, aligned to the interval and not before the origin
+     * @param value value
+     * @param attribute attribute of the value, must not be zero
+     */
+    public synchronized void put(long epochMillis, double value, long attribute)
+    {
+        if (attribute == 0)
+        {
+            throw new IllegalArgumentException("Attribute of a value must not be zero");
+        }
+        long slot = slotOf(epochMillis);
+        if (slot < 0)
+        {
+            throw new IllegalArgumentException("Time " + Instant.ofEpochMilli(epochMillis) + " is not aligned to " + getInterval() + " since "
+                            + getOrigin());
+        }
+        if (slot >= Integer.MAX_VALUE - CHUNK_SLOTS)
+        {
+            throw new IllegalArgumentException("Time " + Instant.ofEpochMilli(epochMillis) + " exceeds the file");
+        }
+        ensureCapacity((int)slot + 1);
+        write(chunks[(int)slot / CHUNK_SLOTS], position((int)slot), Double.doubleToRawLongBits(value), attribute);
+        if (slot >= slots)
+        {
+            // publish the slot after it is written
+            slots = (int)slot + 1;
+            header.putLong(POSITION_SLOTS, slots);
+        }
+    }
+
+    /**
+     * Removes the values of a range, the file isn't truncated.
+     *
+     * @param fromMillis start of range (inclusive)
+     * @param toMillis end of range (exclusive)
+     */
+    public synchronized void remove(long fromMillis, long toMillis)
+    {
+        MappedByteBuffer[] current = chunks;
+        for (int slot = firstSlot(fromMillis); slot < slots && origin + slot * interval < toMillis; slot++)
+        {
+            MappedByteBuffer chunk = current[slot / CHUNK_SLOTS];
+            int position = position(slot);
+            if ((long)LONGS.getOpaque(chunk, position + OFFSET_ATTRIBUTE) != 0)
+            {
+                write(chunk, position, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * @param fromMillis start of range (inclusive)
+     * @param toMillis end of range (exclusive)
+     * @param consumer receives the values in order of time
+     */
+    public void forEachInRange(long fromMillis, long toMillis, SlotConsumer consumer)
+    {
+        int end = slots;
+        MappedByteBuffer[] current = chunks;
+        for (int slot = firstSlot(fromMillis); slot < end; slot++)
+        {
+            long time = origin + slot * interval;
+            if (time >= toMillis)
+            {
+                break;
+            }
+            read(current[slot / CHUNK_SLOTS], position(slot), time, consumer);
+        }
+    }
+
+    private int firstSlot(long fromMillis)
+    {
+        long offset = fromMillis - origin;
+        if (offset <= 0)
+        {
+            return 0;
+        }
+        return (int)Math.min(Integer.MAX_VALUE, (offset + interval - 1) / interval);
+    }
+
+    /**
+     * Maps additional chunks, the chunks are published before a slot of them is published.
+     */
+    private void ensureCapacity(int required)
+    {
+        MappedByteBuffer[] current = chunks;
+        int requiredChunks = (required + CHUNK_SLOTS - 1) / CHUNK_SLOTS;
+        if (requiredChunks <= current.length)
+        {
+            return;
+        }
+        MappedByteBuffer[] extended = Arrays.copyOf(current, requiredChunks);
+        try
+        {
+            for (int i = current.length; i < extended.length; i++)
+            {
+                extended[i] = map(i);
+            }
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException("Can't extend time series file", e);
+        }
+        chunks = extended;
+    }
+
+    /**
+     * Writes changes to the storage device.
+     */
+    public void force()
+    {
+        for (MappedByteBuffer chunk : chunks)
+        {
+            chunk.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,92 @@
+package de.hatoka.eos.persistence.file.dao;
+
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import de.hatoka.eos.persistence.file.config.FileStorageConfig;
+import de.hatoka.eos.units.capi.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileEnergyStockDaoTest
+{
+    private static final ZonedDateTime START = ZonedDateTime.parse("2025-03-01T00:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    private FileStorageConfig createConfig()
+    {
+        return new FileStorageConfig(directory, Instant.parse("2020-01-01T00:00:00Z"), Duration.ofMinutes(15));
+    }
+
+    private static EnergyStockPO price(double amount, String currency)
+    {
+        EnergyStockPO result = new EnergyStockPO();
+        result.setDayAheadPrice(new Money(BigDecimal.valueOf(amount), currency));
+        return result;
+    }
+
+    @Test
+    void testUpdateAndGetAfterRestart()
+    {
+        // Given
+        FileStorageConfig config = createConfig();
+        FileEnergyStockDao dao = new FileEnergyStockDao(config);
+        dao.update(EnergyStockKey.valueOf(START), price(0.1234, "EUR"));
+        dao.update(EnergyStockKey.valueOf(START.plusMinutes(15)), price(-0.02, "CHF"));
+        config.close();
+
+        // When
+        FileStorageConfig reopened = createConfig();
+        FileEnergyStockDao result = new FileEnergyStockDao(reopened);
+
+        // Then
+        assertEquals(Money.ofEur(0.1234), result.get(EnergyStockKey.valueOf(START)).getDayAheadPrice());
+        assertEquals("CHF", result.get(EnergyStockKey.valueOf(START.plusMinutes(15))).getDayAheadPrice().currencyMnemonic());
+        assertNull(result.get(EnergyStockKey.valueOf(START.plusHours(1))));
+        reopened.close();
+    }
+
+    @Test
+    void testRangeAndDelete()
+    {
+        FileStorageConfig config = createConfig();
+        FileEnergyStockDao dao = new FileEnergyStockDao(config);
+        for (int hour = 0; hour < 4; hour++)
+        {
+            dao.update(EnergyStockKey.valueOf(START.plusHours(hour)), price(hour, "EUR"));
+        }
+
+        // When
+        dao.delete(EnergyStockKey.valueOf(START.plusHours(1)));
+        Map<EnergyStockKey, EnergyStockPO> result = dao.getRange(EnergyStockKey.valueOf(START), EnergyStockKey.valueOf(START.plusHours(3)));
+
+        // Then - ordered by time, end exclusive
+        assertEquals(2, result.size());
+        assertEquals(List.of(EnergyStockKey.valueOf(START), EnergyStockKey.valueOf(START.plusHours(2))), List.copyOf(result.keySet()));
+
+        // When
+        dao.deleteRange(EnergyStockKey.valueOf(START), EnergyStockKey.valueOf(START.plusDays(1)));
+
+        // Then
+        assertTrue(dao.getRange(EnergyStockKey.valueOf(START), EnergyStockKey.valueOf(START.plusDays(1))).isEmpty());
+        config.close();
+    }
+
+    @Test
+    void testCurrencyEncoding()
+    {
+        assertEquals("EUR", FileEnergyStockDao.decodeCurrency(FileEnergyStockDao.encodeCurrency("EUR")));
+        assertNotEquals(0, FileEnergyStockDao.encodeCurrency(""));
+    }
+}
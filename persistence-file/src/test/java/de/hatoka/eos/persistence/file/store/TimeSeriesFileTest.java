@@ -0,0 +1,165 @@
+package de.hatoka.eos.persistence.file.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesFileTest
+{
+    private static final Instant ORIGIN = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration INTERVAL = Duration.ofMinutes(15);
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long START = ORIGIN.toEpochMilli();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testPutAndGet() throws IOException
+    {
+        try (TimeSeriesFile file = TimeSeriesFile.open(directory.resolve("test.eos"), ORIGIN, INTERVAL))
+        {
+            // When
+            file.put(START + HOUR, 1.5, 1);
+            file.put(START, 0.5, 2);
+            file.put(START + HOUR, 2.5, 3);
+
+            // Then
+            assertEquals(0.5, file.getValue(START));
+            assertEquals(2, file.getAttribute(START));
+            assertEquals(2.5, file.getValue(START + HOUR));
+            assertEquals(3, file.getAttribute(START + HOUR));
+            assertFalse(file.contains(START + HOUR / 2));
+            assertTrue(Double.isNaN(file.getValue(START + 2 * HOUR)));
+            assertEquals(5, file.getSlots());
+        }
+    }
+
+    @Test
+    void testRejectsMisalignedTime() throws IOException
+    {
+        try (TimeSeriesFile file = TimeSeriesFile.open(directory.resolve("test.eos"), ORIGIN, INTERVAL))
+        {
+            assertThrows(IllegalArgumentException.class, () -> file.put(START + 1000, 1.0, 1));
+            assertThrows(IllegalArgumentException.class, () -> file.put(START - HOUR, 1.0, 1));
+            assertThrows(IllegalArgumentException.class, () -> file.put(START, 1.0, 0));
+        }
+    }
+
+    @Test
+    void testGrowsAndReopens() throws IOException
+    {
+        Path path = directory.resolve("test.eos");
+        int hours = 24 * 365;
+        try (TimeSeriesFile file = TimeSeriesFile.open(path, ORIGIN, INTERVAL))
+        {
+            for (int hour = 0; hour < hours; hour++)
+            {
+                file.put(START + hour * HOUR, hour, 1);
+            }
+        }
+
+        // When - reopened with other settings, the settings of the file are used
+        try (TimeSeriesFile file = TimeSeriesFile.open(path, Instant.EPOCH, Duration.ofHours(1)))
+        {
+            // Then
+            assertEquals(ORIGIN, file.getOrigin());
+            assertEquals(INTERVAL, file.getInterval());
+            assertEquals((hours - 1) * 4 + 1, file.getSlots());
+            assertEquals(hours - 1, file.getValue(START + (hours - 1) * HOUR));
+        }
+    }
+
+    @Test
+    void testRangeAndRemove() throws IOException
+    {
+        try (TimeSeriesFile file = TimeSeriesFile.open(directory.resolve("test.eos"), ORIGIN, INTERVAL))
+        {
+            // Given - hourly values
+            for (int hour = 0; hour < 6; hour++)
+            {
+                file.put(START + hour * HOUR, hour, 1);
+            }
+
+            // When
+            file.remove(START + 2 * HOUR, START + 4 * HOUR);
+            List<Double> result = new ArrayList<>();
+            file.forEachInRange(START + HOUR - 1, START + 5 * HOUR, (time, value, attribute) -> result.add(value));
+
+            // Then - removed values are skipped, end exclusive
+            assertEquals(List.of(1.0, 4.0), result);
+            assertFalse(file.contains(START + 2 * HOUR));
+        }
+    }
+
+    @Test
+    void testReadersSeeConsistentPairs() throws Exception
+    {
+        try (TimeSeriesFile file = TimeSeriesFile.open(directory.resolve("test.eos"), ORIGIN, INTERVAL))
+        {
+            // Given - value and attribute are written as pair (value == attribute)
+            file.put(START, 1, 1);
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread writer = new Thread(() -> {
+                for (long i = 2; running.get(); i++)
+                {
+                    file.put(START, i, i);
+                }
+            });
+            writer.start();
+
+            // When
+            int torn = 0;
+            try
+            {
+                for (int i = 0; i < 100_000; i++)
+                {
+                    long[] read = new long[2];
+                    file.get(START, (time, value, attribute) -> {
+                        read[0] = (long)value;
+                        read[1] = attribute;
+                    });
+                    if (read[0] != read[1])
+                    {
+                        torn++;
+                    }
+                }
+            }
+            finally
+            {
+                running.set(false);
+                writer.join();
+            }
+
+            // Then
+            assertEquals(0, torn);
+        }
+    }
+
+    @Test
+    void testGrowthKeepsWrittenValues() throws IOException
+    {
+        try (TimeSeriesFile file = TimeSeriesFile.open(directory.resolve("test.eos"), ORIGIN, INTERVAL))
+        {
+            // Given
+            file.put(START, 1.0, 1);
+
+            // When - several chunks are added
+            file.put(START + 24 * 365 * HOUR, 2.0, 2);
+
+            // Then
+            assertEquals(1.0, file.getValue(START));
+            assertEquals(2.0, file.getValue(START + 24 * 365 * HOUR));
+            assertFalse(file.get(START + HOUR, (time, value, attribute) -> fail("empty slot")));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.domain.Bucket;
 import com.influxdb.client.domain.Organization;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Singleton;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
@@ -15,7 +16,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Configuration for InfluxDB client.
- * Ensures required buckets exist on startup.
+ * Ensures required buckets exist on startup. One client (with its connection pool) and one writer per bucket is shared by all users and closed
+ * on shutdown.
  */
 @Singleton
 public class InfluxDBConfig
@@ -36,13 +38,51 @@ public class InfluxDBConfig
     @ConfigProperty(name = "eos.influxdb.org", defaultValue = "eos")
     private String influxOrg;
 
+    /**
+     * Number of parallel write requests per bucket
+     */
+    @ConfigProperty(name = "eos.influxdb.write.threads", defaultValue = "2")
+    private int writeThreads;
+
+    /**
+     * Number of batches waiting for a write request per bucket, further writes block the caller
+     */
+    @ConfigProperty(name = "eos.influxdb.write.buffer-limit", defaultValue = "64")
+    private int writeBufferLimit;
+
+    private final Map<String, InfluxDBClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, InfluxWriter> writers = new ConcurrentHashMap<>();
+
     /**
      * @param bucket bucket name
-     * @return client for bucket
+     * @return shared client for bucket, must not be closed by the caller
      */
     public InfluxDBClient getClient(String bucket)
     {
-        return InfluxDBClientFactory.create(influxUrl, influxToken.toCharArray(), influxOrg, ENSURED_BUCKETS.computeIfAbsent(bucket, this::ensureBucketExists).getName());
+        return clients.computeIfAbsent(bucket, b -> InfluxDBClientFactory.create(influxUrl, influxToken.toCharArray(), influxOrg,
+                        ENSURED_BUCKETS.computeIfAbsent(b, this::ensureBucketExists).getName()));
+    }
+
+    /**
+     * @param bucket bucket name
+     * @return shared asynchronous writer for bucket
+     */
+    public InfluxWriter getWriter(String bucket)
+    {
+        return writers.computeIfAbsent(bucket, b -> new InfluxWriter(getClient(b).getWriteApiBlocking(), writeThreads, writeBufferLimit));
+    }
+
+    /**
+     * Writes pending data and closes all clients.
+     */
+    @PreDestroy
+    void close()
+    {
+        writers.values().forEach(InfluxWriter::close);
+        writers.clear();
+        // closes also the write apis of the clients, that writes their pending points
+        clients.values().forEach(InfluxDBClient::close);
+        clients.clear();
     }
 
     public String getOrg()
@@ -0,0 +1,114 @@
+package de.hatoka.eos.persistence.influx.config;
+
+import com.influxdb.client.WriteApiBlocking;
+import com.influxdb.client.write.Point;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InfluxWriter writes batches of points in background threads, so callers can continue while the request is running. The number of waiting
+ * batches is bounded; if the buffer is full, the caller writes the batch itself (backpressure). Pending batches are written on close, later writes
+ * fail.
+ */
+public class InfluxWriter implements AutoCloseable
+{
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final WriteApiBlocking writeApi;
+    private final ThreadPoolExecutor executor;
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param writeApi write api of the bucket
+     * @param threads number of parallel requests
+     * @param bufferLimit number of batches waiting for a thread
+     */
+    public InfluxWriter(WriteApiBlocking writeApi, int threads, int bufferLimit)
+    {
+        this.writeApi = writeApi;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(bufferLimit), runnable -> {
+            Thread thread = new Thread(runnable, "influx-writer-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, InfluxWriter::rejected);
+    }
+
+    /**
+     * Backpressure: the caller writes the batch itself if the buffer is full, but never after close.
+     */
+    private static void rejected(Runnable runnable, ThreadPoolExecutor executor)
+    {
+        if (executor.isShutdown())
+        {
+            throw new RejectedExecutionException("InfluxWriter is closed");
+        }
+        runnable.run();
+    }
+
+    /**
+     * @param points points written with one request
+     * @return completed after the points are written, failed if the writer is closed
+     */
+    public CompletableFuture<Void> write(List<Point> points)
+    {
+        if (points.isEmpty())
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result;
+        try
+        {
+            result = CompletableFuture.runAsync(() -> {
+                try
+                {
+                    writeApi.writePoints(points);
+                }
+                catch(Exception e)
+                {
+                    throw new RuntimeException("Can't write points to influx", e);
+                }
+            }, executor);
+        }
+        catch(RejectedExecutionException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+        pending.add(result);
+        result.whenComplete((r, e) -> pending.remove(result));
+        return result;
+    }
+
+    /**
+     * Waits until all pending batches are written, failures are reported to the callers of {@link #write(List)}.
+     */
+    public void flush()
+    {
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).handle((r, e) -> null).join();
+    }
+
+    /**
+     * Writes the pending batches and stops the threads.
+     */
+    @Override
+    public void close()
+    {
+        flush();
+        executor.shutdown();
+        try
+        {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
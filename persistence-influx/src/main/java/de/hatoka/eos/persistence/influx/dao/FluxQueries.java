@@ -0,0 +1,69 @@
+package de.hatoka.eos.persistence.influx.dao;
+
+import com.influxdb.client.QueryApi;
+import com.influxdb.query.FluxRecord;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Helper for streamed flux queries.
+ */
+final class FluxQueries
+{
+    private FluxQueries()
+    {
+    }
+
+    static String formatTime(Instant time)
+    {
+        return DateTimeFormatter.ISO_INSTANT.format(time);
+    }
+
+    /**
+     * Executes the query and passes the records to the consumer as they arrive, without collecting the result tables.
+     *
+     * @param queryApi query api
+     * @param flux flux query
+     * @param consumer receives the records
+     */
+    static void stream(QueryApi queryApi, String flux, Consumer<FluxRecord> consumer)
+    {
+        try
+        {
+            query(queryApi, flux, consumer).join();
+        }
+        catch(CompletionException e)
+        {
+            throw new RuntimeException("Can't query influx", e.getCause());
+        }
+    }
+
+    /**
+     * Starts the query and passes the records to the consumer (in the thread of the client) as they arrive.
+     *
+     * @param queryApi query api
+     * @param flux flux query
+     * @param consumer receives the records
+     * @return completed after the last record, completed exceptionally if the query or the consumer fails
+     */
+    static CompletableFuture<Void> query(QueryApi queryApi, String flux, Consumer<FluxRecord> consumer)
+    {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        queryApi.query(flux, (cancellable, record) -> {
+            try
+            {
+                consumer.accept(record);
+            }
+            catch(RuntimeException e)
+            {
+                cancellable.cancel();
+                result.completeExceptionally(e);
+            }
+        }, result::completeExceptionally, () -> result.complete(null));
+        return result;
+    }
+}
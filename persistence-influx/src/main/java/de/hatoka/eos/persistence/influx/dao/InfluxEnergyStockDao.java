@@ -3,13 +3,13 @@ package de.hatoka.eos.persistence.influx.dao;
 import com.influxdb.client.DeleteApi;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 import com.influxdb.exceptions.NotFoundException;
 import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
 import de.hatoka.eos.persistence.influx.config.InfluxDBConfig;
+import de.hatoka.eos.persistence.influx.config.InfluxWriter;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
@@ -20,6 +20,12 @@ import jakarta.inject.Singleton;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 
 /**
  * InfluxDB implementation for writing forecast data.
@@ -37,11 +43,19 @@ public class InfluxEnergyStockDao implements EnergyStockDao
                       |> filter(fn: (r) => r["_field"] == "%s")
                       |> last()
                     """;
+    private static final String RANGE_QUERY = """
+                    from(bucket: "%s")
+                      |> range(start: %s, stop: %s)
+                      |> filter(fn: (r) => r["_measurement"] == "%s")
+                      |> filter(fn: (r) => r["_field"] == "%s")
+                      |> group()
+                      |> sort(columns: ["_time"])
+                    """;
     private static final String DELETE_PREDICATE = """
                     _measurement="%s"
                     """;
 
-    private final WriteApiBlocking writeApi;
+    private final InfluxWriter writer;
     private final DeleteApi deleteApi;
     private final QueryApi queryApi;
     private final String influxDbOrg;
@@ -50,7 +64,7 @@ public class InfluxEnergyStockDao implements EnergyStockDao
     InfluxEnergyStockDao(InfluxDBConfig config)
     {
         InfluxDBClient client = config.getClient(BUCKET);
-        writeApi = client.getWriteApiBlocking();
+        writer = config.getWriter(BUCKET);
         deleteApi = client.getDeleteApi();
         queryApi = client.getQueryApi();
         influxDbOrg = config.getOrg();
@@ -58,22 +72,48 @@ public class InfluxEnergyStockDao implements EnergyStockDao
 
     @Override
     public void update(EnergyStockKey key, EnergyStockPO data)
+    {
+        join(writer.write(List.of(toPoint(key, data))));
+    }
+
+    /**
+     * Writes all points with one request.
+     */
+    @Override
+    public void updateAll(Map<EnergyStockKey, EnergyStockPO> data)
+    {
+        join(updateAllAsync(data));
+    }
+
+    /**
+     * Writes all points with one request in the background, reads don't wait for pending writes.
+     */
+    @Override
+    public CompletableFuture<Void> updateAllAsync(Map<EnergyStockKey, EnergyStockPO> data)
+    {
+        return writer.write(data.entrySet().stream().map(e -> toPoint(e.getKey(), e.getValue())).toList());
+    }
+
+    private static void join(CompletableFuture<Void> write)
     {
         try
         {
-            Point point = Point.measurement(MEASUREMENT)
-                               .time(key.getInstant(), WritePrecision.S)
-                               .addTag(TAG_CURRENCY, data.getDayAheadPrice().currencyMnemonic())
-                               .addField(EnergyStockPO.COLUMN_DAY_AHEAD, data.getDayAheadPrice().amount().doubleValue());
-
-            writeApi.writePoint(point);
+            write.join();
         }
-        catch(Exception e)
+        catch(CompletionException e)
         {
-            throw new RuntimeException("Can't write weather forecast to influx", e);
+            throw new RuntimeException("Can't write energy stock to influx", e.getCause());
         }
     }
 
+    private static Point toPoint(EnergyStockKey key, EnergyStockPO data)
+    {
+        return Point.measurement(MEASUREMENT)
+                    .time(key.getInstant(), WritePrecision.S)
+                    .addTag(TAG_CURRENCY, data.getDayAheadPrice().currencyMnemonic())
+                    .addField(EnergyStockPO.COLUMN_DAY_AHEAD, data.getDayAheadPrice().amount().doubleValue());
+    }
+
     @Override
     public void delete(EnergyStockKey key)
     {
@@ -89,6 +129,25 @@ public class InfluxEnergyStockDao implements EnergyStockDao
         }
     }
 
+    @Override
+    public void deleteRange(EnergyStockKey from, EnergyStockKey to)
+    {
+        if (from.time() >= to.time())
+        {
+            return;
+        }
+        try
+        {
+            // stop of delete is inclusive
+            deleteApi.delete(from.getZonedDateTime().toOffsetDateTime(), to.getZonedDateTime().minusNanos(1).toOffsetDateTime(),
+                            DELETE_PREDICATE.formatted(MEASUREMENT), BUCKET, influxDbOrg);
+        }
+        catch(NotFoundException e)
+        {
+            // ignore if not exists
+        }
+    }
+
     private String formatTimeForFlux(ZonedDateTime time)
     {
         return time.format(DateTimeFormatter.ISO_INSTANT);
@@ -113,6 +172,45 @@ public class InfluxEnergyStockDao implements EnergyStockDao
         return null;
     }
 
+    @Override
+    public void forEachInRange(EnergyStockKey from, EnergyStockKey to, BiConsumer<EnergyStockKey, EnergyStockPO> consumer)
+    {
+        if (from.time() >= to.time())
+        {
+            return;
+        }
+        FluxQueries.stream(queryApi, rangeQuery(from, to), record -> accept(record, consumer));
+    }
+
+    /**
+     * Retrieves the range without blocking the caller, the records are collected as they arrive.
+     */
+    @Override
+    public CompletableFuture<Map<EnergyStockKey, EnergyStockPO>> getRangeAsync(EnergyStockKey from, EnergyStockKey to)
+    {
+        Map<EnergyStockKey, EnergyStockPO> result = new LinkedHashMap<>();
+        if (from.time() >= to.time())
+        {
+            return CompletableFuture.completedFuture(result);
+        }
+        return FluxQueries.query(queryApi, rangeQuery(from, to), record -> accept(record, result::put)).thenApply(v -> result);
+    }
+
+    private static String rangeQuery(EnergyStockKey from, EnergyStockKey to)
+    {
+        return String.format(RANGE_QUERY, BUCKET, FluxQueries.formatTime(from.getInstant()), FluxQueries.formatTime(to.getInstant()), MEASUREMENT,
+                        EnergyStockPO.COLUMN_DAY_AHEAD);
+    }
+
+    private void accept(FluxRecord record, BiConsumer<EnergyStockKey, EnergyStockPO> consumer)
+    {
+        EnergyStockPO data = convert(record);
+        if (data != null && record.getTime() != null)
+        {
+            consumer.accept(new EnergyStockKey(record.getTime().toEpochMilli()), data);
+        }
+    }
+
     private EnergyStockPO convert(FluxRecord record)
     {
         EnergyStockPO data = new EnergyStockPO();
@@ -3,7 +3,6 @@ package de.hatoka.eos.persistence.influx.dao;
 import com.influxdb.client.DeleteApi;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 import com.influxdb.exceptions.NotFoundException;
@@ -13,12 +12,19 @@ import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
 import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
 import de.hatoka.eos.persistence.capi.weather.WeatherForecastPO;
 import de.hatoka.eos.persistence.influx.config.InfluxDBConfig;
+import de.hatoka.eos.persistence.influx.config.InfluxWriter;
 import de.hatoka.eos.units.capi.Percentage;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 
 /**
  * InfluxDB implementation for writing forecast data.
@@ -39,11 +45,20 @@ public class InfluxWeatherForecastDao implements WeatherForcastDAO
                       |> filter(fn: (r) => r["_field"] == "%s")
                       |> last()
                     """;
+    private static final String RANGE_QUERY = """
+                    from(bucket: "%s")
+                      |> range(start: %s, stop: %s)
+                      |> filter(fn: (r) => r["_measurement"] == "%s")
+                      |> filter(fn: (r) => r["station"] == "%s")
+                      |> filter(fn: (r) => r["source"] == "%s")
+                      |> filter(fn: (r) => r["_field"] == "%s")
+                      |> sort(columns: ["_time"])
+                    """;
     private static final String DELETE_PREDICATE = """
                     _measurement="%s" AND station="%s" AND source="%s"
                     """;
 
-    private final WriteApiBlocking writeApi;
+    private final InfluxWriter writer;
     private final DeleteApi deleteApi;
     private final QueryApi queryApi;
     private final String influxdbOrg;
@@ -52,7 +67,7 @@ public class InfluxWeatherForecastDao implements WeatherForcastDAO
     InfluxWeatherForecastDao(InfluxDBConfig config)
     {
         InfluxDBClient influxDBClient = config.getClient(BUCKET);
-        writeApi = influxDBClient.getWriteApiBlocking();
+        writer = config.getWriter(BUCKET);
         deleteApi = influxDBClient.getDeleteApi();
         queryApi = influxDBClient.getQueryApi();
         influxdbOrg = config.getOrg();
@@ -60,23 +75,49 @@ public class InfluxWeatherForecastDao implements WeatherForcastDAO
 
     @Override
     public void update(WeatherForecastKey key, WeatherForecastPO data)
+    {
+        join(writer.write(List.of(toPoint(key, data))));
+    }
+
+    /**
+     * Writes all points with one request.
+     */
+    @Override
+    public void updateAll(Map<WeatherForecastKey, WeatherForecastPO> data)
+    {
+        join(updateAllAsync(data));
+    }
+
+    /**
+     * Writes all points with one request in the background, reads don't wait for pending writes.
+     */
+    @Override
+    public CompletableFuture<Void> updateAllAsync(Map<WeatherForecastKey, WeatherForecastPO> data)
+    {
+        return writer.write(data.entrySet().stream().map(e -> toPoint(e.getKey(), e.getValue())).toList());
+    }
+
+    private static void join(CompletableFuture<Void> write)
     {
         try
         {
-            Point point = Point.measurement(WEATHER_MEASUREMENT)
-                               .time(key.getInstant(), WritePrecision.S)
-                               .addTag(COLUMN_STATION, key.station().name())
-                               .addTag(COLUMN_SOURCE, key.source().getIdentifier())
-                               .addField(WeatherForecastPO.COLUMN_SUN_PROBABILITY, data.getSunProbability().value());
-
-            writeApi.writePoint(point);
+            write.join();
         }
-        catch(Exception e)
+        catch(CompletionException e)
         {
-            throw new RuntimeException("Can't write weather forecast to influx", e);
+            throw new RuntimeException("Can't write weather forecast to influx", e.getCause());
         }
     }
 
+    private static Point toPoint(WeatherForecastKey key, WeatherForecastPO data)
+    {
+        return Point.measurement(WEATHER_MEASUREMENT)
+                    .time(key.getInstant(), WritePrecision.S)
+                    .addTag(COLUMN_STATION, key.station().name())
+                    .addTag(COLUMN_SOURCE, key.source().getIdentifier())
+                    .addField(WeatherForecastPO.COLUMN_SUN_PROBABILITY, data.getSunProbability().value());
+    }
+
     @Override
     public void delete(WeatherForecastKey key)
     {
@@ -92,6 +133,25 @@ public class InfluxWeatherForecastDao implements WeatherForcastDAO
         }
     }
 
+    @Override
+    public void deleteRange(WeatherForecastKey from, WeatherForecastKey to)
+    {
+        if (from.time() >= to.time())
+        {
+            return;
+        }
+        try
+        {
+            // stop of delete is inclusive
+            deleteApi.delete(from.getZonedDateTime().toOffsetDateTime(), to.getZonedDateTime().minusNanos(1).toOffsetDateTime(),
+                            DELETE_PREDICATE.formatted(WEATHER_MEASUREMENT, from.station(), from.source().getIdentifier()), BUCKET, influxdbOrg);
+        }
+        catch(NotFoundException e)
+        {
+            // ignore if not exists
+        }
+    }
+
     private String formatTimeForFlux(ZonedDateTime time)
     {
         return time.format(DateTimeFormatter.ISO_INSTANT);
@@ -116,6 +176,45 @@ public class InfluxWeatherForecastDao implements WeatherForcastDAO
         return null;
     }
 
+    @Override
+    public void forEachInRange(WeatherForecastKey from, WeatherForecastKey to, BiConsumer<WeatherForecastKey, WeatherForecastPO> consumer)
+    {
+        if (from.time() >= to.time())
+        {
+            return;
+        }
+        FluxQueries.stream(queryApi, rangeQuery(from, to), record -> accept(from, record, consumer));
+    }
+
+    /**
+     * Retrieves the range without blocking the caller, the records are collected as they arrive.
+     */
+    @Override
+    public CompletableFuture<Map<WeatherForecastKey, WeatherForecastPO>> getRangeAsync(WeatherForecastKey from, WeatherForecastKey to)
+    {
+        Map<WeatherForecastKey, WeatherForecastPO> result = new LinkedHashMap<>();
+        if (from.time() >= to.time())
+        {
+            return CompletableFuture.completedFuture(result);
+        }
+        return FluxQueries.query(queryApi, rangeQuery(from, to), record -> accept(from, record, result::put)).thenApply(v -> result);
+    }
+
+    private static String rangeQuery(WeatherForecastKey from, WeatherForecastKey to)
+    {
+        return String.format(RANGE_QUERY, BUCKET, FluxQueries.formatTime(from.getInstant()), FluxQueries.formatTime(to.getInstant()),
+                        WEATHER_MEASUREMENT, from.station(), from.source().getIdentifier(), WeatherForecastPO.COLUMN_SUN_PROBABILITY);
+    }
+
+    private void accept(WeatherForecastKey from, FluxRecord record, BiConsumer<WeatherForecastKey, WeatherForecastPO> consumer)
+    {
+        WeatherForecastPO data = convert(record);
+        if (data != null && record.getTime() != null)
+        {
+            consumer.accept(new WeatherForecastKey(from.station(), record.getTime().toEpochMilli(), from.source()), data);
+        }
+    }
+
     private WeatherForecastPO convert(FluxRecord record)
     {
         WeatherForecastPO data = new WeatherForecastPO();
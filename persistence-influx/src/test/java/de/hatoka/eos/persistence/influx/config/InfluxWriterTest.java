@@ -0,0 +1,128 @@
+package de.hatoka.eos.persistence.influx.config;
+
+import com.influxdb.client.WriteApiBlocking;
+import com.influxdb.client.write.Point;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test of InfluxWriter without InfluxDB, the write api is simulated.
+ */
+class InfluxWriterTest
+{
+    private final AtomicInteger writtenPoints = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Set<String> writingThreads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return write api that waits for release and counts the written points
+     */
+    private WriteApiBlocking createWriteApi()
+    {
+        return (WriteApiBlocking)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WriteApiBlocking.class },
+                        (proxy, method, args) -> {
+                            if (!method.getName().equals("writePoints"))
+                            {
+                                throw new UnsupportedOperationException(method.getName());
+                            }
+                            release.await();
+                            List<?> points = (List<?>)args[0];
+                            if (points.isEmpty() || points.getFirst() == null)
+                            {
+                                throw new IllegalArgumentException("invalid point");
+                            }
+                            writtenPoints.addAndGet(points.size());
+                            writingThreads.add(Thread.currentThread().getName());
+                            return null;
+                        });
+    }
+
+    private static Point point()
+    {
+        return Point.measurement("test").addField("value", 1.0);
+    }
+
+    @Test
+    void testWritesInBackgroundAndFlushesOnClose()
+    {
+        InfluxWriter writer = new InfluxWriter(createWriteApi(), 1, 10);
+
+        // When - write api is blocked, the caller isn't
+        CompletableFuture<Void> first = writer.write(List.of(point(), point()));
+        CompletableFuture<Void> second = writer.write(List.of(point()));
+        assertFalse(first.isDone());
+        assertEquals(0, writtenPoints.get());
+
+        // Then
+        release.countDown();
+        writer.close();
+        assertTrue(first.isDone() && second.isDone());
+        assertEquals(3, writtenPoints.get());
+    }
+
+    @Test
+    void testBackpressureWritesInCaller() throws InterruptedException
+    {
+        InfluxWriter writer = new InfluxWriter(createWriteApi(), 1, 1);
+        writer.write(List.of(point()));
+        writer.write(List.of(point()));
+
+        // When - thread and buffer are used, the caller writes
+        Thread caller = new Thread(() -> writer.write(List.of(point())), "caller");
+        caller.start();
+        while(caller.getState() != Thread.State.WAITING)
+        {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        caller.join();
+
+        // Then
+        writer.close();
+        assertEquals(3, writtenPoints.get());
+        assertTrue(writingThreads.contains("caller"));
+    }
+
+    @Test
+    void testFailureIsReportedToCaller()
+    {
+        InfluxWriter writer = new InfluxWriter(createWriteApi(), 1, 10);
+        release.countDown();
+        List<Point> invalid = new ArrayList<>();
+        invalid.add(null);
+
+        CompletableFuture<Void> result = writer.write(invalid);
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(RuntimeException.class, exception.getCause());
+        writer.flush();
+        writer.close();
+    }
+
+    @Test
+    void testWriteAfterCloseFails()
+    {
+        InfluxWriter writer = new InfluxWriter(createWriteApi(), 1, 1);
+        release.countDown();
+        writer.close();
+
+        CompletableFuture<Void> result = writer.write(List.of(point()));
+
+        assertTrue(result.isCompletedExceptionally());
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(0, writtenPoints.get());
+    }
+}
@@ -12,6 +12,8 @@ import java.math.BigDecimal;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -251,5 +253,20 @@ class InfluxEnergyStockDaoTest
         // Clean up
         dao.delete(getKey(timeNegative));
     }
-}
 
+    @Test
+    void shouldRetrieveRangeWithOneQuery()
+    {
+        // Given - hourly prices
+        dao.update(getKey(TEST_TIME.minusHours(1)), createEnergyStock(Money.ofEur(30.0)));
+        dao.update(getKey(TEST_TIME), createEnergyStock(Money.ofEur(45.0)));
+        dao.update(getKey(TEST_TIME.plusHours(1)), createEnergyStock(Money.ofEur(60.0)));
+
+        // When - end of range is exclusive
+        Map<EnergyStockKey, EnergyStockPO> result = dao.getRange(getKey(TEST_TIME.minusHours(1)), getKey(TEST_TIME.plusHours(1)));
+
+        // Then
+        assertEquals(List.of(getKey(TEST_TIME.minusHours(1)), getKey(TEST_TIME)), List.copyOf(result.keySet()));
+        assertEquals(45.0, result.get(getKey(TEST_TIME)).getDayAheadPrice().amount().doubleValue(), 0.001);
+    }
+}
@@ -8,6 +8,7 @@ dependencies {
 
     implementation("org.slf4j:slf4j-api")
     implementation("jakarta.inject:jakarta.inject-api")
+    implementation("org.eclipse.microprofile.config:microprofile-config-api")
 
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
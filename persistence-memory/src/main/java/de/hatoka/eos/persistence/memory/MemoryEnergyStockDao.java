@@ -3,34 +3,101 @@ package de.hatoka.eos.persistence.memory;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
- * In-memory implementation for EnergyStockDao
+ * In-memory implementation for EnergyStockDao, the data is stored in a {@link TimeSeriesStore}.
  */
 @Singleton
 public class MemoryEnergyStockDao implements EnergyStockDao
 {
-    private static final ConcurrentHashMap<EnergyStockKey, EnergyStockPO> STORAGE = new ConcurrentHashMap<>();
+    private final TimeSeriesStore<EnergyStockPO> storage;
+
+    /**
+     * Keeps all data
+     */
+    public MemoryEnergyStockDao()
+    {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param retention time to keep data before the current day, zero keeps all data
+     */
+    @Inject
+    public MemoryEnergyStockDao(@ConfigProperty(name = "eos.persistence.memory.retention", defaultValue = "PT0S") Duration retention)
+    {
+        storage = new TimeSeriesStore<>(retention, Clock.systemUTC());
+    }
 
     @Override
     public void update(EnergyStockKey key, EnergyStockPO data)
     {
-        STORAGE.put(key, data);
+        storage.put(key.time(), data);
+    }
+
+    @Override
+    public void updateAll(Map<EnergyStockKey, EnergyStockPO> data)
+    {
+        Map<Long, EnergyStockPO> values = new HashMap<>();
+        data.forEach((key, value) -> values.put(key.time(), value));
+        storage.putAll(values);
     }
 
     @Override
     public void delete(EnergyStockKey key)
     {
-        STORAGE.remove(key);
+        storage.remove(key.time());
+    }
+
+    @Override
+    public void deleteRange(EnergyStockKey from, EnergyStockKey to)
+    {
+        storage.removeRange(from.time(), to.time());
     }
 
     @Override
     public EnergyStockPO get(EnergyStockKey key)
     {
-        return STORAGE.get(key);
+        return storage.get(key.time());
+    }
+
+    @Override
+    public void forEachInRange(EnergyStockKey from, EnergyStockKey to, BiConsumer<EnergyStockKey, EnergyStockPO> consumer)
+    {
+        storage.forEachInRange(from.time(), to.time(), (time, data) -> consumer.accept(new EnergyStockKey(time), data));
+    }
+
+    /**
+     * @param key requested time
+     * @return data with the latest time not after the requested time, null if there is none
+     */
+    public Map.Entry<EnergyStockKey, EnergyStockPO> getFloor(EnergyStockKey key)
+    {
+        return toKeyEntry(storage.floor(key.time()));
+    }
+
+    /**
+     * @param key requested time
+     * @return data with the earliest time not before the requested time, null if there is none
+     */
+    public Map.Entry<EnergyStockKey, EnergyStockPO> getCeiling(EnergyStockKey key)
+    {
+        return toKeyEntry(storage.ceiling(key.time()));
+    }
+
+    private static Map.Entry<EnergyStockKey, EnergyStockPO> toKeyEntry(Map.Entry<Long, EnergyStockPO> entry)
+    {
+        return entry == null ? null : new AbstractMap.SimpleImmutableEntry<>(new EnergyStockKey(entry.getKey()), entry.getValue());
     }
 
     /**
@@ -38,7 +105,6 @@ public class MemoryEnergyStockDao implements EnergyStockDao
      */
     public void clear()
     {
-        STORAGE.clear();
+        storage.clear();
     }
 }
-
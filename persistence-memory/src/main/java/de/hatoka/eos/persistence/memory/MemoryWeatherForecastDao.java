@@ -1,39 +1,123 @@
 package de.hatoka.eos.persistence.memory;
 
+import de.hatoka.eos.persistence.capi.weather.WeatherDataSource;
 import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
 import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
 import de.hatoka.eos.persistence.capi.weather.WeatherForecastPO;
+import de.hatoka.eos.persistence.capi.weather.WeatherStation;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
- * In-memory implementation for WeatherForecastDAO
+ * In-memory implementation for WeatherForecastDAO, the data of each station and source is stored in a {@link TimeSeriesStore}.
  */
 @Singleton
 public class MemoryWeatherForecastDao implements WeatherForcastDAO
 {
-    private static final Map<WeatherForecastKey, WeatherForecastPO> STORAGE = new ConcurrentHashMap<>();
+    private record Series(WeatherStation station, WeatherDataSource source)
+    {
+        private static Series of(WeatherForecastKey key)
+        {
+            return new Series(key.station(), key.source());
+        }
+    }
+
+    private final Map<Series, TimeSeriesStore<WeatherForecastPO>> storage = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    /**
+     * Keeps all data
+     */
+    public MemoryWeatherForecastDao()
+    {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param retention time to keep data before the current day, zero keeps all data
+     */
+    @Inject
+    public MemoryWeatherForecastDao(@ConfigProperty(name = "eos.persistence.memory.retention", defaultValue = "PT0S") Duration retention)
+    {
+        this.retention = retention;
+    }
+
+    private TimeSeriesStore<WeatherForecastPO> getSeries(WeatherForecastKey key)
+    {
+        return storage.computeIfAbsent(Series.of(key), s -> new TimeSeriesStore<>(retention, Clock.systemUTC()));
+    }
 
     @Override
     public void update(WeatherForecastKey key, WeatherForecastPO data)
     {
-        STORAGE.put(key, data);
+        getSeries(key).put(key.time(), data);
+    }
+
+    @Override
+    public void updateAll(Map<WeatherForecastKey, WeatherForecastPO> data)
+    {
+        Map<Series, Map<Long, WeatherForecastPO>> valuesPerSeries = new HashMap<>();
+        data.forEach((key, value) -> valuesPerSeries.computeIfAbsent(Series.of(key), s -> new HashMap<>()).put(key.time(), value));
+        valuesPerSeries.forEach((series, values) -> storage.computeIfAbsent(series, s -> new TimeSeriesStore<>(retention, Clock.systemUTC()))
+                                                           .putAll(values));
     }
 
     @Override
     public void delete(WeatherForecastKey key)
     {
-        STORAGE.remove(key);
+        getSeries(key).remove(key.time());
+    }
+
+    @Override
+    public void deleteRange(WeatherForecastKey from, WeatherForecastKey to)
+    {
+        getSeries(from).removeRange(from.time(), to.time());
     }
 
     @Override
     public WeatherForecastPO get(WeatherForecastKey key)
     {
-        return STORAGE.get(key);
+        return getSeries(key).get(key.time());
+    }
+
+    @Override
+    public void forEachInRange(WeatherForecastKey from, WeatherForecastKey to, BiConsumer<WeatherForecastKey, WeatherForecastPO> consumer)
+    {
+        getSeries(from).forEachInRange(from.time(), to.time(),
+                        (time, data) -> consumer.accept(new WeatherForecastKey(from.station(), time, from.source()), data));
+    }
+
+    /**
+     * @param key requested station, source and time
+     * @return data with the latest time not after the requested time, null if there is none
+     */
+    public Map.Entry<WeatherForecastKey, WeatherForecastPO> getFloor(WeatherForecastKey key)
+    {
+        return toKeyEntry(key, getSeries(key).floor(key.time()));
+    }
+
+    /**
+     * @param key requested station, source and time
+     * @return data with the earliest time not before the requested time, null if there is none
+     */
+    public Map.Entry<WeatherForecastKey, WeatherForecastPO> getCeiling(WeatherForecastKey key)
+    {
+        return toKeyEntry(key, getSeries(key).ceiling(key.time()));
+    }
+
+    private static Map.Entry<WeatherForecastKey, WeatherForecastPO> toKeyEntry(WeatherForecastKey key, Map.Entry<Long, WeatherForecastPO> entry)
+    {
+        return entry == null ? null
+                        : new AbstractMap.SimpleImmutableEntry<>(new WeatherForecastKey(key.station(), entry.getKey(), key.source()), entry.getValue());
     }
 
     /**
@@ -41,7 +125,6 @@ public class MemoryWeatherForecastDao implements WeatherForcastDAO
      */
     public void clear()
     {
-        STORAGE.clear();
+        storage.clear();
     }
 }
-
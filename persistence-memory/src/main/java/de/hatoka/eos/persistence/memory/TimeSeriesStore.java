@@ -0,0 +1,326 @@
+package de.hatoka.eos.persistence.memory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * TimeSeriesStore keeps values by epoch milli seconds in day buckets (UTC). Each bucket holds sorted primitive time stamps and the values in
+ * arrays, buckets are replaced on change (copy on write, appended values share the arrays), so readers never lock. The buckets are sorted by day for range scans and
+ * floor/ceiling lookups. With a retention, days before the retention window are evicted on writes.
+ *
+ * @param <V> value type
+ */
+public class TimeSeriesStore<V>
+{
+    /**
+     * Receives entries of a range without boxing the time.
+     *
+     * @param <V> value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V>
+    {
+        void accept(long epochMillis, V value);
+    }
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    /**
+     * Sorted entries of one day. The entries up to size are immutable, the arrays may have spare capacity: a bucket appends an entry after its
+     * last entry into the spare capacity and the new bucket shares the arrays. Only the current bucket of a day is changed, buckets of readers
+     * never see the appended entries.
+     */
+    private record DayBucket(long[] times, Object[] values, int size)
+    {
+        private static final int MIN_CAPACITY = 4;
+
+        private int indexOf(long time)
+        {
+            return Arrays.binarySearch(times, 0, size, time);
+        }
+
+        private DayBucket with(long time, Object value)
+        {
+            int index = indexOf(time);
+            if (index >= 0)
+            {
+                Object[] newValues = values.clone();
+                newValues[index] = value;
+                return new DayBucket(times, newValues, size);
+            }
+            int insert = -index - 1;
+            if (insert == size && size < times.length)
+            {
+                // append, amortized constant time for values in order of time
+                times[size] = time;
+                values[size] = value;
+                return new DayBucket(times, values, size + 1);
+            }
+            int capacity = insert == size ? Math.max(MIN_CAPACITY, size * 2) : size + 1;
+            long[] newTimes = new long[capacity];
+            Object[] newValues = new Object[capacity];
+            System.arraycopy(times, 0, newTimes, 0, insert);
+            System.arraycopy(values, 0, newValues, 0, insert);
+            newTimes[insert] = time;
+            newValues[insert] = value;
+            System.arraycopy(times, insert, newTimes, insert + 1, size - insert);
+            System.arraycopy(values, insert, newValues, insert + 1, size - insert);
+            return new DayBucket(newTimes, newValues, size + 1);
+        }
+
+        /**
+         * The times of the entries are sorted once and merged with the entries of this bucket into one new bucket.
+         */
+        private DayBucket withAll(Map<Long, ?> entries)
+        {
+            long[] addedTimes = new long[entries.size()];
+            int added = 0;
+            for (Long time : entries.keySet())
+            {
+                addedTimes[added++] = time;
+            }
+            Arrays.sort(addedTimes);
+            long[] newTimes = new long[size + added];
+            Object[] newValues = new Object[newTimes.length];
+            int newSize = 0;
+            int index = 0;
+            for (long time : addedTimes)
+            {
+                while(index < size && times[index] < time)
+                {
+                    newTimes[newSize] = times[index];
+                    newValues[newSize++] = values[index++];
+                }
+                if (index < size && times[index] == time)
+                {
+                    // replaced
+                    index++;
+                }
+                newTimes[newSize] = time;
+                newValues[newSize++] = entries.get(time);
+            }
+            System.arraycopy(times, index, newTimes, newSize, size - index);
+            System.arraycopy(values, index, newValues, newSize, size - index);
+            newSize += size - index;
+            return new DayBucket(newTimes, newValues, newSize);
+        }
+
+        /**
+         * @return bucket without the entries in range, null if the bucket is empty
+         */
+        private DayBucket without(long from, long to)
+        {
+            int first = lowerBound(from);
+            int last = lowerBound(to);
+            if (first >= last)
+            {
+                return this;
+            }
+            int removed = last - first;
+            if (removed == size)
+            {
+                return null;
+            }
+            long[] newTimes = new long[size - removed];
+            Object[] newValues = new Object[size - removed];
+            System.arraycopy(times, 0, newTimes, 0, first);
+            System.arraycopy(values, 0, newValues, 0, first);
+            System.arraycopy(times, last, newTimes, first, size - last);
+            System.arraycopy(values, last, newValues, first, size - last);
+            return new DayBucket(newTimes, newValues, newTimes.length);
+        }
+
+        /**
+         * @return first index with time not before given time
+         */
+        private int lowerBound(long time)
+        {
+            int index = indexOf(time);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static final DayBucket EMPTY = new DayBucket(new long[0], new Object[0], 0);
+
+    private final ConcurrentSkipListMap<Long, DayBucket> days = new ConcurrentSkipListMap<>();
+    private final long retentionDays;
+    private final Clock clock;
+
+    /**
+     * @param retention time to keep values before the current day, zero keeps all values
+     * @param clock clock for retention
+     */
+    public TimeSeriesStore(Duration retention, Clock clock)
+    {
+        this.retentionDays = retention.isZero() ? 0 : Math.max(1, retention.toDays());
+        this.clock = clock;
+    }
+
+    private static long dayOf(long epochMillis)
+    {
+        return Math.floorDiv(epochMillis, DAY_MILLIS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(DayBucket bucket, int index)
+    {
+        return (V)bucket.values()[index];
+    }
+
+    /**
+     * @param epochMillis time of value
+     * @return value or null
+     */
+    public V get(long epochMillis)
+    {
+        DayBucket bucket = days.get(dayOf(epochMillis));
+        if (bucket == null)
+        {
+            return null;
+        }
+        int index = bucket.indexOf(epochMillis);
+        return index < 0 ? null : value(bucket, index);
+    }
+
+    /**
+     * Appending values in order of time takes amortized constant time, values inserted before the last value of their day copy the day. Use
+     * {@link #putAll(Map)} for many values in another order.
+     *
+     * @param epochMillis time of value
+     * @param value value
+     */
+    public void put(long epochMillis, V value)
+    {
+        days.compute(dayOf(epochMillis), (day, bucket) -> (bucket == null ? EMPTY : bucket).with(epochMillis, value));
+        evict();
+    }
+
+    /**
+     * Inserts the values day by day.
+     *
+     * @param values values by epoch milli seconds
+     */
+    public void putAll(Map<Long, V> values)
+    {
+        Map<Long, Map<Long, V>> valuesPerDay = new HashMap<>();
+        values.forEach((time, value) -> valuesPerDay.computeIfAbsent(dayOf(time), d -> new HashMap<>()).put(time, value));
+        valuesPerDay.forEach((day, dayValues) -> days.compute(day, (d, bucket) -> (bucket == null ? EMPTY : bucket).withAll(dayValues)));
+        evict();
+    }
+
+    public void remove(long epochMillis)
+    {
+        removeRange(epochMillis, epochMillis + 1);
+    }
+
+    /**
+     * @param fromMillis start of range (inclusive)
+     * @param toMillis end of range (exclusive)
+     */
+    public void removeRange(long fromMillis, long toMillis)
+    {
+        if (fromMillis >= toMillis)
+        {
+            return;
+        }
+        for (Long day : days.subMap(dayOf(fromMillis), true, dayOf(toMillis - 1), true).keySet())
+        {
+            days.computeIfPresent(day, (d, bucket) -> bucket.without(fromMillis, toMillis));
+        }
+    }
+
+    /**
+     * @param fromMillis start of range (inclusive)
+     * @param toMillis end of range (exclusive)
+     * @param consumer receives the entries in order of time
+     */
+    public void forEachInRange(long fromMillis, long toMillis, EntryConsumer<V> consumer)
+    {
+        if (fromMillis >= toMillis)
+        {
+            return;
+        }
+        for (DayBucket bucket : days.subMap(dayOf(fromMillis), true, dayOf(toMillis - 1), true).values())
+        {
+            for (int i = bucket.lowerBound(fromMillis); i < bucket.size() && bucket.times()[i] < toMillis; i++)
+            {
+                consumer.accept(bucket.times()[i], value(bucket, i));
+            }
+        }
+    }
+
+    /**
+     * @param epochMillis time
+     * @return entry with the greatest time less than or equal to the given time, null if there is none
+     */
+    public Map.Entry<Long, V> floor(long epochMillis)
+    {
+        Map.Entry<Long, DayBucket> day = days.floorEntry(dayOf(epochMillis));
+        while(day != null)
+        {
+            DayBucket bucket = day.getValue();
+            int index = bucket.indexOf(epochMillis);
+            int floor = index >= 0 ? index : -index - 2;
+            if (floor >= 0)
+            {
+                return new AbstractMap.SimpleImmutableEntry<>(bucket.times()[floor], value(bucket, floor));
+            }
+            day = days.lowerEntry(day.getKey());
+        }
+        return null;
+    }
+
+    /**
+     * @param epochMillis time
+     * @return entry with the least time greater than or equal to the given time, null if there is none
+     */
+    public Map.Entry<Long, V> ceiling(long epochMillis)
+    {
+        Map.Entry<Long, DayBucket> day = days.ceilingEntry(dayOf(epochMillis));
+        while(day != null)
+        {
+            DayBucket bucket = day.getValue();
+            int ceiling = bucket.lowerBound(epochMillis);
+            if (ceiling < bucket.size())
+            {
+                return new AbstractMap.SimpleImmutableEntry<>(bucket.times()[ceiling], value(bucket, ceiling));
+            }
+            day = days.higherEntry(day.getKey());
+        }
+        return null;
+    }
+
+    /**
+     * @return number of stored values
+     */
+    public int size()
+    {
+        return days.values().stream().mapToInt(DayBucket::size).sum();
+    }
+
+    /**
+     * @return number of stored days
+     */
+    public int getDays()
+    {
+        return days.size();
+    }
+
+    public void clear()
+    {
+        days.clear();
+    }
+
+    private void evict()
+    {
+        if (retentionDays > 0)
+        {
+            days.headMap(dayOf(clock.millis()) - retentionDays).clear();
+        }
+    }
+}
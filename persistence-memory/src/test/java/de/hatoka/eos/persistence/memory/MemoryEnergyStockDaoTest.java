@@ -8,6 +8,9 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -87,5 +90,53 @@ class MemoryEnergyStockDaoTest
         assertNull(dao.get(key1));
         assertNull(dao.get(key2));
     }
-}
 
+    @Test
+    void testGetRange()
+    {
+        // Given
+        dao.clear();
+        ZonedDateTime start = ZonedDateTime.parse("2025-03-01T00:00:00Z");
+        for (int i = 3; i >= 0; i--)
+        {
+            EnergyStockPO data = new EnergyStockPO();
+            data.setDayAheadPrice(Money.ofEur(0.10 + i / 100.0));
+            dao.update(EnergyStockKey.valueOf(start.plusMinutes(15 * i)), data);
+        }
+
+        // When
+        Map<EnergyStockKey, EnergyStockPO> result = dao.getRange(EnergyStockKey.valueOf(start.plusMinutes(15)),
+                        EnergyStockKey.valueOf(start.plusMinutes(45)));
+
+        // Then - ordered by time, end exclusive
+        assertEquals(List.of(EnergyStockKey.valueOf(start.plusMinutes(15)), EnergyStockKey.valueOf(start.plusMinutes(30))),
+                        List.copyOf(result.keySet()));
+        assertEquals(0.11, result.get(EnergyStockKey.valueOf(start.plusMinutes(15))).getDayAheadPrice().amount().doubleValue(), 0.001);
+        assertTrue(dao.getRange(EnergyStockKey.valueOf(start.plusHours(1)), EnergyStockKey.valueOf(start)).isEmpty());
+    }
+
+    @Test
+    void testUpdateAllAndDeleteRange()
+    {
+        // Given
+        dao.clear();
+        ZonedDateTime start = ZonedDateTime.parse("2025-03-01T00:00:00Z");
+        Map<EnergyStockKey, EnergyStockPO> prices = new HashMap<>();
+        for (int i = 0; i < 672; i++)
+        {
+            EnergyStockPO data = new EnergyStockPO();
+            data.setDayAheadPrice(Money.ofEur(0.10));
+            prices.put(EnergyStockKey.valueOf(start.plusMinutes(15 * i)), data);
+        }
+
+        // When
+        dao.updateAll(prices);
+        dao.deleteRange(EnergyStockKey.valueOf(start.plusDays(1)), EnergyStockKey.valueOf(start.plusDays(2)));
+
+        // Then
+        assertEquals(672 - 96, dao.getRange(EnergyStockKey.valueOf(start), EnergyStockKey.valueOf(start.plusDays(7))).size());
+        assertNotNull(dao.get(EnergyStockKey.valueOf(start.plusDays(1).minusMinutes(15))));
+        assertNull(dao.get(EnergyStockKey.valueOf(start.plusDays(1))));
+        assertNotNull(dao.get(EnergyStockKey.valueOf(start.plusDays(2))));
+    }
+}
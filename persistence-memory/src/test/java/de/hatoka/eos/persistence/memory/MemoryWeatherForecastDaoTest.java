@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.ZonedDateTime;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -107,5 +108,34 @@ class MemoryWeatherForecastDaoTest
         assertNull(dao.get(key1));
         assertNull(dao.get(key2));
     }
-}
 
+    @Test
+    void testGetRange()
+    {
+        // Given
+        dao.clear();
+        ZonedDateTime start = ZonedDateTime.parse("2025-03-01T00:00:00Z");
+        for (int hour = 0; hour < 4; hour++)
+        {
+            WeatherForecastPO data = new WeatherForecastPO();
+            data.setSunProbability(new Percentage(hour / 10.0));
+            dao.update(WeatherForecastKey.valueOf(WeatherStation.APOLDA, start.plusHours(hour), WeatherDataSource.OPENMETEO), data);
+            dao.update(WeatherForecastKey.valueOf(WeatherStation.APOLDA, start.plusHours(hour), WeatherDataSource.TEST), data);
+        }
+
+        // When
+        Map<WeatherForecastKey, WeatherForecastPO> result = dao.getRange(
+                        WeatherForecastKey.valueOf(WeatherStation.APOLDA, start, WeatherDataSource.OPENMETEO),
+                        WeatherForecastKey.valueOf(WeatherStation.APOLDA, start.plusHours(3), WeatherDataSource.OPENMETEO));
+
+        // Then - only the requested source, ordered by time, end exclusive
+        assertEquals(3, result.size());
+        int hour = 0;
+        for (Map.Entry<WeatherForecastKey, WeatherForecastPO> entry : result.entrySet())
+        {
+            assertEquals(WeatherForecastKey.valueOf(WeatherStation.APOLDA, start.plusHours(hour), WeatherDataSource.OPENMETEO), entry.getKey());
+            assertEquals(hour / 10.0, entry.getValue().getSunProbability().value(), 0.001);
+            hour++;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.hatoka.eos.persistence.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesStoreTest
+{
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+    private static final long START = Instant.parse("2025-03-01T00:00:00Z").toEpochMilli();
+
+    private final TimeSeriesStore<String> store = new TimeSeriesStore<>(Duration.ZERO, Clock.fixed(NOW, ZoneId.of("UTC")));
+
+    @Test
+    void testPutAndGet()
+    {
+        // Given - inserted out of order
+        store.put(START + 2 * HOUR, "2");
+        store.put(START, "0");
+        store.put(START + HOUR, "1");
+        store.put(START + HOUR, "1b");
+
+        // Then
+        assertEquals("0", store.get(START));
+        assertEquals("1b", store.get(START + HOUR));
+        assertNull(store.get(START + 3 * HOUR));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void testAppendDoesNotChangeEarlierSnapshot()
+    {
+        // Given - a reader iterates the day while values are appended and replaced
+        long second = 1000;
+        store.put(START, "0");
+        List<String> read = new ArrayList<>();
+
+        // When
+        store.forEachInRange(START, START + DAY, (time, value) -> {
+            read.add(value);
+            if (read.size() == 1)
+            {
+                store.put(START + second, "1");
+                store.put(START, "0b");
+            }
+        });
+        for (int i = 2; i < 86_400; i++)
+        {
+            store.put(START + i * second, Integer.toString(i));
+        }
+
+        // Then
+        assertEquals(List.of("0"), read);
+        assertEquals("0b", store.get(START));
+        assertEquals("86399", store.get(START + 86_399 * second));
+        assertEquals(86_400, store.size());
+    }
+
+    @Test
+    void testPutAllMergesWithExistingValues()
+    {
+        // Given - every second hour of a day
+        for (int hour = 0; hour < 24; hour += 2)
+        {
+            store.put(START + hour * HOUR, "old " + hour);
+        }
+        Map<Long, String> values = new HashMap<>();
+        for (int hour = 9; hour < 24; hour++)
+        {
+            values.put(START + hour * HOUR, String.valueOf(hour));
+        }
+
+        // When
+        store.putAll(values);
+
+        // Then
+        List<String> result = new ArrayList<>();
+        store.forEachInRange(START + 6 * HOUR, START + 12 * HOUR, (time, value) -> result.add(value));
+        assertEquals(List.of("old 6", "old 8", "9", "10", "11"), result);
+        assertEquals("23", store.get(START + 23 * HOUR));
+        assertEquals(5 + 15, store.size());
+    }
+
+    @Test
+    void testRangeAcrossDays()
+    {
+        // Given - hourly values of three days
+        Map<Long, String> values = new HashMap<>();
+        for (int hour = 0; hour < 72; hour++)
+        {
+            values.put(START + hour * HOUR, String.valueOf(hour));
+        }
+        store.putAll(values);
+
+        // When
+        List<String> result = new ArrayList<>();
+        store.forEachInRange(START + 22 * HOUR, START + 26 * HOUR, (time, value) -> result.add(value));
+
+        // Then
+        assertEquals(List.of("22", "23", "24", "25"), result);
+        assertEquals(3, store.getDays());
+
+        // When - remove across day boundary
+        store.removeRange(START + 12 * HOUR, START + 48 * HOUR);
+
+        // Then
+        assertEquals(72 - 36, store.size());
+        assertEquals("11", store.get(START + 11 * HOUR));
+        assertNull(store.get(START + 24 * HOUR));
+        assertEquals(2, store.getDays());
+    }
+
+    @Test
+    void testFloorAndCeiling()
+    {
+        // Given - gap of one day
+        store.put(START + 20 * HOUR, "first");
+        store.put(START + 2 * DAY + 4 * HOUR, "second");
+
+        // Then
+        assertEquals(Map.entry(START + 20 * HOUR, "first"), store.floor(START + DAY + 10 * HOUR));
+        assertEquals(Map.entry(START + 2 * DAY + 4 * HOUR, "second"), store.ceiling(START + DAY + 10 * HOUR));
+        assertEquals(Map.entry(START + 20 * HOUR, "first"), store.floor(START + 20 * HOUR));
+        assertNull(store.floor(START));
+        assertNull(store.ceiling(START + 3 * DAY));
+    }
+
+    @Test
+    void testRetention()
+    {
+        TimeSeriesStore<String> limited = new TimeSeriesStore<>(Duration.ofDays(2), Clock.fixed(NOW, ZoneId.of("UTC")));
+        long today = NOW.toEpochMilli();
+
+        // When
+        limited.put(today - 5 * DAY, "old");
+        limited.put(today - 2 * DAY, "kept");
+        limited.put(today + DAY, "forecast");
+
+        // Then
+        assertNull(limited.get(today - 5 * DAY));
+        assertEquals("kept", limited.get(today - 2 * DAY));
+        assertEquals("forecast", limited.get(today + DAY));
+    }
+}
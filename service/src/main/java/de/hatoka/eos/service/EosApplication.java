@@ -5,6 +5,8 @@ import io.quarkus.runtime.QuarkusApplication;
 import io.quarkus.runtime.annotations.QuarkusMain;
 import jakarta.inject.Inject;
 
+import java.time.LocalDate;
+
 @QuarkusMain
 public class EosApplication implements QuarkusApplication
 {
@@ -21,6 +23,12 @@ public class EosApplication implements QuarkusApplication
     @Override
     public int run(String... args) throws Exception
     {
+        if (args.length == 3 && "backfill".equals(args[0]))
+        {
+            // backfill <from> <to>, e.g. backfill 2023-01-01 2025-06-30
+            forecast.backfill(LocalDate.parse(args[1]), LocalDate.parse(args[2]));
+            return 0;
+        }
         // forecast.run();
         simulation.run();
         return 0;
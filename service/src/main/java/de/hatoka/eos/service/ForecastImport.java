@@ -1,15 +1,23 @@
 package de.hatoka.eos.service;
 
+import de.hatoka.eos.forecast.ForecastImportPipeline;
+import de.hatoka.eos.forecast.ImportTask;
+import de.hatoka.eos.forecast.WriteStatistics;
+import de.hatoka.eos.forecast.energycharts.EnergyChartsBackfill;
 import de.hatoka.eos.forecast.energycharts.EnergyChartsImporter;
 import de.hatoka.eos.forecast.openmeteo.OpenMeteoWeatherForecastImporter;
 import de.hatoka.eos.persistence.capi.weather.WeatherStation;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Singleton
 public class ForecastImport
@@ -20,18 +28,50 @@ public class ForecastImport
     OpenMeteoWeatherForecastImporter openMeteoImporter;
     @Inject
     EnergyChartsImporter energyChartsImporter;
+    @Inject
+    ForecastImportPipeline pipeline;
+    @Inject
+    EnergyChartsBackfill energyChartsBackfill;
+
+    /**
+     * Number of weeks of stock prices to import, including the current week
+     */
+    @ConfigProperty(name = "eos.forecast.import.price-weeks", defaultValue = "1")
+    int priceWeeks;
 
     public void run() throws Exception
     {
-        logger.info("Importing stock from Energy Charts...");
         ZonedDateTime startDate = ZonedDateTime.now().toLocalDate().atStartOfDay(ZoneId.of("UTC"));
-        energyChartsImporter.importStockData(startDate);
-        logger.info("Importing from Energy Charts finished.");
+        List<ImportTask<?, ?>> tasks = new ArrayList<>();
+        // stock from Energy Charts (per week)
+        for (int week = 0; week < priceWeeks; week++)
+        {
+            tasks.add(energyChartsImporter.createImportTask(startDate.minusWeeks(week)));
+        }
+        // weather from OpenMeteo (can import up to 3 days)
+        for (WeatherStation station : WeatherStation.values())
+        {
+            tasks.add(openMeteoImporter.createImportTask(station, startDate));
+        }
+        logger.info("Importing {} forecasts...", tasks.size());
+        List<ForecastImportPipeline.Result> results = pipeline.run(tasks);
+        long failed = results.stream().filter(r -> !r.isSuccessful()).count();
+        WriteStatistics statistics = results.stream()
+                                            .map(ForecastImportPipeline.Result::statistics)
+                                            .reduce(WriteStatistics.NONE, WriteStatistics::add);
+        logger.info("Import finished, {} of {} forecasts failed, {}.", failed, results.size(), statistics);
+    }
 
-        // Import from OpenMeteo (can import up to 3 days)
-        logger.debug("Importing from weather from OpenMeteo...");
-        openMeteoImporter.importWeatherForecast(WeatherStation.APOLDA, startDate);
-        openMeteoImporter.importWeatherForecast(WeatherStation.LEIPZIG_STADTWERKE, startDate);
-        logger.info("Import from OpenMeteo finished.");
+    /**
+     * Imports the stock prices of all weeks of the range, resumes an interrupted backfill.
+     *
+     * @param from first day
+     * @param to last day (inclusive)
+     */
+    public void backfill(LocalDate from, LocalDate to) throws Exception
+    {
+        EnergyChartsBackfill.Result result = energyChartsBackfill.backfill(from, to);
+        logger.info("Backfill of stock prices finished, {} weeks imported, {} skipped, {} failed.", result.imported(), result.skipped(),
+                        result.failed());
     }
 }
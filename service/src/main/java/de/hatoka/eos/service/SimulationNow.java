@@ -2,7 +2,9 @@ package de.hatoka.eos.service;
 
 import de.hatoka.eos.simulation.capi.business.config.InstallationConfig;
 import de.hatoka.eos.simulation.capi.business.device.DeviceFactory;
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecastFactory;
 import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecastLoader;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
 import de.hatoka.eos.simulation.capi.business.simulation.Simulator;
@@ -29,6 +31,15 @@ public class SimulationNow
     private ConfigurationLoader configurationLoader;
     @Inject
     private Simulator simulator;
+    @Inject
+    private WeatherForecastLoader weatherForecastLoader;
+    @Inject
+    private EnergyPriceForecastFactory priceForecastFactory;
+
+    /**
+     * Time zone of the dates of price resources (stock prices of DE-LU)
+     */
+    private static final ZoneId PRICE_ZONE = ZoneId.of("Europe/Berlin");
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimulationNow.class);
 
@@ -43,7 +54,9 @@ public class SimulationNow
         ZonedDateTime endDate = startDate.plusDays(1);
         Duration stepDuration = Duration.ofMinutes(15);
 
-        SimulationRequest request = new SimulationRequest("today-energy-simulation", startDate, endDate, stepDuration, deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), Forecasts.STANDARD);
+        Forecasts forecasts = new Forecasts(weatherForecastLoader.load(config.getWeatherStation(), startDate, endDate),
+                        priceForecastFactory.create(config.getGrid(), PRICE_ZONE));
+        SimulationRequest request = new SimulationRequest("today-energy-simulation", startDate, endDate, stepDuration, deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), forecasts);
         SimulationResult result = simulator.simulate(request);
         LOGGER.info("Simulation finished with revenue {}", result.system().getEnergyRevenue());
     }
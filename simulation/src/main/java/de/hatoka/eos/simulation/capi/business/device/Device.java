@@ -1,6 +1,7 @@
 package de.hatoka.eos.simulation.capi.business.device;
 
 import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
 
@@ -11,8 +12,24 @@ public interface Device
 {
     SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState);
 
+    /**
+     * Simulates the step on the mutable energy system of the simulation engine. Devices should override this method to avoid the creation of
+     * intermediate {@link EnergySystem} records.
+     *
+     * @param step simulation step
+     * @param system energy system of the running simulation, will be updated by the device
+     * @param deviceState state of device before the step
+     * @return state of device after the step
+     */
+    default DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState)
+    {
+        SimulationStepResult result = simulate(step, system.toEnergySystem(), deviceState);
+        system.set(result.system());
+        return result.deviceState();
+    }
+
     default DeviceState getInitialState()
     {
         return DeviceState.NO_STORAGE;
     }
-}
\ No newline at end of file
+}
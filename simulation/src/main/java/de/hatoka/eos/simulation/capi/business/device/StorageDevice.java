@@ -0,0 +1,22 @@
+package de.hatoka.eos.simulation.capi.business.device;
+
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
+
+/**
+ * Device with an energy storage (e.g. battery, car). The simulation engine keeps the state of charge of storage devices as primitive value per
+ * device, so a step doesn't create {@link DeviceState} records.
+ */
+public interface StorageDevice extends Device
+{
+    /**
+     * Simulates the step on the primitive state of the storage.
+     *
+     * @param step simulation step
+     * @param system energy system of the running simulation, will be updated by the device
+     * @param maxEnergy capacity of the storage (kWh)
+     * @param stateOfCharge stored energy as fraction of the capacity before the step
+     * @return stored energy as fraction of the capacity after the step
+     */
+    double simulate(SimulationStep step, EnergySystemAccumulator system, double maxEnergy, double stateOfCharge);
+}
@@ -1,5 +1,7 @@
 package de.hatoka.eos.simulation.capi.business.forecast;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.FixedMoney;
 import de.hatoka.eos.units.capi.Money;
 
 import java.time.ZonedDateTime;
@@ -21,4 +23,42 @@ public interface EnergyPriceForecast
      * @return price to export/produced/feed-in of energy to the grid (price per kWH)
      */
     Money getExportPrice(ZonedDateTime time);
+
+    /**
+     * @param time time stamp
+     * @return import price as fixed point value, providers with constant prices should override this method to avoid conversions
+     */
+    default FixedMoney getFixedImportPrice(ZonedDateTime time)
+    {
+        return FixedMoney.valueOf(getImportPrice(time));
+    }
+
+    /**
+     * @param time time stamp
+     * @return export price as fixed point value, providers with constant prices should override this method to avoid conversions
+     */
+    default FixedMoney getFixedExportPrice(ZonedDateTime time)
+    {
+        return FixedMoney.valueOf(getExportPrice(time));
+    }
+
+    /**
+     * @param timeGrid time grid of simulation
+     * @param index step index
+     * @return import price at the start of the step as fixed point value
+     */
+    default FixedMoney getFixedImportPrice(TimeGrid timeGrid, int index)
+    {
+        return getFixedImportPrice(timeGrid.getDateTime(index));
+    }
+
+    /**
+     * @param timeGrid time grid of simulation
+     * @param index step index
+     * @return export price at the start of the step as fixed point value
+     */
+    default FixedMoney getFixedExportPrice(TimeGrid timeGrid, int index)
+    {
+        return getFixedExportPrice(timeGrid.getDateTime(index));
+    }
 }
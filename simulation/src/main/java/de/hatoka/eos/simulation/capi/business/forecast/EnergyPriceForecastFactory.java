@@ -0,0 +1,23 @@
+package de.hatoka.eos.simulation.capi.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.config.GridConfig;
+
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * EnergyPriceForecastFactory creates the price forecast of the grid configuration of an installation.
+ */
+public interface EnergyPriceForecastFactory
+{
+    /**
+     * Creates the forecast selected by the type of the configuration. Resources (e.g. CSV files) are loaded on each call, so the forecast
+     * should be created once per simulation.
+     *
+     * @param config grid configuration, flat prices are used if there is no configuration or no type
+     * @param zone time zone of the dates in the price resources
+     * @return price forecast
+     * @throws IOException if a price resource can't be read
+     */
+    EnergyPriceForecast create(GridConfig config, ZoneId zone) throws IOException;
+}
@@ -1,7 +1,10 @@
 package de.hatoka.eos.simulation.capi.business.forecast;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.simulation.internal.business.forecast.FlatPriceService;
 import de.hatoka.eos.simulation.internal.business.forecast.FlatWeatherService;
+import de.hatoka.eos.simulation.internal.business.forecast.MaterializedPriceForecast;
+import de.hatoka.eos.simulation.internal.business.forecast.MaterializedWeatherForecast;
 
 /**
  * Collection of all forecasts
@@ -11,4 +14,16 @@ import de.hatoka.eos.simulation.internal.business.forecast.FlatWeatherService;
 public record Forecasts(WeatherForecast weather, EnergyPriceForecast priceForecast)
 {
     public static final Forecasts STANDARD = new Forecasts(FlatWeatherService.FULL_FROM_7_to_18, FlatPriceService.GERMAN_RESIDENTIAL);
+
+    /**
+     * Samples all forecasts once at the steps of the time grid. The result is immutable and can be shared by many simulations of the same
+     * horizon (e.g. optimizer candidates), the forecast sources are not requested again for these steps.
+     *
+     * @param timeGrid steps of the simulation horizon
+     * @return forecasts with sampled series
+     */
+    public Forecasts materialize(TimeGrid timeGrid)
+    {
+        return new Forecasts(MaterializedWeatherForecast.valueOf(weather, timeGrid), MaterializedPriceForecast.valueOf(priceForecast, timeGrid));
+    }
 }
@@ -1,5 +1,6 @@
 package de.hatoka.eos.simulation.capi.business.forecast;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.units.capi.Percentage;
 
 import java.time.ZonedDateTime;
@@ -16,4 +17,25 @@ public interface WeatherForecast
      * @return probability how much sun energy can be collected by the panel (in optimal position with 100% efficiency)
      */
     Percentage getSunProbability(ZonedDateTime time);
-}
\ No newline at end of file
+
+    /**
+     * Provides the sun probability by step of the simulation, forecasts can override this method to avoid date time calculations.
+     * @param timeGrid time grid of simulation
+     * @param index step index
+     * @return probability how much sun energy can be collected by the panel at the start of the step
+     */
+    default Percentage getSunProbability(TimeGrid timeGrid, int index)
+    {
+        return getSunProbability(timeGrid.getDateTime(index));
+    }
+
+    /**
+     * @param timeGrid time grid of simulation
+     * @param index step index
+     * @return sun probability at the start of the step as fraction (0..1)
+     */
+    default double getSunFraction(TimeGrid timeGrid, int index)
+    {
+        return getSunProbability(timeGrid, index).toFraction();
+    }
+}
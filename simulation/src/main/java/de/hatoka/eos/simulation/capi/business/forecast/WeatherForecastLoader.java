@@ -0,0 +1,21 @@
+package de.hatoka.eos.simulation.capi.business.forecast;
+
+import de.hatoka.eos.persistence.capi.weather.WeatherStation;
+
+import java.time.ZonedDateTime;
+
+/**
+ * WeatherForecastLoader provides the stored weather forecast of a station for a simulation horizon.
+ */
+public interface WeatherForecastLoader
+{
+    /**
+     * Loads the forecast of the horizon once, the simulation steps don't access the storage.
+     *
+     * @param station weather station of the installation
+     * @param startDate start of horizon
+     * @param endDate end of horizon
+     * @return weather forecast of the station
+     */
+    WeatherForecast load(WeatherStation station, ZonedDateTime startDate, ZonedDateTime endDate);
+}
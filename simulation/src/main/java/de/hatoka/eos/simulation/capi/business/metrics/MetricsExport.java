@@ -0,0 +1,20 @@
+package de.hatoka.eos.simulation.capi.business.metrics;
+
+/**
+ * Defines which metrics of a simulation run are passed to the {@link SimulationMetricsExporter}.
+ */
+public enum MetricsExport
+{
+    /**
+     * No export, e.g. for evaluations of an optimizer
+     */
+    NONE,
+    /**
+     * One result for the whole horizon of the simulation
+     */
+    SUMMARY,
+    /**
+     * One result per simulation step
+     */
+    FULL
+}
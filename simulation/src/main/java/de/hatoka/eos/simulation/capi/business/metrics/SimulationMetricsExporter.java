@@ -1,16 +1,37 @@
 package de.hatoka.eos.simulation.capi.business.metrics;
 
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
 
 /**
- * Interface for exporting simulation metrics to time-series databases like InfluxDB.
+ * Interface for exporting simulation metrics to time-series databases like InfluxDB. A simulation run calls
+ * {@link #beginSimulation(SimulationRequest)} once, {@link #exportMetrics(SimulationResult)} for each step and
+ * {@link #endSimulation(SimulationRequest)} once at the end (also if the simulation fails).
  */
 public interface SimulationMetricsExporter
 {
+    /**
+     * Prepares the export of a simulation run, e.g. removes metrics of a former run with the same simulation id.
+     *
+     * @param request simulation request (id and horizon of the run)
+     */
+    default void beginSimulation(SimulationRequest request)
+    {
+    }
+
     /**
      * Exports simulation results as time-series metrics.
      *
      * @param result simulation result containing energy flow data
      */
     void exportMetrics(SimulationResult result);
-}
\ No newline at end of file
+
+    /**
+     * Completes the export of a simulation run, e.g. flushes pending metrics.
+     *
+     * @param request simulation request (id and horizon of the run)
+     */
+    default void endSimulation(SimulationRequest request)
+    {
+    }
+}
@@ -3,6 +3,7 @@ package de.hatoka.eos.simulation.capi.business.simulation;
 import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
 
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
@@ -13,13 +14,24 @@ import java.util.Map;
 public interface DeviceManipulator
 {
     /**
-     * Changes the configuration of a device temporarily.
+     * Changes the configuration of a device temporarily. The simulation passes a modifiable view on its devices, so manipulators should
+     * replace changed devices with {@link Map#put(Object, Object)} and return the given map; a returned other map is bound to the
+     * simulation again.
      * @param time time of simulation
      * @param devices existing devices
      * @return manipulated devices
      */
     Map<DeviceRef, Device> apply(ZonedDateTime time, Map<DeviceRef, Device> devices);
 
+    /**
+     * The manipulator doesn't change any device before this time, so a simulation can resume from a checkpoint before.
+     * @return first time the manipulator changes devices
+     */
+    default Instant getEffectiveFrom()
+    {
+        return Instant.MIN;
+    }
+
     /**
      * @return a list of neighbors
      */
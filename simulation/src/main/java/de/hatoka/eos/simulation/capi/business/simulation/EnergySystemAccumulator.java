@@ -0,0 +1,241 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Money;
+
+/**
+ * EnergySystemAccumulator is the mutable counterpart of {@link EnergySystem}. The simulation threads one accumulator through all devices of a
+ * step, so the devices don't create a new record for each energy flow. Energy values are kept as kWh, revenues as micro-cents (see
+ * {@link FixedMoney}). Use {@link #toEnergySystem()} to get the
+ * immutable view at step boundaries. The accumulator is not thread safe, each simulation run owns its accumulator.
+ */
+public class EnergySystemAccumulator
+{
+    private double produced;
+    private double charged;
+    private double discharged;
+    private double consumed;
+    private double imported;
+    private double exported;
+    private long importRevenue;
+    private String importCurrency;
+    private long exportRevenue;
+    private String exportCurrency;
+
+    public EnergySystemAccumulator()
+    {
+        this(EnergySystem.INIT);
+    }
+
+    public EnergySystemAccumulator(EnergySystem system)
+    {
+        set(system);
+    }
+
+    /**
+     * @param system initial state
+     * @return accumulator starting at the given system
+     */
+    public static EnergySystemAccumulator valueOf(EnergySystem system)
+    {
+        return new EnergySystemAccumulator(system);
+    }
+
+    /**
+     * Replaces the complete state of the accumulator.
+     *
+     * @param system new state
+     */
+    public void set(EnergySystem system)
+    {
+        produced = system.produced().amount();
+        charged = system.charged().amount();
+        discharged = system.discharged().amount();
+        consumed = system.consumed().amount();
+        imported = system.imported().amount();
+        exported = system.exported().amount();
+        FixedMoney fixedImportRevenue = FixedMoney.valueOf(system.importRevenue());
+        importRevenue = fixedImportRevenue.microCents();
+        importCurrency = fixedImportRevenue.currencyMnemonic();
+        FixedMoney fixedExportRevenue = FixedMoney.valueOf(system.exportRevenue());
+        exportRevenue = fixedExportRevenue.microCents();
+        exportCurrency = fixedExportRevenue.currencyMnemonic();
+    }
+
+    /**
+     * Produces energy in the system, like a solar panel.
+     *
+     * @param kwh add energy to the system
+     */
+    public void produce(double kwh)
+    {
+        produced += kwh;
+    }
+
+    /**
+     * Energy is provided by a device, like a battery being discharged.
+     *
+     * @param kwh add energy to the system
+     */
+    public void discharge(double kwh)
+    {
+        discharged += kwh;
+    }
+
+    /**
+     * Energy is used to charge a device, like a battery being charged.
+     *
+     * @param kwh removes energy from the system
+     */
+    public void charge(double kwh)
+    {
+        charged += kwh;
+    }
+
+    /**
+     * Consumes energy in the system, like a device using power.
+     *
+     * @param kwh remove energy from the system
+     */
+    public void consume(double kwh)
+    {
+        consumed += kwh;
+    }
+
+    /**
+     * Imports energy into the system, like a grid connection.
+     *
+     * @param kwh add energy to the system
+     * @param costsFromGrid costs for importing the energy (positive value)
+     */
+    public void importEnergy(double kwh, Money costsFromGrid)
+    {
+        FixedMoney costs = FixedMoney.valueOf(costsFromGrid);
+        checkCurrency(importCurrency, costs);
+        imported += kwh;
+        importRevenue = Math.subtractExact(importRevenue, costs.microCents());
+    }
+
+    /**
+     * Imports energy into the system, the costs are calculated in fixed point arithmetic.
+     *
+     * @param kwh add energy to the system
+     * @param pricePerKwh import price of the energy (positive value)
+     */
+    public void importEnergyAtPrice(double kwh, FixedMoney pricePerKwh)
+    {
+        checkCurrency(importCurrency, pricePerKwh);
+        imported += kwh;
+        importRevenue = Math.subtractExact(importRevenue, FixedMoney.multiply(pricePerKwh.microCents(), kwh));
+    }
+
+    /**
+     * Exports energy from the system, like a grid connection.
+     *
+     * @param kwh remove energy from the system
+     * @param receivedFromGrid money received from the grid for exported energy (positive value)
+     */
+    public void exportEnergy(double kwh, Money receivedFromGrid)
+    {
+        FixedMoney received = FixedMoney.valueOf(receivedFromGrid);
+        checkCurrency(exportCurrency, received);
+        exported += kwh;
+        exportRevenue = Math.addExact(exportRevenue, received.microCents());
+    }
+
+    /**
+     * Exports energy from the system, the revenue is calculated in fixed point arithmetic.
+     *
+     * @param kwh remove energy from the system
+     * @param pricePerKwh export price of the energy (positive value)
+     */
+    public void exportEnergyAtPrice(double kwh, FixedMoney pricePerKwh)
+    {
+        checkCurrency(exportCurrency, pricePerKwh);
+        exported += kwh;
+        exportRevenue = Math.addExact(exportRevenue, FixedMoney.multiply(pricePerKwh.microCents(), kwh));
+    }
+
+    private static void checkCurrency(String currency, FixedMoney money)
+    {
+        if (!money.isSameCurrency(currency))
+        {
+            throw new IllegalArgumentException("Cannot add Money with different currencies: " + currency + " and " + money.currencyMnemonic());
+        }
+    }
+
+    /**
+     * @return current energy in the system (kWh), same calculation as {@link EnergySystem#getCurrentEnergy()}
+     */
+    public double getCurrentEnergy()
+    {
+        return produced - charged + discharged - consumed + imported - exported;
+    }
+
+    public double getProduced()
+    {
+        return produced;
+    }
+
+    public double getCharged()
+    {
+        return charged;
+    }
+
+    public double getDischarged()
+    {
+        return discharged;
+    }
+
+    public double getConsumed()
+    {
+        return consumed;
+    }
+
+    public double getImported()
+    {
+        return imported;
+    }
+
+    public double getExported()
+    {
+        return exported;
+    }
+
+    /**
+     * @return import revenue in micro-cents
+     */
+    public long getImportRevenue()
+    {
+        return importRevenue;
+    }
+
+    public String getImportCurrency()
+    {
+        return importCurrency;
+    }
+
+    /**
+     * @return export revenue in micro-cents
+     */
+    public long getExportRevenue()
+    {
+        return exportRevenue;
+    }
+
+    public String getExportCurrency()
+    {
+        return exportCurrency;
+    }
+
+    /**
+     * @return immutable snapshot of the accumulated energy system
+     */
+    public EnergySystem toEnergySystem()
+    {
+        return new EnergySystem(Energy.ofKwh(produced), Energy.ofKwh(charged), Energy.ofKwh(discharged), Energy.ofKwh(consumed),
+                        Energy.ofKwh(imported), Energy.ofKwh(exported), new FixedMoney(importRevenue, importCurrency).toMoney(),
+                        new FixedMoney(exportRevenue, exportCurrency).toMoney());
+    }
+}
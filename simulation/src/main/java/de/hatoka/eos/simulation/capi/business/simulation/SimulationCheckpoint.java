@@ -0,0 +1,18 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * State of a simulation at the start of a step (before the step is executed).
+ * @param index index of step in time grid of the simulation
+ * @param startDate start of step
+ * @param deviceStates device states before the step
+ * @param system accumulated energy system before the step
+ */
+public record SimulationCheckpoint(int index, ZonedDateTime startDate, Map<DeviceRef, DeviceState> deviceStates, EnergySystem system)
+{
+}
@@ -0,0 +1,59 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Checkpoints of a simulation run without device manipulators. Simulations of the same request with manipulators can resume at the latest
+ * checkpoint before the manipulators change any device (see {@link DeviceManipulator#getEffectiveFrom()}). The checkpoints are immutable and
+ * can be shared between simulations running in parallel.
+ *
+ * @param request simulation request of the recorded run
+ * @param checkpoints checkpoints ordered by step
+ * @param result result of the recorded run
+ */
+public record SimulationCheckpoints(SimulationRequest request, List<SimulationCheckpoint> checkpoints, SimulationResult result)
+{
+    public SimulationCheckpoints
+    {
+        checkpoints = List.copyOf(checkpoints);
+    }
+
+    /**
+     * @param other simulation request
+     * @return true if the other request simulates the same devices, states, forecasts and time range (simulation id may differ)
+     */
+    public boolean isCompatible(SimulationRequest other)
+    {
+        return request.startDate().equals(other.startDate()) && request.endDate().equals(other.endDate())
+                        && request.stepDuration().equals(other.stepDuration()) && request.devices().equals(other.devices())
+                        && request.initialState().equals(other.initialState()) && Objects.equals(request.services(), other.services());
+    }
+
+    /**
+     * @param time time of first change
+     * @return latest checkpoint starting not after the time, null if there is none
+     */
+    public SimulationCheckpoint getLatestBefore(Instant time)
+    {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        SimulationCheckpoint result = null;
+        while(low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            SimulationCheckpoint checkpoint = checkpoints.get(middle);
+            if (checkpoint.startDate().toInstant().isAfter(time))
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                result = checkpoint;
+                low = middle + 1;
+            }
+        }
+        return result;
+    }
+}
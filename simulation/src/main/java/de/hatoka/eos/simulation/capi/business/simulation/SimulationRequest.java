@@ -4,18 +4,46 @@ import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
 import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.metrics.MetricsExport;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Map;
 
 public record SimulationRequest(String simulationId, ZonedDateTime startDate, ZonedDateTime endDate, Duration stepDuration, Map<DeviceRef, Device> devices,
-                Map<DeviceRef, DeviceState> initialState, Forecasts services
+                Map<DeviceRef, DeviceState> initialState, Forecasts services, MetricsExport metricsExport
 )
 {
+    /**
+     * Request with full metrics export
+     */
+    public SimulationRequest(String simulationId, ZonedDateTime startDate, ZonedDateTime endDate, Duration stepDuration,
+                    Map<DeviceRef, Device> devices, Map<DeviceRef, DeviceState> initialState, Forecasts services)
+    {
+        this(simulationId, startDate, endDate, stepDuration, devices, initialState, services, MetricsExport.FULL);
+    }
+
+    /**
+     * @param simulationId identifier of the simulation (e.g. for metrics)
+     * @param metricsExport metrics passed to the exporter
+     * @return same request with other id and metrics export
+     */
+    public SimulationRequest withMetricsExport(String simulationId, MetricsExport metricsExport)
+    {
+        return new SimulationRequest(simulationId, startDate, endDate, stepDuration, devices, initialState, services, metricsExport);
+    }
+
     public SimulationStep getFirstStep()
     {
-        return new SimulationStep(startDate(), stepDuration(), services());
+        return new SimulationStep(createTimeGrid(), 0, stepDuration(), services());
+    }
+
+    /**
+     * @return time grid with all steps of the simulation
+     */
+    public TimeGrid createTimeGrid()
+    {
+        return TimeGrid.of(startDate(), endDate(), stepDuration());
     }
 
 }
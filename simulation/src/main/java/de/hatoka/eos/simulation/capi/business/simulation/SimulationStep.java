@@ -4,15 +4,58 @@ import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Objects;
 
 /**
- * SimulationStep are device independent simulation step information
- * @param startDate start of time period to simulate
- * @param duration duration of time period to simulate
- * @param services forecast services
+ * SimulationStep are device independent simulation step information. Steps of a simulation are created by index of the time grid, the start
+ * date is created on first access only (e.g. for the export), so the simulation loop doesn't calculate with date times.
  */
-public record SimulationStep(ZonedDateTime startDate, Duration duration, Forecasts services)
+public final class SimulationStep
 {
+    private final Duration duration;
+    private final Forecasts services;
+    private final TimeGrid timeGrid;
+    private final int index;
+    private ZonedDateTime startDate;
+
+    /**
+     * @param startDate start of time period to simulate
+     * @param duration duration of time period to simulate
+     * @param services forecast services
+     * @param timeGrid time grid of the simulation
+     * @param index index of this step in the time grid
+     */
+    public SimulationStep(ZonedDateTime startDate, Duration duration, Forecasts services, TimeGrid timeGrid, int index)
+    {
+        this(timeGrid, index, duration, services);
+        this.startDate = startDate;
+    }
+
+    /**
+     * Creates a single step with its own time grid
+     * @param startDate start of time period to simulate
+     * @param duration duration of time period to simulate
+     * @param services forecast services
+     */
+    public SimulationStep(ZonedDateTime startDate, Duration duration, Forecasts services)
+    {
+        this(startDate, duration, services, TimeGrid.of(startDate, duration), 0);
+    }
+
+    /**
+     * @param timeGrid time grid of the simulation
+     * @param index index of this step in the time grid
+     * @param duration duration of time period to simulate
+     * @param services forecast services
+     */
+    public SimulationStep(TimeGrid timeGrid, int index, Duration duration, Forecasts services)
+    {
+        this.timeGrid = timeGrid;
+        this.index = index;
+        this.duration = duration;
+        this.services = services;
+    }
+
     public static SimulationStep valueOf(ZonedDateTime startDate, Duration duration)
     {
         return new SimulationStep(startDate, duration, Forecasts.STANDARD);
@@ -20,11 +63,78 @@ public record SimulationStep(ZonedDateTime startDate, Duration duration, Forecas
 
     public SimulationStep nextTimeSlot()
     {
-        return new SimulationStep(startDate.plusMinutes(duration.toMinutes()), duration, services);
+        if (index + 1 < timeGrid.size())
+        {
+            return new SimulationStep(timeGrid, index + 1, duration, services);
+        }
+        return new SimulationStep(startDate().plusMinutes(duration.toMinutes()), duration, services);
+    }
+
+    /**
+     * @return start of time period to simulate
+     */
+    public ZonedDateTime startDate()
+    {
+        if (startDate == null)
+        {
+            startDate = timeGrid.getDateTime(index);
+        }
+        return startDate;
     }
 
     public ZonedDateTime endDate()
     {
-        return startDate.plus(duration);
+        return startDate().plus(duration);
+    }
+
+    /**
+     * @return duration of time period to simulate
+     */
+    public Duration duration()
+    {
+        return duration;
+    }
+
+    /**
+     * @return forecast services
+     */
+    public Forecasts services()
+    {
+        return services;
+    }
+
+    /**
+     * @return time grid of the simulation
+     */
+    public TimeGrid timeGrid()
+    {
+        return timeGrid;
+    }
+
+    /**
+     * @return index of this step in the time grid
+     */
+    public int index()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof SimulationStep other && index == other.index && timeGrid == other.timeGrid && duration.equals(other.duration)
+                        && Objects.equals(services, other.services) && startDate().equals(other.startDate());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(startDate(), duration, index);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SimulationStep[startDate=" + startDate() + ", duration=" + duration + ", index=" + index + "]";
     }
 }
@@ -0,0 +1,395 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.device.DeviceType;
+import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Percentage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SimulationTrace records the energy flow (delta of each step) and the device states (at the end of each step) of a simulation run. The values
+ * are stored in columns of one buffer with a fixed number of rows, allocated on the heap or off-heap (direct buffer), so a trace doesn't create
+ * objects per step. A trace can be written to and read from a binary file.
+ * <p>
+ * Layout of the buffer: one column per value, each column has one slot per row (8 bytes). Columns are the start time of the step (epoch
+ * second), six energies (kWh), two revenues (micro-cents) and for each device the max energy (kWh) and the state of charge (fraction).
+ */
+public class SimulationTrace
+{
+    /**
+     * Storage of the columns
+     */
+    public enum Storage
+    {
+        HEAP, OFF_HEAP
+    }
+
+    private static final int MAGIC = 0x454F5354; // EOST
+    private static final int VERSION = 1;
+    private static final int SLOT = Long.BYTES;
+
+    private static final int COLUMN_TIME = 0;
+    private static final int COLUMN_PRODUCED = 1;
+    private static final int COLUMN_CHARGED = 2;
+    private static final int COLUMN_DISCHARGED = 3;
+    private static final int COLUMN_CONSUMED = 4;
+    private static final int COLUMN_IMPORTED = 5;
+    private static final int COLUMN_EXPORTED = 6;
+    private static final int COLUMN_IMPORT_REVENUE = 7;
+    private static final int COLUMN_EXPORT_REVENUE = 8;
+    private static final int SYSTEM_COLUMNS = 9;
+    private static final int DEVICE_COLUMNS = 2;
+
+    private final List<DeviceRef> devices;
+    private final int capacity;
+    private final ByteBuffer buffer;
+    private String importCurrency;
+    private String exportCurrency;
+    private int size;
+
+    // cumulated values of the last recorded step, to calculate the deltas
+    private double lastProduced;
+    private double lastCharged;
+    private double lastDischarged;
+    private double lastConsumed;
+    private double lastImported;
+    private double lastExported;
+    private long lastImportRevenue;
+    private long lastExportRevenue;
+
+    private SimulationTrace(List<DeviceRef> devices, int capacity, ByteBuffer buffer, String importCurrency, String exportCurrency, int size)
+    {
+        this.devices = List.copyOf(devices);
+        this.capacity = capacity;
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.importCurrency = importCurrency;
+        this.exportCurrency = exportCurrency;
+        this.size = size;
+    }
+
+    /**
+     * @param devices devices of the simulation, the index of a device is used for recording
+     * @param capacity maximal number of steps
+     * @param storage storage of the columns
+     * @return empty trace
+     */
+    public static SimulationTrace allocate(List<DeviceRef> devices, int capacity, Storage storage)
+    {
+        long bytes = (long)capacity * columns(devices.size()) * SLOT;
+        if (bytes > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Trace too large: " + capacity + " steps with " + devices.size() + " devices");
+        }
+        return new SimulationTrace(devices, capacity, allocateBuffer((int)bytes, storage), null, null, 0);
+    }
+
+    private static ByteBuffer allocateBuffer(int bytes, Storage storage)
+    {
+        return storage == Storage.OFF_HEAP ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+
+    private static int columns(int deviceCount)
+    {
+        return SYSTEM_COLUMNS + DEVICE_COLUMNS * deviceCount;
+    }
+
+    private int offset(int column, int row)
+    {
+        return (column * capacity + row) * SLOT;
+    }
+
+    /**
+     * Records a step, the delta is calculated from the cumulated values of the former step. The device states must be recorded after the step
+     * via {@link #recordDevice(int, int, DeviceState)}.
+     *
+     * @param epochSecond start of the step
+     * @param system cumulated energy system at the end of the step
+     * @return row of the step
+     */
+    public int recordStep(long epochSecond, EnergySystemAccumulator system)
+    {
+        if (size == capacity)
+        {
+            throw new IllegalStateException("Trace is full, capacity: " + capacity);
+        }
+        if (importCurrency == null)
+        {
+            importCurrency = system.getImportCurrency();
+            exportCurrency = system.getExportCurrency();
+        }
+        int row = size++;
+        buffer.putLong(offset(COLUMN_TIME, row), epochSecond);
+        buffer.putDouble(offset(COLUMN_PRODUCED, row), system.getProduced() - lastProduced);
+        buffer.putDouble(offset(COLUMN_CHARGED, row), system.getCharged() - lastCharged);
+        buffer.putDouble(offset(COLUMN_DISCHARGED, row), system.getDischarged() - lastDischarged);
+        buffer.putDouble(offset(COLUMN_CONSUMED, row), system.getConsumed() - lastConsumed);
+        buffer.putDouble(offset(COLUMN_IMPORTED, row), system.getImported() - lastImported);
+        buffer.putDouble(offset(COLUMN_EXPORTED, row), system.getExported() - lastExported);
+        buffer.putLong(offset(COLUMN_IMPORT_REVENUE, row), system.getImportRevenue() - lastImportRevenue);
+        buffer.putLong(offset(COLUMN_EXPORT_REVENUE, row), system.getExportRevenue() - lastExportRevenue);
+        setStart(system);
+        return row;
+    }
+
+    /**
+     * Sets the cumulated values before the next recorded step (e.g. for a simulation that doesn't start with an empty system).
+     *
+     * @param system cumulated energy system
+     */
+    public void setStart(EnergySystemAccumulator system)
+    {
+        lastProduced = system.getProduced();
+        lastCharged = system.getCharged();
+        lastDischarged = system.getDischarged();
+        lastConsumed = system.getConsumed();
+        lastImported = system.getImported();
+        lastExported = system.getExported();
+        lastImportRevenue = system.getImportRevenue();
+        lastExportRevenue = system.getExportRevenue();
+    }
+
+    /**
+     * @param row row of the step
+     * @param device index of the device
+     * @param state state of the device at the end of the step
+     */
+    public void recordDevice(int row, int device, DeviceState state)
+    {
+        recordDevice(row, device, state.maxEnergy().amount(), state.percentage().toFraction());
+    }
+
+    /**
+     * @param row row of the step
+     * @param device index of the device
+     * @param maxEnergy capacity of the device (kWh)
+     * @param stateOfCharge stored energy as fraction of the capacity
+     */
+    public void recordDevice(int row, int device, double maxEnergy, double stateOfCharge)
+    {
+        buffer.putDouble(offset(SYSTEM_COLUMNS + DEVICE_COLUMNS * device, row), maxEnergy);
+        buffer.putDouble(offset(SYSTEM_COLUMNS + DEVICE_COLUMNS * device + 1, row), stateOfCharge);
+    }
+
+    /**
+     * @return number of recorded steps
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return devices of the simulation
+     */
+    public List<DeviceRef> getDevices()
+    {
+        return devices;
+    }
+
+    /**
+     * @param row row of the step
+     * @return start of the step
+     */
+    public Instant getStartTime(int row)
+    {
+        return Instant.ofEpochSecond(buffer.getLong(offset(COLUMN_TIME, checkRow(row))));
+    }
+
+    /**
+     * @param row row of the step
+     * @return energy flow of the step
+     */
+    public EnergySystem getSystem(int row)
+    {
+        checkRow(row);
+        return new EnergySystem(energy(COLUMN_PRODUCED, row), energy(COLUMN_CHARGED, row), energy(COLUMN_DISCHARGED, row),
+                        energy(COLUMN_CONSUMED, row), energy(COLUMN_IMPORTED, row), energy(COLUMN_EXPORTED, row),
+                        new FixedMoney(buffer.getLong(offset(COLUMN_IMPORT_REVENUE, row)), importCurrency).toMoney(),
+                        new FixedMoney(buffer.getLong(offset(COLUMN_EXPORT_REVENUE, row)), exportCurrency).toMoney());
+    }
+
+    private Energy energy(int column, int row)
+    {
+        return Energy.ofKwh(buffer.getDouble(offset(column, row)));
+    }
+
+    /**
+     * @param row row of the step
+     * @param device index of the device
+     * @return state of the device at the end of the step
+     */
+    public DeviceState getDeviceState(int row, int device)
+    {
+        checkRow(row);
+        return new DeviceState(Energy.ofKwh(buffer.getDouble(offset(SYSTEM_COLUMNS + DEVICE_COLUMNS * device, row))),
+                        new Percentage(buffer.getDouble(offset(SYSTEM_COLUMNS + DEVICE_COLUMNS * device + 1, row))));
+    }
+
+    /**
+     * @param row row of the step
+     * @return states of all devices at the end of the step
+     */
+    public Map<DeviceRef, DeviceState> getDeviceStates(int row)
+    {
+        Map<DeviceRef, DeviceState> result = new HashMap<>();
+        for (int device = 0; device < devices.size(); device++)
+        {
+            result.put(devices.get(device), getDeviceState(row, device));
+        }
+        return result;
+    }
+
+    private int checkRow(int row)
+    {
+        if (row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException("Row " + row + " not recorded, size: " + size);
+        }
+        return row;
+    }
+
+    /**
+     * Exports the recorded steps again, like the simulation run did.
+     *
+     * @param request request of the traced simulation
+     * @param exporter metrics exporter
+     */
+    public void replay(SimulationRequest request, SimulationMetricsExporter exporter)
+    {
+        TimeGrid timeGrid = request.createTimeGrid();
+        exporter.beginSimulation(request);
+        try
+        {
+            for (int row = 0; row < size; row++)
+            {
+                int index = timeGrid.indexOfStart(buffer.getLong(offset(COLUMN_TIME, row)));
+                if (index < 0)
+                {
+                    throw new IllegalArgumentException("Step " + getStartTime(row) + " is not part of the simulation " + request.simulationId());
+                }
+                SimulationStep step = new SimulationStep(timeGrid, index, request.stepDuration(), request.services());
+                exporter.exportMetrics(new SimulationResult(request, step, getDeviceStates(row), getSystem(row)));
+            }
+        }
+        finally
+        {
+            exporter.endSimulation(request);
+        }
+    }
+
+    /**
+     * Writes the recorded steps to a file.
+     *
+     * @param file target file, an existing file is replaced
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException
+    {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(headerBytes))
+        {
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(size);
+            header.writeUTF(importCurrency == null ? "" : importCurrency);
+            header.writeUTF(exportCurrency == null ? "" : exportCurrency);
+            header.writeInt(devices.size());
+            for (DeviceRef device : devices)
+            {
+                header.writeUTF(device.type().name());
+                header.writeUTF(device.id());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(Integer.BYTES + headerBytes.size());
+            headerBuffer.putInt(headerBytes.size()).put(headerBytes.toByteArray()).flip();
+            writeFully(channel, headerBuffer);
+            // only recorded rows of each column
+            for (int column = 0; column < columns(devices.size()); column++)
+            {
+                writeFully(channel, buffer.duplicate().position(offset(column, 0)).limit(offset(column, size)));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException
+    {
+        while(source.hasRemaining())
+        {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * Reads a trace written by {@link #write(Path)}.
+     *
+     * @param file trace file
+     * @param storage storage of the columns
+     * @return trace with capacity of the recorded steps
+     * @throws IOException if the file can't be read or has an unknown format
+     */
+    public static SimulationTrace read(Path file, Storage storage) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer headerLength = ByteBuffer.allocate(Integer.BYTES);
+            readFully(channel, headerLength);
+            ByteBuffer headerBuffer = ByteBuffer.allocate(headerLength.flip().getInt());
+            readFully(channel, headerBuffer);
+            try (DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBuffer.array())))
+            {
+                if (header.readInt() != MAGIC || header.readInt() != VERSION)
+                {
+                    throw new IOException("Unknown trace format: " + file);
+                }
+                int size = header.readInt();
+                String importCurrency = header.readUTF();
+                String exportCurrency = header.readUTF();
+                int deviceCount = header.readInt();
+                List<DeviceRef> devices = new ArrayList<>(deviceCount);
+                for (int i = 0; i < deviceCount; i++)
+                {
+                    devices.add(new DeviceRef(DeviceType.valueOf(header.readUTF()), header.readUTF()));
+                }
+                SimulationTrace trace = allocate(devices, size, storage);
+                readFully(channel, trace.buffer.duplicate().clear());
+                trace.size = size;
+                trace.importCurrency = importCurrency.isEmpty() ? null : importCurrency;
+                trace.exportCurrency = exportCurrency.isEmpty() ? null : exportCurrency;
+                return trace;
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target) throws IOException
+    {
+        while(target.hasRemaining())
+        {
+            if (channel.read(target) < 0)
+            {
+                throw new EOFException("Trace file truncated");
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.hatoka.eos.simulation.capi.business.simulation;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -21,4 +22,56 @@ public interface Simulator
      * @return simulation result
      */
     SimulationResult simulate(SimulationRequest request, List<DeviceManipulator> manipulators);
+
+    /**
+     * Executes independent simulations concurrently. Each simulation has its own state, the metrics exporter must be thread safe.
+     * @param requests configurations of simulations
+     * @return simulation results in order of requests
+     */
+    List<SimulationResult> simulateAll(List<SimulationRequest> requests);
+
+    /**
+     * Executes the simulation for each set of device manipulators concurrently (what-if scenarios). The simulation of the i-th set uses the
+     * simulation id "&lt;simulationId&gt;-i".
+     * @param request configuration of simulation
+     * @param manipulatorSets device manipulators of each simulation
+     * @return simulation results in order of manipulator sets
+     */
+    List<SimulationResult> simulateAll(SimulationRequest request, List<List<DeviceManipulator>> manipulatorSets);
+
+    /**
+     * Executes a simulation without device manipulators and records checkpoints.
+     * @param request configuration of simulation
+     * @param interval minimal time between two checkpoints (at least one step)
+     * @return checkpoints with simulation result
+     */
+    SimulationCheckpoints simulateWithCheckpoints(SimulationRequest request, Duration interval);
+
+    /**
+     * Execute a simulation with device manipulators, the simulation resumes at the latest checkpoint before the first change of the manipulators.
+     * @param request configuration of simulation
+     * @param manipulators device manipulators
+     * @param checkpoints checkpoints of the same request (may null)
+     * @return simulation result (same as without checkpoints)
+     */
+    SimulationResult simulate(SimulationRequest request, List<DeviceManipulator> manipulators, SimulationCheckpoints checkpoints);
+
+    /**
+     * Executes the simulation for each set of device manipulators concurrently, each simulation resumes at the latest checkpoint before the first
+     * change of its manipulators. The simulation of the i-th set uses the simulation id "&lt;simulationId&gt;-i".
+     * @param request configuration of simulation
+     * @param manipulatorSets device manipulators of each simulation
+     * @param checkpoints checkpoints of the same request (may null)
+     * @return simulation results in order of manipulator sets
+     */
+    List<SimulationResult> simulateAll(SimulationRequest request, List<List<DeviceManipulator>> manipulatorSets, SimulationCheckpoints checkpoints);
+
+    /**
+     * Execute a simulation with device manipulators and records a trace of all steps.
+     * @param request configuration of simulation
+     * @param manipulators device manipulators
+     * @param storage storage of the trace
+     * @return trace of the simulation
+     */
+    SimulationTrace simulateWithTrace(SimulationRequest request, List<DeviceManipulator> manipulators, SimulationTrace.Storage storage);
 }
@@ -0,0 +1,195 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+
+/**
+ * TimeGrid contains the calendar information of all steps of a simulation. The grid is calculated once per simulation request, so devices and
+ * forecasts can read hour, minute and day of week of a step by index without zone rule lookups. Steps are equidistant on the time-line (like
+ * {@link ZonedDateTime#plusMinutes(long)}), so days with daylight saving transitions have 23 or 25 hours of steps.
+ */
+public class TimeGrid
+{
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final DayOfWeek[] DAYS_OF_WEEK = DayOfWeek.values();
+
+    private final ZonedDateTime startDate;
+    private final long stepSeconds;
+    private final long[] epochSeconds;
+    private final int[] offsetSeconds;
+    private final int[] secondOfDay;
+    private final byte[] dayOfWeek;
+
+    private TimeGrid(ZonedDateTime startDate, Duration stepDuration, int size)
+    {
+        this.startDate = startDate;
+        this.stepSeconds = stepDuration.toSeconds();
+        this.epochSeconds = new long[size];
+        this.offsetSeconds = new int[size];
+        this.secondOfDay = new int[size];
+        this.dayOfWeek = new byte[size];
+
+        ZoneRules rules = startDate.getZone().getRules();
+        long start = startDate.toEpochSecond();
+        for (int i = 0; i < size; i++)
+        {
+            long epochSecond = start + i * stepSeconds;
+            int offset = rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+            long localSecond = epochSecond + offset;
+            epochSeconds[i] = epochSecond;
+            offsetSeconds[i] = offset;
+            secondOfDay[i] = (int)Math.floorMod(localSecond, SECONDS_PER_DAY);
+            // 1970-01-01 was a thursday
+            dayOfWeek[i] = (byte)Math.floorMod(Math.floorDiv(localSecond, SECONDS_PER_DAY) + 3, 7);
+        }
+    }
+
+    /**
+     * @param startDate start of first step
+     * @param endDate end of simulation (exclusive)
+     * @param stepDuration duration of each step
+     * @return time grid with all steps starting before end date (at least one step)
+     */
+    public static TimeGrid of(ZonedDateTime startDate, ZonedDateTime endDate, Duration stepDuration)
+    {
+        long stepSeconds = stepDuration.toSeconds();
+        if (stepSeconds <= 0)
+        {
+            throw new IllegalArgumentException("Step duration must be positive: " + stepDuration);
+        }
+        // exact range, fractions of seconds count like for ZonedDateTime#isBefore
+        Duration range = Duration.between(startDate, endDate);
+        long size = range.getSeconds() / stepSeconds;
+        if (range.compareTo(Duration.ofSeconds(size * stepSeconds)) > 0)
+        {
+            size++;
+        }
+        size = Math.max(1, size);
+        return new TimeGrid(startDate, stepDuration, Math.toIntExact(size));
+    }
+
+    /**
+     * @param startDate start of the step
+     * @param stepDuration duration of the step
+     * @return time grid of one step
+     */
+    public static TimeGrid of(ZonedDateTime startDate, Duration stepDuration)
+    {
+        return new TimeGrid(startDate, stepDuration, 1);
+    }
+
+    /**
+     * @return number of steps
+     */
+    public int size()
+    {
+        return epochSeconds.length;
+    }
+
+    public ZoneId getZone()
+    {
+        return startDate.getZone();
+    }
+
+    public long getEpochSecond(int index)
+    {
+        return epochSeconds[index];
+    }
+
+    /**
+     * @param index step index
+     * @return offset of the time zone at the start of the step (changes at daylight saving transitions)
+     */
+    public int getOffsetSeconds(int index)
+    {
+        return offsetSeconds[index];
+    }
+
+    /**
+     * @param index step index
+     * @return local second of the day at the start of the step
+     */
+    public int getSecondOfDay(int index)
+    {
+        return secondOfDay[index];
+    }
+
+    /**
+     * @param index step index
+     * @return local minute of the day at the start of the step
+     */
+    public int getMinuteOfDay(int index)
+    {
+        return secondOfDay[index] / 60;
+    }
+
+    /**
+     * @param index step index
+     * @return local hour (0-23) at the start of the step
+     */
+    public int getHour(int index)
+    {
+        return secondOfDay[index] / 3600;
+    }
+
+    /**
+     * @param index step index
+     * @return local minute of the hour at the start of the step
+     */
+    public int getMinute(int index)
+    {
+        return secondOfDay[index] / 60 % 60;
+    }
+
+    /**
+     * @param index step index
+     * @return local day of week at the start of the step
+     */
+    public DayOfWeek getDayOfWeek(int index)
+    {
+        return DAYS_OF_WEEK[dayOfWeek[index]];
+    }
+
+    /**
+     * @param index step index
+     * @return start of the step, creates a new date time
+     */
+    public ZonedDateTime getDateTime(int index)
+    {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds[index]), startDate.getZone());
+    }
+
+    /**
+     * @param time time stamp
+     * @return index of step containing the time stamp, -1 if the time is outside of the grid
+     */
+    public int indexOf(ZonedDateTime time)
+    {
+        long distance = time.toEpochSecond() - epochSeconds[0];
+        if (distance < 0)
+        {
+            return -1;
+        }
+        long index = distance / stepSeconds;
+        return index < epochSeconds.length ? (int)index : -1;
+    }
+
+    /**
+     * @param epochSecond time stamp
+     * @return index of the step starting exactly at the time stamp, -1 if there is no such step
+     */
+    public int indexOfStart(long epochSecond)
+    {
+        long distance = epochSecond - epochSeconds[0];
+        if (distance < 0 || distance % stepSeconds != 0)
+        {
+            return -1;
+        }
+        long index = distance / stepSeconds;
+        return index < epochSeconds.length ? (int)index : -1;
+    }
+}
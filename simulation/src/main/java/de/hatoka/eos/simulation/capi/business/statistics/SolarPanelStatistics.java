@@ -1,5 +1,6 @@
 package de.hatoka.eos.simulation.capi.business.statistics;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.units.capi.Percentage;
 
 import java.time.ZonedDateTime;
@@ -7,4 +8,14 @@ import java.time.ZonedDateTime;
 public interface SolarPanelStatistics
 {
     Percentage getEfficiency(ZonedDateTime time);
+
+    /**
+     * @param timeGrid time grid of simulation
+     * @param index step index
+     * @return efficiency at the start of the step
+     */
+    default Percentage getEfficiency(TimeGrid timeGrid, int index)
+    {
+        return getEfficiency(timeGrid.getDateTime(index));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package de.hatoka.eos.simulation.internal.business.devices;
+
+import de.hatoka.eos.simulation.capi.business.device.Device;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
+
+/**
+ * Base class of the built-in devices. The devices implement the step on the mutable {@link EnergySystemAccumulator}, the record based variant
+ * is derived from it.
+ */
+public abstract class AbstractDevice implements Device
+{
+    @Override
+    public abstract DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState);
+
+    @Override
+    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    {
+        EnergySystemAccumulator accumulator = EnergySystemAccumulator.valueOf(system);
+        DeviceState newDeviceState = simulate(step, accumulator, deviceState);
+        return SimulationStepResult.build(accumulator.toEnergySystem(), newDeviceState);
+    }
+}
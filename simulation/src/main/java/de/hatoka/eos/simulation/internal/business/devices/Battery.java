@@ -3,15 +3,12 @@ package de.hatoka.eos.simulation.internal.business.devices;
 import de.hatoka.eos.simulation.capi.business.config.DeviceConfig;
 import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
-import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+import de.hatoka.eos.simulation.capi.business.device.StorageDevice;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
-import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
-import de.hatoka.eos.units.capi.Energy;
 import de.hatoka.eos.units.capi.Percentage;
 
-import java.time.ZonedDateTime;
-
-public class Battery implements Device, Cloneable
+public class Battery extends AbstractDevice implements StorageDevice, Cloneable
 {
     final DeviceConfig config;
     private Percentage overrideChargeLimit = null;
@@ -38,122 +35,141 @@ public class Battery implements Device, Cloneable
     }
 
     @Override
-    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    public DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState)
     {
+        double percentage = simulate(step, system, deviceState.maxEnergy().amount(), deviceState.percentage().value());
+        if (percentage == deviceState.percentage().value())
+        {
+            return deviceState;
+        }
+        return new DeviceState(deviceState.maxEnergy(), new Percentage(percentage));
+    }
+
+    /**
+     * Stored energy is always derived from the state of charge (maxEnergy * stateOfCharge) like {@link DeviceState} does, so the results
+     * are identical to the record based calculation.
+     */
+    @Override
+    public double simulate(SimulationStep step, EnergySystemAccumulator system, double maxEnergy, double stateOfCharge)
+    {
+        double hours = (double)step.duration().toMinutes() / 60;
+
         // Apply storage loss first
-        deviceState = applyStorageLoss(step, deviceState);
+        double percentage = applyStorageLoss(step, maxEnergy, stateOfCharge);
 
-        Energy systemEnergy = system.getCurrentEnergy();
+        double systemEnergy = system.getCurrentEnergy();
+        Percentage chargingLimit = getChargingLimit(step);
 
-        if (shouldCharge(getChargingLimit(step), deviceState, systemEnergy))
+        if (shouldCharge(chargingLimit, percentage, systemEnergy))
         {
-            return chargeBattery(step, system, deviceState);
+            percentage = chargeBattery(hours, chargingLimit, system, maxEnergy, percentage);
         }
-        if (shouldDischarge(systemEnergy))
+        else if (shouldDischarge(systemEnergy))
         {
             // System needs energy - try to discharge battery
-            return dischargeBattery(step, system, deviceState);
+            percentage = dischargeBattery(hours, system, maxEnergy, percentage);
         }
-        return SimulationStepResult.build(system, deviceState);
+        return percentage;
     }
 
-    private DeviceState applyStorageLoss(SimulationStep step, DeviceState deviceState)
+    private double applyStorageLoss(SimulationStep step, double maxEnergy, double percentage)
     {
-        Percentage perc = config.getDailyStorageLoss().multiply((double)step.duration().toMinutes() / 60 / 24);
-        Energy lossEnergy = deviceState.storedEnergy().multiply(perc);
-        return deviceState.apply(deviceState.storedEnergy().subtract(lossEnergy));
+        double lossFraction = config.getDailyStorageLoss().value() * ((double)step.duration().toMinutes() / 60 / 24);
+        double storedEnergy = maxEnergy * percentage;
+        return (storedEnergy - storedEnergy * lossFraction) / maxEnergy;
     }
 
-    private SimulationStepResult chargeBattery(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    private double chargeBattery(double hours, Percentage chargingLimit, EnergySystemAccumulator system, double maxEnergy, double percentage)
     {
-        Energy systemEnergy = system.getCurrentEnergy();
-        Energy currentStored = deviceState.storedEnergy();
+        double systemEnergy = system.getCurrentEnergy();
+        double currentStored = maxEnergy * percentage;
         // Maximum energy we can charge based on power limit and duration
-        Energy maxCharge = config.getChargeRate().multiply(step.duration());
+        double maxCharge = config.getChargeRate().amount() * hours;
 
         // Maximum energy we can store (capacity - current)
-        Energy maxStore = config.getCapacity().subtract(currentStored);
+        double maxStore = config.getCapacity().amount() - currentStored;
 
-        Energy actualCharge = systemEnergy.min(maxCharge).min(maxStore);
-        if (actualCharge.amount() > 0)
+        double actualCharge = Math.min(Math.min(systemEnergy, maxCharge), maxStore);
+        if (actualCharge > 0)
         {
             // Apply charging efficiency
-            Energy storedEnergy = actualCharge.multiply(config.getChargingEfficiency());
-            system = system.charge(actualCharge);
-            deviceState = deviceState.apply(currentStored.add(storedEnergy));
+            double storedEnergy = actualCharge * config.getChargingEfficiency().toFraction();
+            system.charge(actualCharge);
+            percentage = (currentStored + storedEnergy) / maxEnergy;
         }
         else
         {
-            actualCharge = Energy.ZERO;
+            actualCharge = 0.0;
         }
-        if (shouldChargeFromGrid(step.startDate(), getChargingLimit(step), deviceState))
+        if (shouldChargeFromGrid(chargingLimit, percentage))
         {
             // Battery is not charged above the limit, so charge it from grid
-            return chargeBatteryFromGrid(step, system, deviceState, actualCharge);
+            percentage = chargeBatteryFromGrid(hours, chargingLimit, system, maxEnergy, percentage, actualCharge);
         }
-        return SimulationStepResult.build(system, deviceState);
+        return percentage;
     }
 
-    private SimulationStepResult chargeBatteryFromGrid(SimulationStep step, EnergySystem system, DeviceState deviceState, Energy actualCharge)
+    private double chargeBatteryFromGrid(double hours, Percentage chargingLimit, EnergySystemAccumulator system, double maxEnergy,
+                    double percentage, double actualCharge)
     {
-        Energy currentStored = deviceState.storedEnergy();
+        double currentStored = maxEnergy * percentage;
 
         // Maximum energy we can charge based on power limit and duration
-        Energy maxCharge = config.getChargeRate().multiply(step.duration()).subtract(actualCharge);
+        double maxCharge = config.getChargeRate().amount() * hours - actualCharge;
 
         // Maximum energy we can store (capacity - current)
-        Energy maxStore = config.getCapacity().subtract(currentStored);
+        double maxStore = config.getCapacity().amount() - currentStored;
 
-        Percentage percentageToLoadFromGrid = getChargingLimit(step).subtract(deviceState.percentage());
-        Energy storeToGridThreshold = deviceState.maxEnergy().multiply(percentageToLoadFromGrid);
+        double percentageToLoadFromGrid = chargingLimit.value() - percentage;
+        double storeToGridThreshold = maxEnergy * percentageToLoadFromGrid;
 
-        Energy actualChargeFromGrid = maxCharge.min(maxStore).min(storeToGridThreshold);
+        double actualChargeFromGrid = Math.min(Math.min(maxCharge, maxStore), storeToGridThreshold);
 
         // Apply charging efficiency
-        Energy storedEnergyFromGrid = actualChargeFromGrid.multiply(config.getChargingEfficiency());
-        Energy newStoredEnergy = currentStored.add(storedEnergyFromGrid);
+        double storedEnergyFromGrid = actualChargeFromGrid * config.getChargingEfficiency().toFraction();
 
         // Battery consumes the charged energy from the system
-        return SimulationStepResult.build(system.charge(actualChargeFromGrid), deviceState.apply(newStoredEnergy));
+        system.charge(actualChargeFromGrid);
+        return (currentStored + storedEnergyFromGrid) / maxEnergy;
     }
 
-    private SimulationStepResult dischargeBattery(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    private double dischargeBattery(double hours, EnergySystemAccumulator system, double maxEnergy, double percentage)
     {
         // Maximum energy we can discharge based on power limit and duration
-        Energy maxDischarge = config.getDischargeRate().multiply(step.duration());
+        double maxDischarge = config.getDischargeRate().amount() * hours;
 
         // Energy needed by the system (positive value)
-        Energy required = system.getCurrentEnergy().negate();
+        double currentEnergy = system.getCurrentEnergy();
+        double required = currentEnergy == 0 ? 0 : -currentEnergy;
 
         // Actual discharging energy is limited by available stored energy, discharge power, and system need
-        Energy currentStored = deviceState.storedEnergy();
+        double currentStored = maxEnergy * percentage;
 
-        Energy actualDischargeEnergy = required.min(currentStored).min(maxDischarge);
+        double actualDischargeEnergy = Math.min(Math.min(required, currentStored), maxDischarge);
 
         // Apply discharging efficiency
-        Energy providedEnergy = actualDischargeEnergy.multiply(config.getDischargingEfficiency());
-        Energy newStoredEnergy = currentStored.subtract(actualDischargeEnergy);
+        double providedEnergy = actualDischargeEnergy * config.getDischargingEfficiency().toFraction();
 
         // Battery provides energy to the system
-        return SimulationStepResult.build(system.discharge(providedEnergy), deviceState.apply(newStoredEnergy));
+        system.discharge(providedEnergy);
+        return (currentStored - actualDischargeEnergy) / maxEnergy;
     }
 
-
-    protected boolean shouldChargeFromGrid(ZonedDateTime time, Percentage chargingLimit, DeviceState deviceState)
+    protected boolean shouldChargeFromGrid(Percentage chargingLimit, double percentage)
     {
         // If the charging limit is higher than the current battery percentage, we can charge from grid
-        return chargingLimit.value() > deviceState.percentage().value();
+        return chargingLimit.value() > percentage;
     }
 
-    protected boolean shouldCharge(Percentage chargingForceLimit, DeviceState deviceState, Energy systemEnergy)
+    protected boolean shouldCharge(Percentage chargingForceLimit, double percentage, double systemEnergy)
     {
-        return systemEnergy.amount() > 0 || chargingForceLimit.value() > deviceState.percentage().value();
+        return systemEnergy > 0 || chargingForceLimit.value() > percentage;
     }
 
-    protected boolean shouldDischarge(Energy systemEnergy)
+    protected boolean shouldDischarge(double systemEnergy)
     {
         // Discharge if there is a need for energy in the system
-        return systemEnergy.amount() < 0;
+        return systemEnergy < 0;
     }
 
     /**
@@ -3,13 +3,10 @@ package de.hatoka.eos.simulation.internal.business.devices;
 import de.hatoka.eos.simulation.capi.business.config.CarUsageProfile;
 import de.hatoka.eos.simulation.capi.business.config.DeviceConfig;
 import de.hatoka.eos.simulation.capi.business.device.Device;
-import de.hatoka.eos.simulation.capi.business.device.DeviceState;
-import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
-import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
-import de.hatoka.eos.units.capi.Energy;
 
-import java.time.LocalTime;
+import java.time.DayOfWeek;
 import java.time.ZonedDateTime;
 
 public class ElectricCar extends Battery implements Device
@@ -35,42 +32,57 @@ public class ElectricCar extends Battery implements Device
     }
 
     @Override
-    protected boolean shouldDischarge(Energy currentEnergy)
+    protected boolean shouldDischarge(double systemEnergy)
     {
         // Electric car should not discharge to the system, yet
         return false;
     }
 
     @Override
-    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    public double simulate(SimulationStep step, EnergySystemAccumulator system, double maxEnergy, double stateOfCharge)
     {
         CarUsageProfile usageProfile = config.getUsageProfile();
         if (usageProfile != null)
         {
-            boolean wasAvailable = isCarAvailable(step.startDate().minusMinutes(step.duration().toMinutes()));
-            boolean isAvailable = isCarAvailable(step.startDate());
+            boolean wasAvailable = wasCarAvailable(step);
+            boolean isAvailable = isCarAvailable(step.timeGrid().getDayOfWeek(step.index()), step.timeGrid().getSecondOfDay(step.index()));
 
             if (!wasAvailable && isAvailable)
             {
                 // Car just returned - apply energy consumption
-                deviceState = applyUsageEnergyConsumption(usageProfile, deviceState);
+                stateOfCharge = applyUsageEnergyConsumption(usageProfile, maxEnergy, stateOfCharge);
             }
             if (!isAvailable)
             {
                 // Car is away - no charging/discharging
-                return SimulationStepResult.build(system, deviceState);
+                return stateOfCharge;
             }
         }
 
         // Car is available - use normal battery simulation
-        return super.simulate(step, system, deviceState);
+        return super.simulate(step, system, maxEnergy, stateOfCharge);
     }
 
     /**
-     * @param time when
+     * @param step current step
+     * @return true if the car was available (for charging) at the step before
+     */
+    private boolean wasCarAvailable(SimulationStep step)
+    {
+        if (step.index() > 0)
+        {
+            return isCarAvailable(step.timeGrid().getDayOfWeek(step.index() - 1), step.timeGrid().getSecondOfDay(step.index() - 1));
+        }
+        ZonedDateTime time = step.startDate().minusMinutes(step.duration().toMinutes());
+        return isCarAvailable(time.getDayOfWeek(), time.toLocalTime().toSecondOfDay());
+    }
+
+    /**
+     * @param dayOfWeek local day of week
+     * @param secondOfDay local second of day
      * @return true if the car is available (for charging)
      */
-    private boolean isCarAvailable(ZonedDateTime time)
+    private boolean isCarAvailable(DayOfWeek dayOfWeek, int secondOfDay)
     {
         CarUsageProfile usageProfile = config.getUsageProfile();
         if (usageProfile == null)
@@ -78,32 +90,32 @@ public class ElectricCar extends Battery implements Device
             return true; // No usage profile means car is always available
         }
 
-        if (!usageProfile.days().contains(time.getDayOfWeek()))
+        if (!usageProfile.days().contains(dayOfWeek))
         {
             return true; // Car is available on days not in the usage profile
         }
 
-        LocalTime currentTime = time.toLocalTime();
-        return currentTime.isBefore(usageProfile.startUsage()) || !currentTime.isBefore(usageProfile.endUsage());
+        return secondOfDay < usageProfile.startUsage().toSecondOfDay() || secondOfDay >= usageProfile.endUsage().toSecondOfDay();
     }
 
     /**
      * Applies the usage consumption to the car at the time, the car is back
      * @param usageProfile usage profile of car
-     * @param deviceState old device state
-     * @return new device state
+     * @param maxEnergy capacity of the car battery
+     * @param stateOfCharge old state of charge
+     * @return new state of charge
      */
-    private DeviceState applyUsageEnergyConsumption(CarUsageProfile usageProfile, DeviceState deviceState)
+    private double applyUsageEnergyConsumption(CarUsageProfile usageProfile, double maxEnergy, double stateOfCharge)
     {
-        Energy consumedEnergy = usageProfile.energyConsumption();
-        Energy newStoredEnergy = deviceState.storedEnergy().subtract(consumedEnergy);
+        double consumedEnergy = usageProfile.energyConsumption().amount();
+        double newStoredEnergy = maxEnergy * stateOfCharge - consumedEnergy;
 
         // Ensure we don't go below zero
-        if (newStoredEnergy.amount() < 0)
+        if (newStoredEnergy < 0)
         {
-            newStoredEnergy = Energy.ZERO;
+            newStoredEnergy = 0.0;
         }
 
-        return deviceState.apply(newStoredEnergy);
+        return newStoredEnergy / maxEnergy;
     }
 }
\ No newline at end of file
@@ -1,14 +1,12 @@
 package de.hatoka.eos.simulation.internal.business.devices;
 
 import de.hatoka.eos.simulation.capi.business.config.DeviceConfig;
-import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
 import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
-import de.hatoka.eos.simulation.capi.business.simulation.*;
-import de.hatoka.eos.units.capi.Energy;
-import de.hatoka.eos.units.capi.Money;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
 
-public class Grid implements Device
+public class Grid extends AbstractDevice
 {
     public Grid()
     {
@@ -22,27 +20,23 @@ public class Grid implements Device
     }
 
     @Override
-    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    public DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState)
     {
-        Energy currentEnergy = system.getCurrentEnergy();
-        boolean powerGenerated = currentEnergy.amount() > 0;
-        Energy toSystem = powerGenerated ? Energy.ZERO : currentEnergy.negate();
-        Energy fromSystem = powerGenerated ? currentEnergy : Energy.ZERO;
+        double currentEnergy = system.getCurrentEnergy();
 
         // Create grid energy transfer with costs
         EnergyPriceForecast energyPriceProvider = step.services().priceForecast();
-        if (powerGenerated)
+        if (currentEnergy > 0)
         {
             // System has excess energy - grid exports it (we receive money from grid)
-            Money receivedFromGrid = energyPriceProvider.getExportPrice(step.startDate()).multiply(fromSystem.amount());
-            system = system.exportEnergy(fromSystem, receivedFromGrid);
+            system.exportEnergyAtPrice(currentEnergy, energyPriceProvider.getFixedExportPrice(step.timeGrid(), step.index()));
         }
-        else if (currentEnergy.amount() < 0)
+        else if (currentEnergy < 0)
         {
             // System needs energy - grid imports it (we pay money to grid)
-            Money paidToGrid = energyPriceProvider.getImportPrice(step.startDate()).multiply(toSystem.amount());
-            system = system.importEnergy(toSystem, paidToGrid);
+            double toSystem = -currentEnergy;
+            system.importEnergyAtPrice(toSystem, energyPriceProvider.getFixedImportPrice(step.timeGrid(), step.index()));
         }
-        return SimulationStepResult.build(system);
+        return DeviceState.NO_STORAGE;
     }
 }
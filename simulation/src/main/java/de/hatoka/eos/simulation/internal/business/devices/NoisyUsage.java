@@ -1,19 +1,15 @@
 package de.hatoka.eos.simulation.internal.business.devices;
 
 import de.hatoka.eos.simulation.capi.business.config.DeviceConfig;
-import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
-import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
-import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
 import de.hatoka.eos.units.capi.Power;
 
-import java.time.ZonedDateTime;
-
 /**
  * Represents a noisy power consumer, which consumes power but does not produce or store it.
  */
-public class NoisyUsage implements Device
+public class NoisyUsage extends AbstractDevice
 {
     private final DeviceConfig config;
 
@@ -23,17 +19,18 @@ public class NoisyUsage implements Device
     }
 
     @Override
-    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    public DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState)
     {
-        return SimulationStepResult.build(system.consume(getConsumption(step.startDate()).multiply(step.duration())));
+        system.consume(getConsumption(step).amount() * ((double)step.duration().toMinutes() / 60));
+        return DeviceState.NO_STORAGE;
     }
 
     /**
-     * Calculates/Predicts the power consumption for the given date.
-     * @param date date and time of the consumption
-     * @return average power consumption at the given date
+     * Calculates/Predicts the power consumption for the given step.
+     * @param step step of the consumption
+     * @return average power consumption of the step
      */
-    private Power getConsumption(ZonedDateTime date)
+    private Power getConsumption(SimulationStep step)
     {
         return config.getConsumption();
     }
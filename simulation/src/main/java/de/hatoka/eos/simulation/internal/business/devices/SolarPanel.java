@@ -1,16 +1,14 @@
 package de.hatoka.eos.simulation.internal.business.devices;
 
 import de.hatoka.eos.simulation.capi.business.config.DeviceConfig;
-import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
-import de.hatoka.eos.simulation.capi.business.simulation.EnergySystem;
-import de.hatoka.eos.simulation.capi.business.simulation.SimulationStepResult;
+import de.hatoka.eos.simulation.capi.business.simulation.EnergySystemAccumulator;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationStep;
 import de.hatoka.eos.simulation.capi.business.statistics.SolarPanelStatistics;
 import de.hatoka.eos.units.capi.Percentage;
 import de.hatoka.eos.units.capi.Power;
 
-public class SolarPanel implements Device
+public class SolarPanel extends AbstractDevice
 {
     private final DeviceConfig config;
     private final SolarPanelStatistics statistics;
@@ -22,18 +20,19 @@ public class SolarPanel implements Device
     }
 
     @Override
-    public SimulationStepResult simulate(SimulationStep step, EnergySystem system, DeviceState deviceState)
+    public DeviceState simulate(SimulationStep step, EnergySystemAccumulator system, DeviceState deviceState)
     {
-        Percentage sunFactor = step.services().weather().getSunProbability(step.startDate());
-        Percentage statisticsEfficiency = statistics.getEfficiency(step.startDate());
+        double sunFactor = step.services().weather().getSunFraction(step.timeGrid(), step.index());
+        Percentage statisticsEfficiency = statistics.getEfficiency(step.timeGrid(), step.index());
         Percentage panelEfficiency = getPanelEfficiency();
-        
-        Power adjustedProduction = getProduction()
-            .multiply(sunFactor)
-            .multiply(statisticsEfficiency)
-            .multiply(panelEfficiency);
-            
-        return SimulationStepResult.build(system.produce(adjustedProduction.multiply(step.duration())));
+
+        double adjustedProduction = getProduction().amount()
+            * sunFactor
+            * statisticsEfficiency.toFraction()
+            * panelEfficiency.toFraction();
+
+        system.produce(adjustedProduction * ((double)step.duration().toMinutes() / 60));
+        return DeviceState.NO_STORAGE;
     }
 
     private Power getProduction()
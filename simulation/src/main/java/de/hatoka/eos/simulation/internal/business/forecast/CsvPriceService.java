@@ -0,0 +1,364 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.config.CsvPriceConfig;
+import de.hatoka.eos.simulation.capi.business.config.ImportExportChargeConfig;
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * CsvPriceService provides hourly stock prices of CSV resources. Each line contains a local date (yyyy/MM/dd) followed by the stock prices
+ * (per MWh) of the hours of the day, as written by the StockEnergyPriceConverter of the forecast module. The price of the repeated hour at the
+ * end of daylight saving time is used for both hours, the column of the skipped hour is ignored. The charges for import and export are
+ * applied while loading, the prices are kept per hour as fixed point values, so a lookup is one array access.
+ */
+public class CsvPriceService implements EnergyPriceForecast
+{
+    private static final long HOUR_SECONDS = 3600;
+    private static final long MISSING = Long.MIN_VALUE;
+    /**
+     * Stock prices are per MWh, the forecast provides prices per kWh. Up to this number of decimal places a price per MWh is exact in
+     * micro-cents per kWh.
+     */
+    private static final int FIXED_DECIMALS_PER_KWH = FixedMoney.SCALE - 3;
+    private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1_000, 10_000, 100_000 };
+    private static final int DATE_LENGTH = 10;
+    private static final int HOURS_PER_DAY = 24;
+
+    private final String currency;
+    private final long startEpochSecond;
+    private final long[] importPrices;
+    private final long[] exportPrices;
+
+    private CsvPriceService(String currency, long startEpochSecond, long[] importPrices, long[] exportPrices)
+    {
+        this.currency = currency;
+        this.startEpochSecond = startEpochSecond;
+        this.importPrices = importPrices;
+        this.exportPrices = exportPrices;
+    }
+
+    /**
+     * Loads the resources of the configuration. Resources are searched in the class path first, then in the file system. Files are mapped
+     * into memory and parsed without copying.
+     *
+     * @param config csv price configuration
+     * @param zone time zone of the dates in the resources
+     * @return prices of all resources
+     * @throws IOException if a resource can't be read or has an invalid format
+     */
+    public static CsvPriceService load(CsvPriceConfig config, ZoneId zone) throws IOException
+    {
+        Series series = new Series();
+        for (String resource : config.resource())
+        {
+            parse(read(resource), zone, series, resource);
+        }
+        if (series.size == 0)
+        {
+            throw new IOException("No prices found in " + config.resource());
+        }
+        long importCharge = toFixedPerKwh(config.importCharge(), config.currency());
+        long exportCharge = toFixedPerKwh(config.exportCharge(), config.currency());
+        long start = series.min();
+        int hours = Math.toIntExact((series.max() - start) / HOUR_SECONDS + 1);
+        long[] importPrices = new long[hours];
+        long[] exportPrices = new long[hours];
+        Arrays.fill(importPrices, MISSING);
+        Arrays.fill(exportPrices, MISSING);
+        for (int i = 0; i < series.size; i++)
+        {
+            int index = (int)((series.times[i] - start) / HOUR_SECONDS);
+            importPrices[index] = series.prices[i] + importCharge;
+            exportPrices[index] = series.prices[i] - exportCharge;
+        }
+        return new CsvPriceService(config.currency().intern(), start, importPrices, exportPrices);
+    }
+
+    private static long toFixedPerKwh(ImportExportChargeConfig charge, String currency)
+    {
+        if (charge == null)
+        {
+            return 0;
+        }
+        if (!charge.price().currencyMnemonic().equals(currency))
+        {
+            throw new IllegalArgumentException("Charge " + charge.price() + " has not the currency of the prices: " + currency);
+        }
+        return FixedMoney.valueOf(charge.price().divide(charge.energy().amount())).microCents();
+    }
+
+    /**
+     * @param resource class path resource or file
+     * @return content of resource, files are mapped read only
+     */
+    private static ByteBuffer read(String resource) throws IOException
+    {
+        URL url = CsvPriceService.class.getClassLoader().getResource(resource);
+        Path file = null;
+        if (url == null)
+        {
+            file = Path.of(resource);
+        }
+        else if ("file".equals(url.getProtocol()))
+        {
+            try
+            {
+                file = Path.of(url.toURI());
+            }
+            catch(URISyntaxException e)
+            {
+                throw new IOException("Invalid resource location: " + url, e);
+            }
+        }
+        if (file == null)
+        {
+            // e.g. resource of a jar
+            try (InputStream inputStream = url.openStream())
+            {
+                return ByteBuffer.wrap(inputStream.readAllBytes());
+            }
+        }
+        if (!Files.isRegularFile(file))
+        {
+            throw new IOException("Resource not found: " + resource);
+        }
+        try (FileChannel channel = FileChannel.open(file))
+        {
+            // mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Parses the lines of the content, the prices are added to the series.
+     */
+    private static void parse(ByteBuffer content, ZoneId zone, Series series, String resource) throws IOException
+    {
+        int position = content.position();
+        int limit = content.limit();
+        int line = 0;
+        while(position < limit)
+        {
+            line++;
+            int end = position;
+            while(end < limit && content.get(end) != '\n')
+            {
+                end++;
+            }
+            int lineEnd = end > position && content.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > position)
+            {
+                parseLine(content, position, lineEnd, zone, series, resource, line);
+            }
+            position = end + 1;
+        }
+    }
+
+    private static void parseLine(ByteBuffer content, int start, int end, ZoneId zone, Series series, String resource, int line)
+                    throws IOException
+    {
+        if (end - start < DATE_LENGTH || content.get(start + 4) != '/' || content.get(start + 7) != '/')
+        {
+            throw new IOException("Invalid date in " + resource + ":" + line);
+        }
+        LocalDate date = LocalDate.of(parseDigits(content, start, 4), parseDigits(content, start + 5, 2), parseDigits(content, start + 8, 2));
+        int position = start + DATE_LENGTH;
+        int hour = 0;
+        while(position < end)
+        {
+            if (content.get(position) != ',')
+            {
+                throw new IOException("Separator expected in " + resource + ":" + line);
+            }
+            if (hour == HOURS_PER_DAY)
+            {
+                throw new IOException("Too many prices in " + resource + ":" + line);
+            }
+            position++;
+            int fieldEnd = position;
+            while(fieldEnd < end && content.get(fieldEnd) != ',')
+            {
+                fieldEnd++;
+            }
+            if (fieldEnd > position)
+            {
+                long price = parseFixedPerKwh(content, position, fieldEnd, resource, line);
+                LocalDateTime time = date.atTime(hour, 0);
+                // no offset for the skipped hour in spring, two offsets for the repeated hour in autumn
+                for (ZoneOffset offset : zone.getRules().getValidOffsets(time))
+                {
+                    series.add(time.toEpochSecond(offset), price);
+                }
+            }
+            hour++;
+            position = fieldEnd;
+        }
+    }
+
+    private static int parseDigits(ByteBuffer content, int start, int length) throws IOException
+    {
+        int result = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            int digit = content.get(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                throw new IOException("Digit expected at position " + i);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * @return decimal price per MWh as fixed point price per kWh, additional decimal places are rounded (HALF_EVEN) like
+     *         {@link FixedMoney#valueOf(Money)}
+     */
+    private static long parseFixedPerKwh(ByteBuffer content, int start, int end, String resource, int line) throws IOException
+    {
+        int position = start;
+        boolean negative = content.get(position) == '-';
+        if (negative)
+        {
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; position < end; position++)
+        {
+            byte b = content.get(position);
+            if (b == '.' && decimals < 0)
+            {
+                decimals = 0;
+            }
+            else if (b >= '0' && b <= '9')
+            {
+                mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), b - '0');
+                digits++;
+                if (decimals >= 0)
+                {
+                    decimals++;
+                }
+            }
+            else
+            {
+                throw new IOException("Invalid price in " + resource + ":" + line);
+            }
+        }
+        if (digits == 0)
+        {
+            throw new IOException("Invalid price in " + resource + ":" + line);
+        }
+        int scale = Math.max(decimals, 0) - FIXED_DECIMALS_PER_KWH;
+        long fixed;
+        if (scale <= 0)
+        {
+            fixed = Math.multiplyExact(mantissa, POWERS_OF_TEN[-scale]);
+        }
+        else
+        {
+            // more decimal places than micro-cents per kWh
+            fixed = BigDecimal.valueOf(mantissa, scale).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        }
+        return negative ? -fixed : fixed;
+    }
+
+    private int indexOf(long epochSecond)
+    {
+        long index = Math.floorDiv(epochSecond - startEpochSecond, HOUR_SECONDS);
+        if (index < 0 || index >= importPrices.length || importPrices[(int)index] == MISSING)
+        {
+            throw new IllegalStateException("No energy price available at " + Instant.ofEpochSecond(epochSecond));
+        }
+        return (int)index;
+    }
+
+    @Override
+    public Money getImportPrice(ZonedDateTime time)
+    {
+        return getFixedImportPrice(time).toMoney();
+    }
+
+    @Override
+    public Money getExportPrice(ZonedDateTime time)
+    {
+        return getFixedExportPrice(time).toMoney();
+    }
+
+    @Override
+    public FixedMoney getFixedImportPrice(ZonedDateTime time)
+    {
+        return new FixedMoney(importPrices[indexOf(time.toEpochSecond())], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(ZonedDateTime time)
+    {
+        return new FixedMoney(exportPrices[indexOf(time.toEpochSecond())], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedImportPrice(TimeGrid timeGrid, int index)
+    {
+        return new FixedMoney(importPrices[indexOf(timeGrid.getEpochSecond(index))], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(TimeGrid timeGrid, int index)
+    {
+        return new FixedMoney(exportPrices[indexOf(timeGrid.getEpochSecond(index))], currency);
+    }
+
+    /**
+     * Growing primitive arrays of parsed prices
+     */
+    private static class Series
+    {
+        private long[] times = new long[1024];
+        private long[] prices = new long[1024];
+        private int size;
+
+        private void add(long epochSecond, long price)
+        {
+            if (size == times.length)
+            {
+                times = Arrays.copyOf(times, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            times[size] = epochSecond;
+            prices[size] = price;
+            size++;
+        }
+
+        private long min()
+        {
+            return Arrays.stream(times, 0, size).min().orElseThrow();
+        }
+
+        private long max()
+        {
+            return Arrays.stream(times, 0, size).max().orElseThrow();
+        }
+    }
+}
@@ -2,29 +2,89 @@ package de.hatoka.eos.simulation.internal.business.forecast;
 
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockDao;
 import de.hatoka.eos.persistence.capi.energystock.EnergyStockKey;
+import de.hatoka.eos.persistence.capi.energystock.EnergyStockPO;
 import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
 import de.hatoka.eos.units.capi.Money;
+import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+/**
+ * Energy prices of the energy stock, prices are loaded per day and cached (see {@link ForecastCache}).
+ */
 @Singleton
 public class DaoEnergyPriceForecast implements EnergyPriceForecast
 {
+    /**
+     * Same tolerance as a single lookup of the dao
+     */
+    private static final Duration TOLERANCE = Duration.ofMinutes(1);
+
     @Inject
     private EnergyStockDao stockDao;
 
+    /**
+     * Maximal number of cached days
+     */
+    @ConfigProperty(name = "eos.forecast.cache.max-days", defaultValue = "62")
+    int maxDays;
+
+    /**
+     * Time after that cached days are loaded again
+     */
+    @ConfigProperty(name = "eos.forecast.cache.expire-after", defaultValue = "PT1H")
+    Duration expireAfter;
+
+    private ForecastCache<EnergyStockPO> cache;
+
+    @PostConstruct
+    void init()
+    {
+        cache = new ForecastCache<>(this::loadPrices, maxDays, expireAfter, TOLERANCE, Clock.systemUTC());
+    }
+
+    private NavigableMap<Long, EnergyStockPO> loadPrices(long fromMillis, long toMillis)
+    {
+        NavigableMap<Long, EnergyStockPO> result = new TreeMap<>();
+        stockDao.forEachInRange(new EnergyStockKey(fromMillis), new EnergyStockKey(toMillis), (key, data) -> result.put(key.time(), data));
+        return result;
+    }
+
+    private EnergyStockPO getStock(ZonedDateTime time)
+    {
+        EnergyStockPO stock = cache.get(EnergyStockKey.valueOf(time).time());
+        if (stock == null)
+        {
+            throw new IllegalStateException("No energy price available at " + time);
+        }
+        return stock;
+    }
+
     @Override
     public Money getImportPrice(ZonedDateTime time)
     {
         // config.dynamicPriceConfig().importCharge()
-        return stockDao.get(EnergyStockKey.valueOf(time)).getDayAheadPrice();
+        return getStock(time).getDayAheadPrice();
     }
 
     @Override
     public Money getExportPrice(ZonedDateTime time)
     {
-        return stockDao.get(EnergyStockKey.valueOf(time)).getDayAheadPrice();
+        return getStock(time).getDayAheadPrice();
+    }
+
+    /**
+     * @return counters of the price cache
+     */
+    public ForecastCache.Statistics getCacheStatistics()
+    {
+        return cache.getStatistics();
     }
 }
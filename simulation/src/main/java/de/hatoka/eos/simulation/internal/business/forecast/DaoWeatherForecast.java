@@ -0,0 +1,97 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.Percentage;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * DaoWeatherForecast contains the stored sun probabilities of a horizon (e.g. hourly values of a weather station). Times between two values
+ * are interpolated linearly, so steps shorter than the forecast resolution get smooth values. Times outside the loaded values or in larger gaps
+ * are requested from the fallback forecast. The series is immutable and can be shared between simulations running in parallel.
+ */
+public class DaoWeatherForecast implements WeatherForecast
+{
+    /**
+     * Values with a larger distance are not interpolated
+     */
+    static final Duration MAX_GAP = Duration.ofHours(3);
+
+    private final long[] times;
+    private final double[] sunFractions;
+    private final WeatherForecast fallback;
+
+    /**
+     * @param times epoch milli seconds of the values in ascending order
+     * @param sunFractions sun probabilities as fraction (0..1)
+     * @param fallback forecast for times without values
+     */
+    DaoWeatherForecast(long[] times, double[] sunFractions, WeatherForecast fallback)
+    {
+        if (times.length != sunFractions.length)
+        {
+            throw new IllegalArgumentException("Each time needs a value: " + times.length + " != " + sunFractions.length);
+        }
+        this.times = times;
+        this.sunFractions = sunFractions;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return number of loaded values
+     */
+    public int size()
+    {
+        return times.length;
+    }
+
+    /**
+     * @param epochMillis time
+     * @return interpolated sun fraction, NaN if there are no values around the time
+     */
+    private double interpolate(long epochMillis)
+    {
+        int index = Arrays.binarySearch(times, epochMillis);
+        if (index >= 0)
+        {
+            return sunFractions[index];
+        }
+        int next = -index - 1;
+        if (next == 0 || next == times.length)
+        {
+            return Double.NaN;
+        }
+        long from = times[next - 1];
+        long to = times[next];
+        if (to - from > MAX_GAP.toMillis())
+        {
+            return Double.NaN;
+        }
+        double weight = (double)(epochMillis - from) / (to - from);
+        return sunFractions[next - 1] + (sunFractions[next] - sunFractions[next - 1]) * weight;
+    }
+
+    @Override
+    public Percentage getSunProbability(ZonedDateTime time)
+    {
+        double result = interpolate(time.toInstant().toEpochMilli());
+        return Double.isNaN(result) ? fallback.getSunProbability(time) : new Percentage(result);
+    }
+
+    @Override
+    public Percentage getSunProbability(TimeGrid timeGrid, int index)
+    {
+        double result = interpolate(timeGrid.getEpochSecond(index) * 1000);
+        return Double.isNaN(result) ? fallback.getSunProbability(timeGrid, index) : new Percentage(result);
+    }
+
+    @Override
+    public double getSunFraction(TimeGrid timeGrid, int index)
+    {
+        double result = interpolate(timeGrid.getEpochSecond(index) * 1000);
+        return Double.isNaN(result) ? fallback.getSunFraction(timeGrid, index) : result;
+    }
+}
@@ -0,0 +1,74 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.persistence.capi.weather.WeatherDataSource;
+import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
+import de.hatoka.eos.persistence.capi.weather.WeatherStation;
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecast;
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecastLoader;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Loads the weather forecast of a station with one range request of the dao. The horizon is extended by the maximal interpolation gap on
+ * both sides, so the first and last steps can be interpolated. Missing values are taken from {@link FlatWeatherService#FULL_FROM_7_to_18}.
+ */
+@Singleton
+public class DaoWeatherForecastLoader implements WeatherForecastLoader
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaoWeatherForecastLoader.class);
+    private static final int INITIAL_CAPACITY = 64;
+
+    @Inject
+    private WeatherForcastDAO weatherDao;
+
+    /**
+     * Source of the stored weather forecast
+     */
+    @ConfigProperty(name = "eos.forecast.weather.source", defaultValue = "OPENMETEO")
+    WeatherDataSource source;
+
+    @Override
+    public WeatherForecast load(WeatherStation station, ZonedDateTime startDate, ZonedDateTime endDate)
+    {
+        ZonedDateTime from = startDate.minus(DaoWeatherForecast.MAX_GAP);
+        ZonedDateTime to = endDate.plus(DaoWeatherForecast.MAX_GAP);
+        Series series = new Series();
+        weatherDao.forEachInRange(WeatherForecastKey.valueOf(station, from, source), WeatherForecastKey.valueOf(station, to, source),
+                        (key, data) -> series.add(key.time(), data.getSunProbability().toFraction()));
+        if (series.size == 0)
+        {
+            LOGGER.warn("No weather forecast of {} ({}) from {} to {}, using flat weather", station, source, startDate, endDate);
+        }
+        return new DaoWeatherForecast(Arrays.copyOf(series.times, series.size), Arrays.copyOf(series.sunFractions, series.size),
+                        FlatWeatherService.FULL_FROM_7_to_18);
+    }
+
+    /**
+     * Growing primitive arrays, values arrive in order of time
+     */
+    private static class Series
+    {
+        private long[] times = new long[INITIAL_CAPACITY];
+        private double[] sunFractions = new double[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(long time, double sunFraction)
+        {
+            if (size == times.length)
+            {
+                times = Arrays.copyOf(times, size * 2);
+                sunFractions = Arrays.copyOf(sunFractions, size * 2);
+            }
+            times[size] = time;
+            sunFractions[size] = sunFraction;
+            size++;
+        }
+    }
+}
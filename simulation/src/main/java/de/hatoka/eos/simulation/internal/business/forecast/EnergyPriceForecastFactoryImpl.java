@@ -0,0 +1,38 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.config.GridConfig;
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecastFactory;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.time.ZoneId;
+
+@Singleton
+public class EnergyPriceForecastFactoryImpl implements EnergyPriceForecastFactory
+{
+    @Inject
+    DaoEnergyPriceForecast daoPriceForecast;
+
+    @Override
+    public EnergyPriceForecast create(GridConfig config, ZoneId zone) throws IOException
+    {
+        if (config == null || config.type() == null)
+        {
+            return FlatPriceService.GERMAN_RESIDENTIAL;
+        }
+        return switch(config.type())
+        {
+            case FLAT -> config.flatPriceConfig() == null ? FlatPriceService.GERMAN_RESIDENTIAL : new FlatPriceService(config.flatPriceConfig());
+            case DAO -> daoPriceForecast;
+            case CSV -> {
+                if (config.csvPriceConfig() == null)
+                {
+                    throw new IllegalArgumentException("Grid of type CSV requires a csvPriceProvider");
+                }
+                yield CsvPriceService.load(config.csvPriceConfig(), zone);
+            }
+        };
+    }
+}
@@ -2,6 +2,8 @@ package de.hatoka.eos.simulation.internal.business.forecast;
 
 import de.hatoka.eos.simulation.capi.business.config.FlatPriceConfig;
 import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.FixedMoney;
 import de.hatoka.eos.units.capi.Money;
 
 import java.time.ZonedDateTime;
@@ -15,11 +17,15 @@ public class FlatPriceService implements EnergyPriceForecast
 
     private final Money importPrice;
     private final Money exportPrice;
+    private final FixedMoney fixedImportPrice;
+    private final FixedMoney fixedExportPrice;
 
     public FlatPriceService(FlatPriceConfig config)
     {
         this.importPrice = config.importPrice();
         this.exportPrice = config.exportPrice();
+        this.fixedImportPrice = FixedMoney.valueOf(importPrice);
+        this.fixedExportPrice = FixedMoney.valueOf(exportPrice);
     }
 
     @Override
@@ -33,4 +39,28 @@ public class FlatPriceService implements EnergyPriceForecast
     {
         return exportPrice;
     }
+
+    @Override
+    public FixedMoney getFixedImportPrice(ZonedDateTime time)
+    {
+        return fixedImportPrice;
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(ZonedDateTime time)
+    {
+        return fixedExportPrice;
+    }
+
+    @Override
+    public FixedMoney getFixedImportPrice(TimeGrid timeGrid, int index)
+    {
+        return fixedImportPrice;
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(TimeGrid timeGrid, int index)
+    {
+        return fixedExportPrice;
+    }
 }
@@ -1,6 +1,7 @@
 package de.hatoka.eos.simulation.internal.business.forecast;
 
 import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.units.capi.Percentage;
 
 import java.time.ZonedDateTime;
@@ -21,9 +22,17 @@ public class FlatWeatherService implements WeatherForecast
     @Override
     public Percentage getSunProbability(ZonedDateTime zonedTime)
     {
-        // Convert Date to ZonedDateTime using the configured timezone
-        int hour = zonedTime.getHour();
+        return getSunProbability(zonedTime.getHour());
+    }
+
+    @Override
+    public Percentage getSunProbability(TimeGrid timeGrid, int index)
+    {
+        return getSunProbability(timeGrid.getHour(index));
+    }
 
+    private Percentage getSunProbability(int hour)
+    {
         // Outside sun hours
         if (hour <= startHour || hour >= endHour)
         {
@@ -0,0 +1,196 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ForecastCache keeps forecast values of whole days (UTC), a miss loads the complete day with one range request. Concurrent misses for the same
+ * day share one load (single flight), so parallel simulations don't request the same data multiple times. The number of cached days is bounded,
+ * the oldest loaded days are evicted first. Days expire after a configured time and are loaded again.
+ *
+ * @param <V> cached value
+ */
+public class ForecastCache<V>
+{
+    /**
+     * Loads all values of a time range.
+     *
+     * @param <V> loaded value
+     */
+    @FunctionalInterface
+    public interface RangeLoader<V>
+    {
+        /**
+         * @param fromMillis start of range (inclusive, epoch milli seconds)
+         * @param toMillis end of range (exclusive, epoch milli seconds)
+         * @return values by epoch milli seconds
+         */
+        NavigableMap<Long, V> load(long fromMillis, long toMillis);
+    }
+
+    /**
+     * @param hits lookups answered by a cached or currently loading day
+     * @param misses lookups that loaded a day
+     * @param evictions days removed because of the size limit
+     * @param size cached days
+     */
+    public record Statistics(long hits, long misses, long evictions, int size)
+    {
+    }
+
+    private record Day<V>(CompletableFuture<NavigableMap<Long, V>> values, long loadedAt)
+    {
+    }
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final RangeLoader<V> loader;
+    private final int maxDays;
+    private final long expireAfterMillis;
+    private final long toleranceMillis;
+    private final Clock clock;
+    private final Map<Long, Day<V>> days = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param loader loads values of a day
+     * @param maxDays maximal number of cached days
+     * @param expireAfter time after that a loaded day is loaded again
+     * @param tolerance maximal distance between requested time and time of a value
+     * @param clock clock for expiration
+     */
+    public ForecastCache(RangeLoader<V> loader, int maxDays, Duration expireAfter, Duration tolerance, Clock clock)
+    {
+        if (maxDays < 1)
+        {
+            throw new IllegalArgumentException("At least one day must be cached: " + maxDays);
+        }
+        this.loader = loader;
+        this.maxDays = maxDays;
+        this.expireAfterMillis = expireAfter.toMillis();
+        this.toleranceMillis = tolerance.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @param epochMillis requested time
+     * @return value next to the requested time (within tolerance of the same day), null if there is no value
+     */
+    public V get(long epochMillis)
+    {
+        NavigableMap<Long, V> values = getDay(Math.floorDiv(epochMillis, DAY_MILLIS));
+        V value = values.get(epochMillis);
+        if (value != null || toleranceMillis == 0)
+        {
+            return value;
+        }
+        Map.Entry<Long, V> floor = values.floorEntry(epochMillis);
+        Map.Entry<Long, V> ceiling = values.ceilingEntry(epochMillis);
+        long floorDistance = floor == null ? Long.MAX_VALUE : epochMillis - floor.getKey();
+        long ceilingDistance = ceiling == null ? Long.MAX_VALUE : ceiling.getKey() - epochMillis;
+        if (Math.min(floorDistance, ceilingDistance) > toleranceMillis)
+        {
+            return null;
+        }
+        return floorDistance <= ceilingDistance ? floor.getValue() : ceiling.getValue();
+    }
+
+    private NavigableMap<Long, V> getDay(long epochDay)
+    {
+        long now = clock.millis();
+        Day<V> cached = days.get(epochDay);
+        if (cached != null && !isExpired(cached, now))
+        {
+            hits.increment();
+            return join(cached);
+        }
+        Day<V> loading = new Day<>(new CompletableFuture<>(), now);
+        Day<V> day = days.compute(epochDay, (d, existing) -> existing == null || isExpired(existing, now) ? loading : existing);
+        if (day != loading)
+        {
+            hits.increment();
+            return join(day);
+        }
+        misses.increment();
+        try
+        {
+            loading.values().complete(loader.load(epochDay * DAY_MILLIS, (epochDay + 1) * DAY_MILLIS));
+        }
+        catch(Throwable e)
+        {
+            // next lookup tries again, waiting lookups fail too (also on errors)
+            days.remove(epochDay, loading);
+            loading.values().completeExceptionally(e);
+            throw e;
+        }
+        evict();
+        return join(loading);
+    }
+
+    private boolean isExpired(Day<V> day, long now)
+    {
+        return day.values().isDone() && now - day.loadedAt() >= expireAfterMillis;
+    }
+
+    private static <V> NavigableMap<Long, V> join(Day<V> day)
+    {
+        try
+        {
+            return day.values().join();
+        }
+        catch(CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the days loaded first, until the size limit is reached.
+     */
+    private void evict()
+    {
+        while(days.size() > maxDays)
+        {
+            Map.Entry<Long, Day<V>> oldest = null;
+            for (Map.Entry<Long, Day<V>> entry : days.entrySet())
+            {
+                if (oldest == null || entry.getValue().loadedAt() < oldest.getValue().loadedAt())
+                {
+                    oldest = entry;
+                }
+            }
+            if (oldest != null && days.remove(oldest.getKey(), oldest.getValue()))
+            {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached days.
+     */
+    public void clear()
+    {
+        days.clear();
+    }
+
+    /**
+     * @return counters of the cache
+     */
+    public Statistics getStatistics()
+    {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), days.size());
+    }
+}
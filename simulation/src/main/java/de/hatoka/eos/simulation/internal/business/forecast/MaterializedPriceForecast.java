@@ -0,0 +1,112 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Money;
+
+import java.time.ZonedDateTime;
+
+/**
+ * MaterializedPriceForecast contains the import and export prices of a price forecast sampled at each step of a time grid. Prices are held as
+ * micro-cents in primitive arrays with one interned currency, {@link FixedMoney} values are created on access only, so the grid accounting
+ * doesn't need conversions. The series is immutable and can be shared between simulations running in parallel. Times outside the grid are
+ * requested from the original forecast.
+ */
+public class MaterializedPriceForecast implements EnergyPriceForecast
+{
+    private final EnergyPriceForecast source;
+    private final TimeGrid timeGrid;
+    private final String currency;
+    private final long[] importPrices;
+    private final long[] exportPrices;
+
+    private MaterializedPriceForecast(EnergyPriceForecast source, TimeGrid timeGrid, String currency, long[] importPrices, long[] exportPrices)
+    {
+        this.source = source;
+        this.timeGrid = timeGrid;
+        this.currency = currency;
+        this.importPrices = importPrices;
+        this.exportPrices = exportPrices;
+    }
+
+    /**
+     * @param source price forecast, all prices of the time grid must have the same currency
+     * @param timeGrid steps to sample
+     * @return forecast with sampled values of the source
+     */
+    public static MaterializedPriceForecast valueOf(EnergyPriceForecast source, TimeGrid timeGrid)
+    {
+        if (source instanceof MaterializedPriceForecast materialized && materialized.timeGrid == timeGrid)
+        {
+            return materialized;
+        }
+        long[] importPrices = new long[timeGrid.size()];
+        long[] exportPrices = new long[timeGrid.size()];
+        String currency = null;
+        for (int i = 0; i < importPrices.length; i++)
+        {
+            FixedMoney importPrice = source.getFixedImportPrice(timeGrid, i);
+            FixedMoney exportPrice = source.getFixedExportPrice(timeGrid, i);
+            if (currency == null)
+            {
+                currency = importPrice.currencyMnemonic().intern();
+            }
+            if (!importPrice.isSameCurrency(currency) || !exportPrice.isSameCurrency(currency))
+            {
+                throw new IllegalArgumentException("Prices of the forecast have different currencies: " + currency + " and " + importPrice + ", "
+                                + exportPrice + " at " + timeGrid.getDateTime(i));
+            }
+            importPrices[i] = importPrice.microCents();
+            exportPrices[i] = exportPrice.microCents();
+        }
+        return new MaterializedPriceForecast(source, timeGrid, currency, importPrices, exportPrices);
+    }
+
+    private int indexOf(ZonedDateTime time)
+    {
+        return time.getNano() == 0 ? timeGrid.indexOfStart(time.toEpochSecond()) : -1;
+    }
+
+    @Override
+    public Money getImportPrice(ZonedDateTime time)
+    {
+        int index = indexOf(time);
+        return index < 0 ? source.getImportPrice(time) : new FixedMoney(importPrices[index], currency).toMoney();
+    }
+
+    @Override
+    public Money getExportPrice(ZonedDateTime time)
+    {
+        int index = indexOf(time);
+        return index < 0 ? source.getExportPrice(time) : new FixedMoney(exportPrices[index], currency).toMoney();
+    }
+
+    @Override
+    public FixedMoney getFixedImportPrice(ZonedDateTime time)
+    {
+        int index = indexOf(time);
+        return index < 0 ? source.getFixedImportPrice(time) : new FixedMoney(importPrices[index], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(ZonedDateTime time)
+    {
+        int index = indexOf(time);
+        return index < 0 ? source.getFixedExportPrice(time) : new FixedMoney(exportPrices[index], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedImportPrice(TimeGrid timeGrid, int index)
+    {
+        int ownIndex = this.timeGrid.indexOfStart(timeGrid.getEpochSecond(index));
+        return ownIndex < 0 ? source.getFixedImportPrice(timeGrid, index) : new FixedMoney(importPrices[ownIndex], currency);
+    }
+
+    @Override
+    public FixedMoney getFixedExportPrice(TimeGrid timeGrid, int index)
+    {
+        int ownIndex = this.timeGrid.indexOfStart(timeGrid.getEpochSecond(index));
+        return ownIndex < 0 ? source.getFixedExportPrice(timeGrid, index) : new FixedMoney(exportPrices[ownIndex], currency);
+    }
+}
@@ -0,0 +1,77 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecast;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.units.capi.Percentage;
+
+import java.time.ZonedDateTime;
+
+/**
+ * MaterializedWeatherForecast contains the sun probabilities of a weather forecast sampled at each step of a time grid. The series is immutable
+ * and can be shared between simulations running in parallel. Times outside the grid are requested from the original forecast.
+ */
+public class MaterializedWeatherForecast implements WeatherForecast
+{
+    private final WeatherForecast source;
+    private final TimeGrid timeGrid;
+    private final double[] sunProbability;
+
+    private MaterializedWeatherForecast(WeatherForecast source, TimeGrid timeGrid, double[] sunProbability)
+    {
+        this.source = source;
+        this.timeGrid = timeGrid;
+        this.sunProbability = sunProbability;
+    }
+
+    /**
+     * @param source weather forecast
+     * @param timeGrid steps to sample
+     * @return forecast with sampled values of the source
+     */
+    public static MaterializedWeatherForecast valueOf(WeatherForecast source, TimeGrid timeGrid)
+    {
+        if (source instanceof MaterializedWeatherForecast materialized && materialized.timeGrid == timeGrid)
+        {
+            return materialized;
+        }
+        double[] sunProbability = new double[timeGrid.size()];
+        for (int i = 0; i < sunProbability.length; i++)
+        {
+            sunProbability[i] = source.getSunProbability(timeGrid, i).toFraction();
+        }
+        return new MaterializedWeatherForecast(source, timeGrid, sunProbability);
+    }
+
+    @Override
+    public Percentage getSunProbability(ZonedDateTime time)
+    {
+        int index = time.getNano() == 0 ? this.timeGrid.indexOfStart(time.toEpochSecond()) : -1;
+        if (index < 0)
+        {
+            return source.getSunProbability(time);
+        }
+        return new Percentage(sunProbability[index]);
+    }
+
+    @Override
+    public Percentage getSunProbability(TimeGrid timeGrid, int index)
+    {
+        int ownIndex = this.timeGrid.indexOfStart(timeGrid.getEpochSecond(index));
+        if (ownIndex < 0)
+        {
+            return source.getSunProbability(timeGrid, index);
+        }
+        return new Percentage(sunProbability[ownIndex]);
+    }
+
+    @Override
+    public double getSunFraction(TimeGrid timeGrid, int index)
+    {
+        int ownIndex = this.timeGrid.indexOfStart(timeGrid.getEpochSecond(index));
+        if (ownIndex < 0)
+        {
+            return source.getSunFraction(timeGrid, index);
+        }
+        return sunProbability[ownIndex];
+    }
+}
@@ -3,14 +3,16 @@ package de.hatoka.eos.simulation.internal.business.simulation;
 import de.hatoka.eos.simulation.capi.business.device.Device;
 import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
 import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.device.StorageDevice;
+import de.hatoka.eos.simulation.capi.business.metrics.MetricsExport;
 import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
 import de.hatoka.eos.simulation.capi.business.simulation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -21,73 +23,207 @@ public class Simulation
     private final SimulationMetricsExporter simulationMetricsExporter;
     private final List<DeviceManipulator> manipulators;
 
-    private Map<DeviceRef, DeviceState> currentState;
+    private final SimulationPlan plan;
     private Map<DeviceRef, Device> currentDevices;
+    private SimulationCheckpoint resumeFrom;
+    private List<SimulationCheckpoint> checkpoints;
+    private long checkpointIntervalSeconds;
+    private long nextCheckpoint = Long.MIN_VALUE;
+    private SimulationTrace.Storage traceStorage;
+    private SimulationTrace trace;
 
     public Simulation(SimulationRequest request, SimulationMetricsExporter simulationMetricsExporter, List<DeviceManipulator> manipulators)
     {
         this.request = request;
         this.simulationMetricsExporter = simulationMetricsExporter;
         this.manipulators = manipulators;
-        this.currentDevices = request.devices();
+        this.plan = SimulationPlan.compile(request);
+        // manipulators replace devices in the plan
+        this.currentDevices = plan.getDeviceView();
     }
 
-    public SimulationResult run()
+    /**
+     * Resumes the simulation at the checkpoint instead of the start date.
+     * @param checkpoint checkpoint of the same request (may null)
+     * @return this
+     */
+    public Simulation resumeFrom(SimulationCheckpoint checkpoint)
     {
-        this.currentState = new HashMap<>(this.request.initialState());
-        SimulationStep currentStep = request.getFirstStep();
+        this.resumeFrom = checkpoint;
+        return this;
+    }
 
-        EnergySystem system = EnergySystem.INIT;
-        while(currentStep.startDate().isBefore(this.request.endDate()))
-        {
-            var time = currentStep.startDate();
-            manipulators.forEach(m -> this.currentDevices = m.apply(time, currentDevices));
-            system = executeStep(currentStep, system);
-            currentStep = currentStep.nextTimeSlot();
-        }
-        return new SimulationResult(request, currentStep, currentState, system);
+    /**
+     * Records checkpoints during the run.
+     * @param interval minimal time between two checkpoints
+     * @return this
+     */
+    public Simulation recordCheckpoints(Duration interval)
+    {
+        this.checkpoints = new ArrayList<>();
+        this.checkpointIntervalSeconds = interval.toSeconds();
+        return this;
     }
 
-    private String toString(ZonedDateTime time)
+    /**
+     * @return recorded checkpoints
+     */
+    public List<SimulationCheckpoint> getCheckpoints()
     {
-        return String.format("%02dT%02d:%02d",time.getDayOfMonth(), time.getHour(), time.getMinute());
+        return checkpoints;
     }
 
-    private EnergySystem executeStep(SimulationStep step, EnergySystem system)
+    /**
+     * Records a trace of all steps during the run.
+     * @param storage storage of the trace
+     * @return this
+     */
+    public Simulation recordTrace(SimulationTrace.Storage storage)
     {
-        List<DeviceRef> orderedDevices = orderDevices();
-        EnergySystem updatedSystem = system;
-        for (DeviceRef deviceRef : orderedDevices)
+        this.traceStorage = storage;
+        return this;
+    }
+
+    /**
+     * @return recorded trace
+     */
+    public SimulationTrace getTrace()
+    {
+        return trace;
+    }
+
+    public SimulationResult run()
+    {
+        TimeGrid timeGrid = request.createTimeGrid();
+        int firstIndex = 0;
+
+        EnergySystemAccumulator system = new EnergySystemAccumulator();
+        if (resumeFrom != null)
         {
-            Device device = currentDevices.get(deviceRef);
-            DeviceState deviceState = currentState.computeIfAbsent(deviceRef, (d) -> device.getInitialState());
-            SimulationStepResult stepResult = device.simulate(step, updatedSystem, deviceState);
-            if (!stepResult.deviceState().equals(deviceState))
+            firstIndex = resumeFrom.index();
+            system.set(resumeFrom.system());
+            plan.restore(resumeFrom.deviceStates());
+        }
+        if (traceStorage != null)
+        {
+            trace = SimulationTrace.allocate(plan.getDeviceRefs(), timeGrid.size() - firstIndex, traceStorage);
+            trace.setStart(system);
+        }
+        boolean exportSteps = request.metricsExport() == MetricsExport.FULL;
+        if (exportSteps)
+        {
+            simulationMetricsExporter.beginSimulation(request);
+        }
+        try
+        {
+            for (int i = firstIndex; i < timeGrid.size(); i++)
             {
-                LOGGER.trace("device changed {}@{} {}", deviceRef, toString(step.startDate()), stepResult.deviceState());
+                // the start date of the step is created only if needed (e.g. export)
+                SimulationStep step = new SimulationStep(timeGrid, i, request.stepDuration(), request.services());
+                if (checkpoints != null)
+                {
+                    recordCheckpoint(step, system);
+                }
+                if (!manipulators.isEmpty())
+                {
+                    var time = step.startDate();
+                    manipulators.forEach(m -> this.currentDevices = m.apply(time, currentDevices));
+                    plan.bind(currentDevices);
+                }
+                executeStep(step, system, exportSteps);
+                if (trace != null)
+                {
+                    recordTrace(step, system);
+                }
             }
-            if (!updatedSystem.equals(stepResult.system()))
+        }
+        finally
+        {
+            if (exportSteps)
             {
-                LOGGER.trace("system changed {}@{} {}", deviceRef, toString(step.startDate()), stepResult.system());
+                simulationMetricsExporter.endSimulation(request);
             }
-            updatedSystem = stepResult.system();
-            currentState.put(deviceRef, stepResult.deviceState());
         }
-        simulationMetricsExporter.exportMetrics(new SimulationResult(request, step, currentState, updatedSystem.subtract(system)));
-        return updatedSystem;
+        SimulationStep endStep = new SimulationStep(timeGrid, timeGrid.size() - 1, request.stepDuration(), request.services()).nextTimeSlot();
+        SimulationResult result = new SimulationResult(request, endStep, plan.toStateMap(request.initialState()), system.toEnergySystem());
+        if (request.metricsExport() == MetricsExport.SUMMARY)
+        {
+            exportSummary(result);
+        }
+        return result;
     }
 
     /**
-     * Creates the priorities of each device
-     *
-     * @return list of devices ordered by priority (first by type, then by id for consistent ordering)
+     * Exports one result for the whole horizon of the simulation.
      */
-    private List<DeviceRef> orderDevices()
+    private void exportSummary(SimulationResult result)
+    {
+        SimulationStep horizon = new SimulationStep(request.startDate(), Duration.between(request.startDate(), request.endDate()), request.services());
+        simulationMetricsExporter.beginSimulation(request);
+        try
+        {
+            simulationMetricsExporter.exportMetrics(new SimulationResult(request, horizon, result.endState(), result.system()));
+        }
+        finally
+        {
+            simulationMetricsExporter.endSimulation(request);
+        }
+    }
+
+    private void recordCheckpoint(SimulationStep step, EnergySystemAccumulator system)
+    {
+        long epochSecond = step.timeGrid().getEpochSecond(step.index());
+        if (epochSecond < nextCheckpoint)
+        {
+            return;
+        }
+        checkpoints.add(new SimulationCheckpoint(step.index(), step.startDate(), plan.toStateMap(Map.of()), system.toEnergySystem()));
+        nextCheckpoint = epochSecond + checkpointIntervalSeconds;
+    }
+
+    private void recordTrace(SimulationStep step, EnergySystemAccumulator system)
+    {
+        int row = trace.recordStep(step.timeGrid().getEpochSecond(step.index()), system);
+        for (int i = 0; i < plan.size(); i++)
+        {
+            trace.recordDevice(row, i, plan.getMaxEnergy(i), plan.getStateOfCharge(i));
+        }
+    }
+
+    private String toString(ZonedDateTime time)
+    {
+        return String.format("%02dT%02d:%02d",time.getDayOfMonth(), time.getHour(), time.getMinute());
+    }
+
+    private void executeStep(SimulationStep step, EnergySystemAccumulator system, boolean export)
     {
-        return request.devices()
-                      .keySet()
-                      .stream()
-                      .sorted(Comparator.comparingInt((DeviceRef a) -> a.type().ordinal()).thenComparing(DeviceRef::id))
-                      .toList();
+        EnergySystem stepStart = export ? system.toEnergySystem() : null;
+        for (int i = 0; i < plan.size(); i++)
+        {
+            Device device = plan.getDevice(i);
+            if (device instanceof StorageDevice storage)
+            {
+                // primitive state, no device state records per step
+                double stateOfCharge = plan.getStateOfCharge(i);
+                double newStateOfCharge = storage.simulate(step, system, plan.getMaxEnergy(i), stateOfCharge);
+                if (LOGGER.isTraceEnabled() && newStateOfCharge != stateOfCharge)
+                {
+                    LOGGER.trace("device changed {}@{} {}", plan.getDeviceRef(i), toString(step.startDate()), newStateOfCharge);
+                }
+                plan.setStateOfCharge(i, newStateOfCharge);
+                continue;
+            }
+            DeviceState deviceState = plan.getState(i);
+            DeviceState newDeviceState = device.simulate(step, system, deviceState);
+            if (LOGGER.isTraceEnabled() && !newDeviceState.equals(deviceState))
+            {
+                LOGGER.trace("device changed {}@{} {}", plan.getDeviceRef(i), toString(step.startDate()), newDeviceState);
+            }
+            plan.setState(i, newDeviceState);
+        }
+        if (export)
+        {
+            simulationMetricsExporter.exportMetrics(new SimulationResult(request, step, plan.getStateView(), system.toEnergySystem().subtract(stepStart)));
+        }
     }
 }
@@ -0,0 +1,356 @@
+package de.hatoka.eos.simulation.internal.business.simulation;
+
+import de.hatoka.eos.simulation.capi.business.device.Device;
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.Percentage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * SimulationPlan is the compiled execution order of the devices of one simulation run. Each device gets a dense index (ordered first by type,
+ * then by id), devices and device states are held in arrays of that order. The state of a device is kept as capacity and primitive state of
+ * charge, {@link DeviceState} records are only created on access (e.g. export, checkpoints). The plan is created once per run, so the simulation
+ * loop doesn't need to sort or hash per step.
+ */
+class SimulationPlan
+{
+    private static final Comparator<DeviceRef> EXECUTION_ORDER = Comparator.comparingInt((DeviceRef a) -> a.type().ordinal())
+                                                                           .thenComparing(DeviceRef::id);
+
+    private final DeviceRef[] deviceRefs;
+    private final Map<DeviceRef, Integer> indexes = new HashMap<>();
+    private final Device[] devices;
+    /**
+     * capacity of device, null if the device has no state yet
+     */
+    private final Energy[] maxEnergies;
+    private final double[] stateOfCharge;
+    /**
+     * created device states, null if not created yet or outdated
+     */
+    private final DeviceState[] states;
+    private final Map<DeviceRef, DeviceState> stateView = new SlotView<>()
+    {
+        @Override
+        protected boolean isPresent(int index)
+        {
+            return maxEnergies[index] != null;
+        }
+
+        @Override
+        protected DeviceState get(int index)
+        {
+            return toDeviceState(index);
+        }
+    };
+    private final Map<DeviceRef, Device> deviceView = new SlotView<>()
+    {
+        @Override
+        protected boolean isPresent(int index)
+        {
+            return true;
+        }
+
+        @Override
+        protected Device get(int index)
+        {
+            return devices[index];
+        }
+
+        @Override
+        public Device put(DeviceRef key, Device value)
+        {
+            Integer index = indexes.get(key);
+            if (index == null)
+            {
+                throw new IllegalArgumentException("Device isn't part of simulation: " + key);
+            }
+            Device result = devices[index];
+            devices[index] = value;
+            return result;
+        }
+    };
+
+    private SimulationPlan(DeviceRef[] deviceRefs, Map<DeviceRef, DeviceState> initialState)
+    {
+        this.deviceRefs = deviceRefs;
+        this.devices = new Device[deviceRefs.length];
+        this.maxEnergies = new Energy[deviceRefs.length];
+        this.stateOfCharge = new double[deviceRefs.length];
+        this.states = new DeviceState[deviceRefs.length];
+        for (int i = 0; i < deviceRefs.length; i++)
+        {
+            indexes.put(deviceRefs[i], i);
+            setState(i, initialState.get(deviceRefs[i]));
+        }
+    }
+
+    /**
+     * @param request simulation request
+     * @return execution plan for the devices of the request, with the initial state of the request
+     */
+    public static SimulationPlan compile(SimulationRequest request)
+    {
+        DeviceRef[] deviceRefs = request.devices().keySet().toArray(new DeviceRef[0]);
+        Arrays.sort(deviceRefs, EXECUTION_ORDER);
+        SimulationPlan plan = new SimulationPlan(deviceRefs, request.initialState());
+        plan.bind(request.devices());
+        return plan;
+    }
+
+    /**
+     * @return modifiable view on the current devices, manipulators replace devices of the plan with {@link Map#put(Object, Object)}
+     */
+    public Map<DeviceRef, Device> getDeviceView()
+    {
+        return deviceView;
+    }
+
+    /**
+     * Binds the device instances to the plan. Nothing to do if the devices are the device view of the plan.
+     *
+     * @param currentDevices devices for the next step
+     */
+    public void bind(Map<DeviceRef, Device> currentDevices)
+    {
+        if (currentDevices == deviceView)
+        {
+            return;
+        }
+        for (int i = 0; i < deviceRefs.length; i++)
+        {
+            devices[i] = currentDevices.get(deviceRefs[i]);
+        }
+    }
+
+    /**
+     * @return number of devices
+     */
+    public int size()
+    {
+        return deviceRefs.length;
+    }
+
+    public DeviceRef getDeviceRef(int index)
+    {
+        return deviceRefs[index];
+    }
+
+    /**
+     * @return references of all devices in order of the plan
+     */
+    public List<DeviceRef> getDeviceRefs()
+    {
+        return List.of(deviceRefs);
+    }
+
+    public Device getDevice(int index)
+    {
+        return devices[index];
+    }
+
+    /**
+     * The initial state of the device is used if there is no state yet.
+     */
+    private void ensureState(int index)
+    {
+        if (maxEnergies[index] == null)
+        {
+            setState(index, devices[index].getInitialState());
+        }
+    }
+
+    /**
+     * @param index device index
+     * @return current state of device, the initial state of the device is used if there is no state yet
+     */
+    public DeviceState getState(int index)
+    {
+        ensureState(index);
+        return toDeviceState(index);
+    }
+
+    public void setState(int index, DeviceState state)
+    {
+        states[index] = state;
+        maxEnergies[index] = state == null ? null : state.maxEnergy();
+        stateOfCharge[index] = state == null ? 0.0 : state.percentage().value();
+    }
+
+    /**
+     * @param index device index
+     * @return capacity of device (kWh), the initial state of the device is used if there is no state yet
+     */
+    public double getMaxEnergy(int index)
+    {
+        ensureState(index);
+        return maxEnergies[index].amount();
+    }
+
+    /**
+     * @param index device index
+     * @return state of charge of device, the initial state of the device is used if there is no state yet
+     */
+    public double getStateOfCharge(int index)
+    {
+        ensureState(index);
+        return stateOfCharge[index];
+    }
+
+    /**
+     * @param index device index, the device must have a state
+     * @param value new state of charge
+     */
+    public void setStateOfCharge(int index, double value)
+    {
+        if (value != stateOfCharge[index])
+        {
+            stateOfCharge[index] = value;
+            states[index] = null;
+        }
+    }
+
+    private DeviceState toDeviceState(int index)
+    {
+        DeviceState state = states[index];
+        if (state == null && maxEnergies[index] != null)
+        {
+            state = new DeviceState(maxEnergies[index], new Percentage(stateOfCharge[index]));
+            states[index] = state;
+        }
+        return state;
+    }
+
+    /**
+     * Replaces all device states, devices without state get their initial state on the next step.
+     *
+     * @param deviceStates device states of a checkpoint
+     */
+    public void restore(Map<DeviceRef, DeviceState> deviceStates)
+    {
+        for (int i = 0; i < deviceRefs.length; i++)
+        {
+            setState(i, deviceStates.get(deviceRefs[i]));
+        }
+    }
+
+    /**
+     * @return read only view on the current device states, the view reflects later changes of the plan
+     */
+    public Map<DeviceRef, DeviceState> getStateView()
+    {
+        return stateView;
+    }
+
+    /**
+     * @param initialState initial state of request (may contain additional devices)
+     * @return copy of the current device states
+     */
+    public Map<DeviceRef, DeviceState> toStateMap(Map<DeviceRef, DeviceState> initialState)
+    {
+        Map<DeviceRef, DeviceState> result = new HashMap<>(initialState);
+        for (int i = 0; i < deviceRefs.length; i++)
+        {
+            if (maxEnergies[i] != null)
+            {
+                result.put(deviceRefs[i], toDeviceState(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Map view on the slots of the plan (in order of the plan).
+     *
+     * @param <V> value type
+     */
+    private abstract class SlotView<V> extends AbstractMap<DeviceRef, V>
+    {
+        protected abstract boolean isPresent(int index);
+
+        protected abstract V get(int index);
+
+        @Override
+        public V get(Object key)
+        {
+            Integer index = indexes.get(key);
+            return index == null || !isPresent(index) ? null : get(index.intValue());
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            Integer index = indexes.get(key);
+            return index != null && isPresent(index);
+        }
+
+        @Override
+        public Set<Entry<DeviceRef, V>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public Iterator<Entry<DeviceRef, V>> iterator()
+                {
+                    return new Iterator<>()
+                    {
+                        private int index = nextIndex(0);
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return index < deviceRefs.length;
+                        }
+
+                        @Override
+                        public Entry<DeviceRef, V> next()
+                        {
+                            if (!hasNext())
+                            {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<DeviceRef, V> entry = new SimpleImmutableEntry<>(deviceRefs[index], get(index));
+                            index = nextIndex(index + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    int result = 0;
+                    for (int i = 0; i < deviceRefs.length; i++)
+                    {
+                        if (isPresent(i))
+                        {
+                            result++;
+                        }
+                    }
+                    return result;
+                }
+            };
+        }
+
+        private int nextIndex(int index)
+        {
+            while(index < deviceRefs.length && !isPresent(index))
+            {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -2,20 +2,50 @@ package de.hatoka.eos.simulation.internal.business.simulation;
 
 import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
 import de.hatoka.eos.simulation.capi.business.simulation.DeviceManipulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationCheckpoint;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationCheckpoints;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationTrace;
 import de.hatoka.eos.simulation.capi.business.simulation.Simulator;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 @Singleton
 public class SimulatorImpl implements Simulator
 {
+    static final String EXECUTOR_VIRTUAL_THREADS = "virtual-threads";
+
     @Inject
     private SimulationMetricsExporter metricsExporter;
 
+    /**
+     * Executor for batch simulations: "fork-join" (pool with configured parallelism) or "virtual-threads"
+     */
+    @ConfigProperty(name = "eos.simulation.executor", defaultValue = "fork-join")
+    String executorType;
+
+    /**
+     * Parallelism of fork-join pool, 0 uses the number of available processors
+     */
+    @ConfigProperty(name = "eos.simulation.parallelism", defaultValue = "0")
+    int parallelism;
+
+    private ForkJoinPool forkJoinPool;
+
     @Override
     public SimulationResult simulate(SimulationRequest request)
     {
@@ -27,4 +57,139 @@ public class SimulatorImpl implements Simulator
     {
         return new Simulation(request, metricsExporter, manipulators).run();
     }
+
+    @Override
+    public SimulationCheckpoints simulateWithCheckpoints(SimulationRequest request, Duration interval)
+    {
+        Simulation simulation = new Simulation(request, metricsExporter, List.of()).recordCheckpoints(interval);
+        SimulationResult result = simulation.run();
+        return new SimulationCheckpoints(request, simulation.getCheckpoints(), result);
+    }
+
+    @Override
+    public SimulationResult simulate(SimulationRequest request, List<DeviceManipulator> manipulators, SimulationCheckpoints checkpoints)
+    {
+        return new Simulation(request, metricsExporter, manipulators).resumeFrom(findCheckpoint(request, manipulators, checkpoints)).run();
+    }
+
+    @Override
+    public SimulationTrace simulateWithTrace(SimulationRequest request, List<DeviceManipulator> manipulators, SimulationTrace.Storage storage)
+    {
+        Simulation simulation = new Simulation(request, metricsExporter, manipulators).recordTrace(storage);
+        simulation.run();
+        return simulation.getTrace();
+    }
+
+    /**
+     * @return latest checkpoint before the first change of the manipulators, null if the simulation must start at the beginning
+     */
+    private static SimulationCheckpoint findCheckpoint(SimulationRequest request, List<DeviceManipulator> manipulators,
+                    SimulationCheckpoints checkpoints)
+    {
+        if (checkpoints == null || !checkpoints.isCompatible(request))
+        {
+            return null;
+        }
+        Instant effectiveFrom = Instant.MAX;
+        for (DeviceManipulator manipulator : manipulators)
+        {
+            if (manipulator.getEffectiveFrom().isBefore(effectiveFrom))
+            {
+                effectiveFrom = manipulator.getEffectiveFrom();
+            }
+        }
+        return checkpoints.getLatestBefore(effectiveFrom);
+    }
+
+    @Override
+    public List<SimulationResult> simulateAll(List<SimulationRequest> requests)
+    {
+        return execute(requests.stream().<Supplier<SimulationResult>>map(r -> () -> simulate(r)).toList());
+    }
+
+    @Override
+    public List<SimulationResult> simulateAll(SimulationRequest request, List<List<DeviceManipulator>> manipulatorSets)
+    {
+        return simulateAll(request, manipulatorSets, null);
+    }
+
+    @Override
+    public List<SimulationResult> simulateAll(SimulationRequest request, List<List<DeviceManipulator>> manipulatorSets,
+                    SimulationCheckpoints checkpoints)
+    {
+        List<Supplier<SimulationResult>> simulations = new ArrayList<>(manipulatorSets.size());
+        for (int i = 0; i < manipulatorSets.size(); i++)
+        {
+            // each scenario exports its metrics with its own id, concurrent runs don't share exported state
+            SimulationRequest scenario = request.withMetricsExport(request.simulationId() + "-" + i, request.metricsExport());
+            List<DeviceManipulator> manipulators = manipulatorSets.get(i);
+            simulations.add(() -> simulate(scenario, manipulators, checkpoints));
+        }
+        return execute(simulations);
+    }
+
+    private List<SimulationResult> execute(List<Supplier<SimulationResult>> simulations)
+    {
+        if (simulations.size() < 2)
+        {
+            return simulations.stream().map(Supplier::get).toList();
+        }
+        if (EXECUTOR_VIRTUAL_THREADS.equals(executorType))
+        {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                return execute(executor, simulations);
+            }
+        }
+        return execute(getForkJoinPool(), simulations);
+    }
+
+    private static List<SimulationResult> execute(ExecutorService executor, List<Supplier<SimulationResult>> simulations)
+    {
+        List<Future<SimulationResult>> futures = new ArrayList<>(simulations.size());
+        simulations.forEach(s -> futures.add(executor.submit(s::get)));
+        List<SimulationResult> results = new ArrayList<>(futures.size());
+        try
+        {
+            for (Future<SimulationResult> future : futures)
+            {
+                results.add(future.get());
+            }
+        }
+        catch(InterruptedException e)
+        {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulation interrupted", e);
+        }
+        catch(ExecutionException e)
+        {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Simulation failed", e.getCause());
+        }
+        return results;
+    }
+
+    private synchronized ForkJoinPool getForkJoinPool()
+    {
+        if (forkJoinPool == null)
+        {
+            forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        }
+        return forkJoinPool;
+    }
+
+    @PreDestroy
+    synchronized void shutdown()
+    {
+        if (forkJoinPool != null)
+        {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package de.hatoka.eos.simulation.internal.business.statistics;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.simulation.capi.business.statistics.SolarPanelStatistics;
 import de.hatoka.eos.units.capi.Percentage;
 
@@ -27,8 +28,17 @@ public class CurvePanelStatistic implements SolarPanelStatistics
     public Percentage getEfficiency(ZonedDateTime time)
     {
         // Convert ZonedDateTime to minutes from midnight
-        int currentMinute = time.getHour() * 60 + time.getMinute();
+        return getEfficiency(time.getHour() * 60 + time.getMinute());
+    }
+
+    @Override
+    public Percentage getEfficiency(TimeGrid timeGrid, int index)
+    {
+        return getEfficiency(timeGrid.getMinuteOfDay(index));
+    }
 
+    private Percentage getEfficiency(int currentMinute)
+    {
         // Outside sun hours
         if (currentMinute < startMinute || currentMinute >= endMinute)
         {
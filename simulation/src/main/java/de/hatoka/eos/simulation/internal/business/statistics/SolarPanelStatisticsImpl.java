@@ -1,5 +1,6 @@
 package de.hatoka.eos.simulation.internal.business.statistics;
 
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
 import de.hatoka.eos.simulation.capi.business.statistics.HourlyEfficiency;
 import de.hatoka.eos.simulation.capi.business.statistics.SolarPanelStatisticsConfig;
 import de.hatoka.eos.simulation.capi.business.statistics.SolarPanelStatistics;
@@ -33,17 +34,25 @@ public class SolarPanelStatisticsImpl implements SolarPanelStatistics
                                                                   HourlyEfficiency::getEfficiency)));
     }
 
-    private final Map<Integer, Percentage> hourlyEfficiency;
+    private final Percentage[] hourlyEfficiency = new Percentage[24];
 
     public SolarPanelStatisticsImpl(Map<Integer, Percentage> hourlyEfficiency)
     {
-        this.hourlyEfficiency = hourlyEfficiency;
+        for (int hour = 0; hour < this.hourlyEfficiency.length; hour++)
+        {
+            this.hourlyEfficiency[hour] = hourlyEfficiency.getOrDefault(hour, Percentage.ZERO);
+        }
     }
 
     @Override
     public Percentage getEfficiency(ZonedDateTime time)
     {
-        int hour = time.getHour();
-        return hourlyEfficiency.getOrDefault(hour, Percentage.ZERO);
+        return hourlyEfficiency[time.getHour()];
+    }
+
+    @Override
+    public Percentage getEfficiency(TimeGrid timeGrid, int index)
+    {
+        return hourlyEfficiency[timeGrid.getHour(index)];
     }
 }
\ No newline at end of file
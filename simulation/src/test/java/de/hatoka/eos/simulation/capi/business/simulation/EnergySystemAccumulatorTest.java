@@ -0,0 +1,43 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.Money;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EnergySystemAccumulatorTest
+{
+    @Test
+    public void testAccumulatorMatchesEnergySystem()
+    {
+        EnergySystem expected = EnergySystem.INIT.produce(Energy.ofKwh(3.2))
+                                                 .consume(Energy.ofKwh(1.1))
+                                                 .charge(Energy.ofKwh(0.7))
+                                                 .discharge(Energy.ofKwh(0.3))
+                                                 .importEnergy(Energy.ofKwh(0.4), Money.ofEur(0.12))
+                                                 .exportEnergy(Energy.ofKwh(2.1), Money.ofEur(0.16));
+
+        EnergySystemAccumulator accumulator = new EnergySystemAccumulator();
+        accumulator.produce(3.2);
+        accumulator.consume(1.1);
+        accumulator.charge(0.7);
+        accumulator.discharge(0.3);
+        accumulator.importEnergy(0.4, Money.ofEur(0.12));
+        accumulator.exportEnergy(2.1, Money.ofEur(0.16));
+
+        assertEquals(expected, accumulator.toEnergySystem());
+        assertEquals(expected.getCurrentEnergy().amount(), accumulator.getCurrentEnergy());
+    }
+
+    @Test
+    public void testStartsAtGivenSystem()
+    {
+        EnergySystem start = EnergySystem.INIT.produce(Energy.ofKwh(5.0));
+        EnergySystemAccumulator accumulator = EnergySystemAccumulator.valueOf(start);
+        accumulator.consume(2.0);
+
+        assertEquals(Energy.ofKwh(3.0), accumulator.toEnergySystem().getCurrentEnergy());
+        assertEquals(Energy.ofKwh(2.0), accumulator.toEnergySystem().subtract(start).consumed());
+    }
+}
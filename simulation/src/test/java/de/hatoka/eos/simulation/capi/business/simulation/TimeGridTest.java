@@ -0,0 +1,105 @@
+package de.hatoka.eos.simulation.capi.business.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TimeGridTest
+{
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    private static final Duration QUARTER = Duration.ofMinutes(15);
+
+    private static ZonedDateTime berlin(int year, int month, int day)
+    {
+        return ZonedDateTime.of(year, month, day, 0, 0, 0, 0, BERLIN);
+    }
+
+    private void assertMatchesDateTime(TimeGrid grid, ZonedDateTime start)
+    {
+        ZonedDateTime time = start;
+        for (int i = 0; i < grid.size(); i++)
+        {
+            assertEquals(time, grid.getDateTime(i));
+            assertEquals(time.getHour(), grid.getHour(i));
+            assertEquals(time.getMinute(), grid.getMinute(i));
+            assertEquals(time.getDayOfWeek(), grid.getDayOfWeek(i));
+            assertEquals(time.getOffset().getTotalSeconds(), grid.getOffsetSeconds(i));
+            assertEquals(i, grid.indexOf(time));
+            time = time.plusMinutes(QUARTER.toMinutes());
+        }
+    }
+
+    @Test
+    public void testSummerTimeStartHas23Hours()
+    {
+        ZonedDateTime start = berlin(2024, 3, 31);
+        TimeGrid grid = TimeGrid.of(start, berlin(2024, 4, 1), QUARTER);
+
+        assertEquals(23 * 4, grid.size());
+        assertEquals(DayOfWeek.SUNDAY, grid.getDayOfWeek(0));
+        // 01:45 CET is followed by 03:00 CEST
+        assertEquals(1, grid.getHour(7));
+        assertEquals(3, grid.getHour(8));
+        assertMatchesDateTime(grid, start);
+    }
+
+    @Test
+    public void testWinterTimeStartHas25Hours()
+    {
+        ZonedDateTime start = berlin(2024, 10, 27);
+        TimeGrid grid = TimeGrid.of(start, berlin(2024, 10, 28), QUARTER);
+
+        assertEquals(25 * 4, grid.size());
+        // 02:45 CEST is followed by 02:00 CET
+        assertEquals(2, grid.getHour(11));
+        assertEquals(45, grid.getMinute(11));
+        assertEquals(2, grid.getHour(12));
+        assertEquals(0, grid.getMinute(12));
+        assertEquals(7200, grid.getOffsetSeconds(11));
+        assertEquals(3600, grid.getOffsetSeconds(12));
+        assertMatchesDateTime(grid, start);
+    }
+
+    @Test
+    public void testStepsOfSimulation()
+    {
+        ZonedDateTime start = berlin(2024, 6, 21);
+        SimulationStep step = new SimulationStep(start, QUARTER, null, TimeGrid.of(start, start.plusHours(1), QUARTER), 0);
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(i, step.index());
+            assertEquals(step.startDate(), step.timeGrid().getDateTime(step.index()));
+            step = step.nextTimeSlot();
+        }
+        assertEquals(start.plusHours(1), step.startDate());
+        assertEquals(1, step.timeGrid().size());
+    }
+
+    @Test
+    public void testPartialStepAtEnd()
+    {
+        ZonedDateTime start = berlin(2024, 6, 21);
+
+        assertEquals(4, TimeGrid.of(start, start.plusHours(1), QUARTER).size());
+        // fractions of a second start another step
+        assertEquals(5, TimeGrid.of(start, start.plusHours(1).plusNanos(1), QUARTER).size());
+        assertEquals(1, TimeGrid.of(start, start, QUARTER).size());
+    }
+
+    @Test
+    public void testStepStartDateIsCreatedFromTimeGrid()
+    {
+        ZonedDateTime start = berlin(2024, 10, 27);
+        TimeGrid grid = TimeGrid.of(start, berlin(2024, 10, 28), QUARTER);
+
+        SimulationStep step = new SimulationStep(grid, 12, QUARTER, null);
+
+        assertEquals(start.plusHours(3), step.startDate());
+        assertEquals(start.plusHours(3).plusMinutes(15), step.endDate());
+    }
+}
@@ -0,0 +1,165 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.config.CsvPriceConfig;
+import de.hatoka.eos.simulation.capi.business.config.InstallationConfig;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.simulation.internal.business.config.ConfigurationLoader;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvPriceServiceTest
+{
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @TempDir
+    private Path directory;
+
+    private static CsvPriceConfig loadConfig() throws IOException
+    {
+        InstallationConfig installation = new ConfigurationLoader().loadInstallation("test-installation-for-csv-prices.yaml");
+        return installation.getGrid().csvPriceConfig();
+    }
+
+    @Test
+    public void testPricesWithCharges() throws IOException
+    {
+        CsvPriceService prices = CsvPriceService.load(loadConfig(), BERLIN);
+        ZonedDateTime midnight = ZonedDateTime.of(2025, 8, 4, 0, 0, 0, 0, BERLIN);
+
+        // 81.05 EUR/MWh + 0.08 EUR/kWh
+        assertEquals(Money.ofEur(0.16105), prices.getImportPrice(midnight));
+        // 81.05 EUR/MWh - 0.04 EUR/kWh
+        assertEquals(Money.ofEur(0.04105), prices.getExportPrice(midnight));
+        // within the hour, negative stock price -0.21 at 10:00 of 2025/08/05
+        assertEquals(Money.ofEur(0.07979), prices.getImportPrice(midnight.plusDays(1).withHour(10).withMinute(45)));
+
+        TimeGrid grid = TimeGrid.of(midnight, midnight.plusDays(13), Duration.ofMinutes(15));
+        for (int i = 0; i < grid.size(); i++)
+        {
+            assertEquals(FixedMoney.valueOf(prices.getImportPrice(grid.getDateTime(i))), prices.getFixedImportPrice(grid, i));
+        }
+        assertThrows(IllegalStateException.class, () -> prices.getImportPrice(midnight.minusHours(1)));
+        assertThrows(IllegalStateException.class, () -> prices.getImportPrice(midnight.plusDays(13)));
+    }
+
+    @Test
+    public void testLoadsMultipleYearsFromFile() throws IOException
+    {
+        // Given - five years of hourly prices in the file system
+        Path file = directory.resolve("prices.csv");
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        StringBuilder content = new StringBuilder();
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        for (LocalDate date = first; date.isBefore(first.plusYears(5)); date = date.plusDays(1))
+        {
+            content.append(format.format(date));
+            for (int hour = 0; hour < 24; hour++)
+            {
+                content.append(',').append(hour).append(".5");
+            }
+            content.append("\r\n");
+        }
+        Files.writeString(file, content);
+        CsvPriceConfig config = new CsvPriceConfig("EUR", null, null, List.of(file.toString()));
+
+        // When
+        long start = System.nanoTime();
+        CsvPriceService prices = CsvPriceService.load(config, BERLIN);
+        Duration loadTime = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertEquals(Money.ofEur(0.0135), prices.getExportPrice(ZonedDateTime.of(2024, 12, 31, 13, 30, 0, 0, BERLIN)));
+        assertEquals(Money.ofEur(0.0005), prices.getImportPrice(ZonedDateTime.of(2022, 7, 1, 0, 0, 0, 0, BERLIN)));
+        assertEquals(true, loadTime.toMillis() < 5000, "load time " + loadTime);
+    }
+
+    private static String pricesOfDay(String date, int hours)
+    {
+        StringBuilder line = new StringBuilder(date);
+        for (int hour = 0; hour < hours; hour++)
+        {
+            line.append(',').append(hour * 10);
+        }
+        return line.append('\n').toString();
+    }
+
+    @Test
+    public void testDaylightSavingTime() throws IOException
+    {
+        // Given - the days of the clock changes, the column of the skipped hour at 02:00 has a price
+        Path file = directory.resolve("prices.csv");
+        Files.writeString(file, pricesOfDay("2025/03/30", 24) + pricesOfDay("2025/10/26", 24));
+        CsvPriceConfig config = new CsvPriceConfig("EUR", null, null, List.of(file.toString()));
+
+        // When
+        CsvPriceService prices = CsvPriceService.load(config, BERLIN);
+
+        // Then - the price of 03:00 is kept
+        ZonedDateTime march = ZonedDateTime.of(2025, 3, 30, 1, 0, 0, 0, BERLIN);
+        assertEquals(Money.ofEur(0.01), prices.getImportPrice(march));
+        assertEquals(Money.ofEur(0.03), prices.getImportPrice(march.plusHours(1)));
+        assertEquals(Money.ofEur(0.23), prices.getImportPrice(march.plusHours(21)));
+        // Then - the repeated hour has the price of 02:00 twice
+        ZonedDateTime october = ZonedDateTime.of(2025, 10, 26, 2, 0, 0, 0, BERLIN);
+        assertEquals(Money.ofEur(0.02), prices.getImportPrice(october));
+        assertEquals(Money.ofEur(0.02), prices.getImportPrice(october.withLaterOffsetAtOverlap()));
+        assertEquals(Money.ofEur(0.03), prices.getImportPrice(october.plusHours(2)));
+    }
+
+    @Test
+    public void testTooManyPrices() throws IOException
+    {
+        Path file = directory.resolve("prices.csv");
+        Files.writeString(file, pricesOfDay("2025/10/26", 25));
+        CsvPriceConfig config = new CsvPriceConfig("EUR", null, null, List.of(file.toString()));
+
+        assertThrows(IOException.class, () -> CsvPriceService.load(config, BERLIN));
+    }
+
+    @Test
+    public void testRoundsAdditionalDecimalPlaces() throws IOException
+    {
+        // Given - prices per MWh with more decimal places than micro-cents per kWh
+        Path file = directory.resolve("prices.csv");
+        Files.writeString(file, "2025/08/04,1.234565,1.234575,-1.234565,7.\n");
+        CsvPriceConfig config = new CsvPriceConfig("EUR", null, null, List.of(file.toString()));
+
+        // When
+        CsvPriceService prices = CsvPriceService.load(config, BERLIN);
+
+        // Then - rounded HALF_EVEN like FixedMoney.valueOf
+        ZonedDateTime midnight = ZonedDateTime.of(2025, 8, 4, 0, 0, 0, 0, BERLIN);
+        assertEquals(123_456, prices.getFixedImportPrice(midnight).microCents());
+        assertEquals(123_458, prices.getFixedImportPrice(midnight.plusHours(1)).microCents());
+        assertEquals(-123_456, prices.getFixedImportPrice(midnight.plusHours(2)).microCents());
+        assertEquals(700_000, prices.getFixedImportPrice(midnight.plusHours(3)).microCents());
+    }
+
+    @Test
+    public void testPriceWithoutDigits() throws IOException
+    {
+        Path file = directory.resolve("prices.csv");
+        for (String price : List.of("-", ".", "-."))
+        {
+            Files.writeString(file, "2025/08/04,1.0," + price + "\n");
+            CsvPriceConfig config = new CsvPriceConfig("EUR", null, null, List.of(file.toString()));
+
+            assertThrows(IOException.class, () -> CsvPriceService.load(config, BERLIN), price);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.persistence.capi.weather.WeatherDataSource;
+import de.hatoka.eos.persistence.capi.weather.WeatherForcastDAO;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastKey;
+import de.hatoka.eos.persistence.capi.weather.WeatherForecastPO;
+import de.hatoka.eos.persistence.capi.weather.WeatherStation;
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecast;
+import de.hatoka.eos.simulation.capi.business.forecast.WeatherForecastLoader;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.simulation.internal.business.DateTooling;
+import de.hatoka.eos.units.capi.Percentage;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class DaoWeatherForecastTest
+{
+    private static final ZonedDateTime START = DateTooling.SOMMER_NIGHT;
+    private static final WeatherStation STATION = WeatherStation.LEIPZIG_STADTWERKE;
+
+    @Inject
+    private WeatherForcastDAO weatherDao;
+    @Inject
+    private WeatherForecastLoader loader;
+
+    @AfterEach
+    public void tearDown()
+    {
+        weatherDao.deleteRange(key(START.minusDays(1)), key(START.plusDays(2)));
+    }
+
+    private static WeatherForecastKey key(ZonedDateTime time)
+    {
+        return WeatherForecastKey.valueOf(STATION, time, WeatherDataSource.OPENMETEO);
+    }
+
+    /**
+     * Stores hourly sun probabilities, the value of each hour is hour / 24
+     */
+    private void storeHourly(int fromHour, int toHour)
+    {
+        Map<WeatherForecastKey, WeatherForecastPO> data = new HashMap<>();
+        for (int hour = fromHour; hour < toHour; hour++)
+        {
+            WeatherForecastPO po = new WeatherForecastPO();
+            po.setSunProbability(new Percentage(hour / 24.0));
+            data.put(key(START.plusHours(hour)), po);
+        }
+        weatherDao.updateAll(data);
+    }
+
+    @Test
+    public void testInterpolatesHourlyValues()
+    {
+        storeHourly(0, 25);
+        TimeGrid grid = TimeGrid.of(START, START.plusDays(1), Duration.ofMinutes(15));
+
+        // When
+        WeatherForecast forecast = loader.load(STATION, grid.getDateTime(0), START.plusDays(1));
+
+        // Then
+        for (int i = 0; i < grid.size(); i++)
+        {
+            double expected = i / 4.0 / 24.0;
+            assertEquals(expected, forecast.getSunFraction(grid, i), 1e-9);
+            assertEquals(expected, forecast.getSunProbability(grid.getDateTime(i)).toFraction(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testFallbackWithoutValues()
+    {
+        // Given - values of the first half day only
+        storeHourly(0, 12);
+        TimeGrid grid = TimeGrid.of(START, START.plusDays(1), Duration.ofHours(1));
+
+        // When
+        WeatherForecast forecast = loader.load(STATION, START, START.plusDays(1));
+
+        // Then
+        assertEquals(11 / 24.0, forecast.getSunFraction(grid, 11), 1e-9);
+        for (int i = 12; i < grid.size(); i++)
+        {
+            assertEquals(FlatWeatherService.FULL_FROM_7_to_18.getSunFraction(grid, i), forecast.getSunFraction(grid, i));
+        }
+    }
+
+    @Test
+    public void testNoInterpolationOverLargeGaps()
+    {
+        WeatherForecast forecast = new DaoWeatherForecast(new long[] { 0, Duration.ofHours(1).toMillis(), Duration.ofHours(5).toMillis() },
+                        new double[] { 0.0, 0.5, 1.0 }, time -> Percentage.ONE_HUNDRED);
+        ZonedDateTime epoch = ZonedDateTime.parse("1970-01-01T00:00:00Z");
+        TimeGrid grid = TimeGrid.of(epoch, epoch.plusHours(2), Duration.ofMinutes(30));
+
+        assertEquals(0.25, forecast.getSunFraction(grid, 1), 1e-9);
+        assertEquals(1.0, forecast.getSunFraction(grid, 3));
+    }
+}
@@ -0,0 +1,52 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.config.InstallationConfig;
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.internal.business.config.ConfigurationLoader;
+import de.hatoka.eos.units.capi.Money;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class EnergyPriceForecastFactoryTest
+{
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    private final EnergyPriceForecastFactoryImpl factory = new EnergyPriceForecastFactoryImpl();
+    private final ConfigurationLoader loader = new ConfigurationLoader();
+
+    @Test
+    public void testCsvPricesOfConfiguration() throws IOException
+    {
+        // Given
+        InstallationConfig installation = loader.loadInstallation("test-installation-for-csv-prices.yaml");
+
+        // When
+        EnergyPriceForecast prices = factory.create(installation.getGrid(), BERLIN);
+
+        // Then - 81.05 EUR/MWh + 0.08 EUR/kWh
+        assertInstanceOf(CsvPriceService.class, prices);
+        assertEquals(Money.ofEur(0.16105), prices.getImportPrice(ZonedDateTime.of(2025, 8, 4, 0, 0, 0, 0, BERLIN)));
+    }
+
+    @Test
+    public void testFlatPricesOfConfiguration() throws IOException
+    {
+        // Given
+        InstallationConfig installation = loader.loadInstallation("test-installation-with-car.yaml");
+
+        // When
+        EnergyPriceForecast prices = factory.create(installation.getGrid(), BERLIN);
+
+        // Then
+        assertInstanceOf(FlatPriceService.class, prices);
+        assertEquals(Money.ofEur(0.39), prices.getImportPrice(ZonedDateTime.now()));
+        assertSame(FlatPriceService.GERMAN_RESIDENTIAL, factory.create(null, BERLIN));
+    }
+}
@@ -0,0 +1,174 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ForecastCacheTest
+{
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long START = Instant.parse("2025-06-21T00:00:00Z").toEpochMilli();
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final MutableClock clock = new MutableClock();
+
+    /**
+     * hourly values, value is the hour since epoch
+     */
+    private NavigableMap<Long, Long> load(long from, long to)
+    {
+        loads.incrementAndGet();
+        NavigableMap<Long, Long> result = new TreeMap<>();
+        for (long time = from; time < to; time += HOUR)
+        {
+            result.put(time, time / HOUR);
+        }
+        return result;
+    }
+
+    private ForecastCache<Long> createCache(int maxDays)
+    {
+        return new ForecastCache<>(this::load, maxDays, Duration.ofHours(1), Duration.ofMinutes(1), clock);
+    }
+
+    @Test
+    public void testLoadsWholeDay()
+    {
+        ForecastCache<Long> cache = createCache(10);
+        for (long time = START; time < START + DAY; time += HOUR)
+        {
+            assertEquals(time / HOUR, cache.get(time));
+        }
+        // within tolerance
+        assertEquals(START / HOUR + 1, cache.get(START + HOUR + 30_000));
+        assertNull(cache.get(START + HOUR / 2));
+        assertEquals(1, loads.get());
+        assertEquals(new ForecastCache.Statistics(25, 1, 0, 1), cache.getStatistics());
+    }
+
+    @Test
+    public void testEvictionAndExpiration()
+    {
+        ForecastCache<Long> cache = createCache(2);
+        cache.get(START);
+        clock.advance(1);
+        cache.get(START + DAY);
+        clock.advance(1);
+        cache.get(START + 2 * DAY);
+        assertEquals(new ForecastCache.Statistics(0, 3, 1, 2), cache.getStatistics());
+
+        // first day is evicted, last day is still cached
+        cache.get(START + 2 * DAY);
+        assertEquals(3, loads.get());
+        cache.get(START);
+        assertEquals(4, loads.get());
+
+        // expired
+        clock.advance(HOUR);
+        cache.get(START);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception
+    {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ForecastCache<Long> cache = new ForecastCache<>((from, to) -> {
+            loading.countDown();
+            try
+            {
+                release.await();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return load(from, to);
+        }, 10, Duration.ofHours(1), Duration.ZERO, clock);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8))
+        {
+            List<Future<Long>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(START)));
+            loading.await();
+            for (int i = 1; i < 8; i++)
+            {
+                long time = START + i * HOUR;
+                results.add(executor.submit(() -> cache.get(time)));
+            }
+            // give the other lookups time to wait on the running load
+            Thread.sleep(100);
+            release.countDown();
+            for (int i = 0; i < results.size(); i++)
+            {
+                assertEquals((START + i * HOUR) / HOUR, results.get(i).get());
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStatistics().misses());
+        assertEquals(7, cache.getStatistics().hits());
+    }
+
+    @Test
+    public void testFailedLoadIsRetried()
+    {
+        AtomicInteger failures = new AtomicInteger(1);
+        ForecastCache<Long> cache = new ForecastCache<>((from, to) -> {
+            if (failures.getAndDecrement() > 0)
+            {
+                throw new StackOverflowError("test");
+            }
+            return load(from, to);
+        }, 10, Duration.ofHours(1), Duration.ZERO, clock);
+
+        assertThrows(StackOverflowError.class, () -> cache.get(START));
+        assertEquals(START / HOUR, cache.get(START));
+        assertEquals(1, loads.get());
+    }
+
+    private static class MutableClock extends Clock
+    {
+        private long millis = START;
+
+        private void advance(long duration)
+        {
+            millis += duration;
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
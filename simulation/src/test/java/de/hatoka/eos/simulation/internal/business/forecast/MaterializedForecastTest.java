@@ -0,0 +1,101 @@
+package de.hatoka.eos.simulation.internal.business.forecast;
+
+import de.hatoka.eos.simulation.capi.business.forecast.EnergyPriceForecast;
+import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.simulation.TimeGrid;
+import de.hatoka.eos.simulation.internal.business.DateTooling;
+import de.hatoka.eos.units.capi.FixedMoney;
+import de.hatoka.eos.units.capi.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MaterializedForecastTest
+{
+    private static final ZonedDateTime START = DateTooling.SOMMER_NIGHT;
+    private static final Duration QUARTER = Duration.ofMinutes(15);
+
+    @Test
+    public void testSampledValuesMatchSource()
+    {
+        TimeGrid grid = TimeGrid.of(START, START.plusDays(1), QUARTER);
+        Forecasts materialized = Forecasts.STANDARD.materialize(grid);
+
+        for (int i = 0; i < grid.size(); i++)
+        {
+            ZonedDateTime time = grid.getDateTime(i);
+            assertEquals(Forecasts.STANDARD.weather().getSunProbability(time), materialized.weather().getSunProbability(time));
+            assertEquals(Forecasts.STANDARD.weather().getSunFraction(grid, i), materialized.weather().getSunFraction(grid, i));
+            assertEquals(Forecasts.STANDARD.priceForecast().getImportPrice(time), materialized.priceForecast().getImportPrice(time));
+            assertEquals(Forecasts.STANDARD.priceForecast().getFixedExportPrice(grid, i), materialized.priceForecast().getFixedExportPrice(grid, i));
+        }
+        // outside of grid
+        ZonedDateTime nextDay = START.plusDays(1).withHour(12);
+        assertEquals(Forecasts.STANDARD.weather().getSunProbability(nextDay), materialized.weather().getSunProbability(nextDay));
+    }
+
+    @Test
+    public void testSourceIsRequestedOncePerStep()
+    {
+        AtomicInteger requests = new AtomicInteger();
+        EnergyPriceForecast source = new EnergyPriceForecast()
+        {
+            @Override
+            public Money getImportPrice(ZonedDateTime time)
+            {
+                requests.incrementAndGet();
+                return Money.ofEur(0.30 + time.getHour() / 100.0);
+            }
+
+            @Override
+            public Money getExportPrice(ZonedDateTime time)
+            {
+                requests.incrementAndGet();
+                return Money.ofEur(0.08);
+            }
+        };
+        TimeGrid grid = TimeGrid.of(START, START.plusHours(2), QUARTER);
+        EnergyPriceForecast materialized = MaterializedPriceForecast.valueOf(source, grid);
+        assertEquals(2 * grid.size(), requests.get());
+
+        // a simulation creates its own grid for the same horizon
+        TimeGrid simulationGrid = TimeGrid.of(START, START.plusHours(2), QUARTER);
+        for (int i = 0; i < simulationGrid.size(); i++)
+        {
+            assertEquals(FixedMoney.valueOf(Money.ofEur(0.30 + simulationGrid.getHour(i) / 100.0)), materialized.getFixedImportPrice(simulationGrid, i));
+        }
+        assertEquals(2 * grid.size(), requests.get());
+    }
+
+    @Test
+    public void testPricesHaveOneCurrency()
+    {
+        TimeGrid grid = TimeGrid.of(START, START.plusHours(2), QUARTER);
+        EnergyPriceForecast source = new EnergyPriceForecast()
+        {
+            @Override
+            public Money getImportPrice(ZonedDateTime time)
+            {
+                return new Money(BigDecimal.ONE, new String("EUR"));
+            }
+
+            @Override
+            public Money getExportPrice(ZonedDateTime time)
+            {
+                return new Money(BigDecimal.ONE, time.equals(START.plusHours(1)) ? "USD" : "EUR");
+            }
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> MaterializedPriceForecast.valueOf(source, grid));
+        // the currency is interned
+        EnergyPriceForecast materialized = MaterializedPriceForecast.valueOf(Forecasts.STANDARD.priceForecast(), grid);
+        assertSame("EUR", materialized.getFixedImportPrice(grid, 0).currencyMnemonic());
+    }
+}
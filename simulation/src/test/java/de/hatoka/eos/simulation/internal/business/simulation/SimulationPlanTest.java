@@ -0,0 +1,89 @@
+package de.hatoka.eos.simulation.internal.business.simulation;
+
+import de.hatoka.eos.simulation.capi.business.device.Device;
+import de.hatoka.eos.simulation.capi.business.device.DeviceRef;
+import de.hatoka.eos.simulation.capi.business.device.DeviceState;
+import de.hatoka.eos.simulation.capi.business.device.DeviceType;
+import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
+import de.hatoka.eos.simulation.internal.business.DateTooling;
+import de.hatoka.eos.simulation.internal.business.devices.Grid;
+import de.hatoka.eos.units.capi.Energy;
+import de.hatoka.eos.units.capi.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SimulationPlanTest
+{
+    private static final DeviceRef GRID = new DeviceRef(DeviceType.GRID, "grid");
+    private static final DeviceRef PANEL_B = new DeviceRef(DeviceType.SOLAR_PANEL, "b");
+    private static final DeviceRef PANEL_A = new DeviceRef(DeviceType.SOLAR_PANEL, "a");
+
+    private SimulationRequest createRequest(Map<DeviceRef, Device> devices, Map<DeviceRef, DeviceState> initialState)
+    {
+        return new SimulationRequest("plan", DateTooling.SOMMER_NIGHT, DateTooling.SOMMER_NIGHT.plusHours(1), Duration.ofMinutes(15), devices,
+                        initialState, Forecasts.STANDARD);
+    }
+
+    @Test
+    public void testDevicesOrderedByTypeAndId()
+    {
+        Map<DeviceRef, Device> devices = new HashMap<>();
+        devices.put(GRID, new Grid());
+        devices.put(PANEL_B, new Grid());
+        devices.put(PANEL_A, new Grid());
+
+        SimulationPlan plan = SimulationPlan.compile(createRequest(devices, Map.of()));
+
+        assertEquals(3, plan.size());
+        assertEquals(PANEL_A, plan.getDeviceRef(0));
+        assertEquals(PANEL_B, plan.getDeviceRef(1));
+        assertEquals(GRID, plan.getDeviceRef(2));
+        assertSame(devices.get(GRID), plan.getDevice(2));
+    }
+
+    @Test
+    public void testStatesAndRebind()
+    {
+        DeviceState initial = new DeviceState(Energy.ofKwh(10.0), Percentage.ONE_HUNDRED);
+        Map<DeviceRef, Device> devices = Map.of(GRID, new Grid());
+        SimulationPlan plan = SimulationPlan.compile(createRequest(devices, Map.of(GRID, initial)));
+
+        assertEquals(initial, plan.getState(0));
+        plan.setState(0, DeviceState.NO_STORAGE);
+        assertEquals(Map.of(GRID, DeviceState.NO_STORAGE), plan.getStateView());
+        assertEquals(Map.of(GRID, DeviceState.NO_STORAGE), plan.toStateMap(Map.of()));
+
+        Grid replacement = new Grid();
+        plan.bind(Map.of(GRID, replacement));
+        assertSame(replacement, plan.getDevice(0));
+    }
+
+    @Test
+    public void testPrimitiveStateAndDeviceView()
+    {
+        DeviceState initial = new DeviceState(Energy.ofKwh(10.0), Percentage.ONE_HUNDRED);
+        SimulationPlan plan = SimulationPlan.compile(createRequest(Map.of(GRID, new Grid()), Map.of(GRID, initial)));
+
+        // state of charge is kept primitive, the record is created on access
+        assertEquals(10.0, plan.getMaxEnergy(0));
+        plan.setStateOfCharge(0, 0.5);
+        assertEquals(0.5, plan.getStateOfCharge(0));
+        assertEquals(new DeviceState(Energy.ofKwh(10.0), new Percentage(0.5)), plan.getState(0));
+        assertSame(plan.getState(0), plan.getStateView().get(GRID));
+
+        // manipulators replace devices of the plan in place
+        Grid replacement = new Grid();
+        Map<DeviceRef, Device> view = plan.getDeviceView();
+        view.put(GRID, replacement);
+        plan.bind(view);
+        assertSame(replacement, plan.getDevice(0));
+        assertSame(replacement, view.get(GRID));
+    }
+}
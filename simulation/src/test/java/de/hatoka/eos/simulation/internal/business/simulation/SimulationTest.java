@@ -5,9 +5,15 @@ import de.hatoka.eos.simulation.capi.business.config.InstallationConfig;
 import de.hatoka.eos.simulation.capi.business.config.SimulationConfig;
 import de.hatoka.eos.simulation.capi.business.device.*;
 import de.hatoka.eos.simulation.capi.business.forecast.Forecasts;
+import de.hatoka.eos.simulation.capi.business.metrics.MetricsExport;
+import de.hatoka.eos.simulation.capi.business.metrics.SimulationMetricsExporter;
+import de.hatoka.eos.simulation.capi.business.simulation.DeviceManipulator;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationCheckpoints;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationRequest;
 import de.hatoka.eos.simulation.capi.business.simulation.SimulationResult;
+import de.hatoka.eos.simulation.capi.business.simulation.SimulationTrace;
 import de.hatoka.eos.simulation.capi.business.simulation.Simulator;
+import de.hatoka.eos.metrics.memory.MemorySimulationExporter;
 import de.hatoka.eos.units.capi.Energy;
 import de.hatoka.eos.units.capi.Money;
 import de.hatoka.eos.units.capi.Percentage;
@@ -21,17 +27,23 @@ import de.hatoka.eos.simulation.internal.business.devices.SolarPanel;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @QuarkusTest
@@ -43,6 +55,8 @@ public class SimulationTest
     private ConfigurationLoader configurationLoader;
     @Inject
     private Simulator simulator;
+    @Inject
+    private MemorySimulationExporter metricsExporter;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimulationTest.class);
     private static final ZonedDateTime MID_NIGHT_START = DateTooling.SOMMER_NIGHT;
@@ -380,4 +394,187 @@ public class SimulationTest
         assertEquals(Energy.ZERO, result.system().exported());
         assertEquals(Money.ZERO, result.system().getEnergyRevenue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSimulateAllKeepsOrder() throws IOException
+    {
+        InstallationConfig config = configurationLoader.loadInstallation("test-installation-with-car.yaml");
+        SimulationConfig simConfig = configurationLoader.loadSimulation("test-simulation-summer.yaml");
+        ZonedDateTime startDate = simConfig.getTimeSettings().getZonedStartTime();
+
+        List<SimulationRequest> requests = new ArrayList<>();
+        for (int days = 1; days <= 8; days++)
+        {
+            requests.add(new SimulationRequest("batch-" + days, startDate, startDate.plusDays(days), Duration.ofMinutes(15),
+                            deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), Forecasts.STANDARD));
+        }
+
+        List<SimulationResult> results = simulator.simulateAll(requests);
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++)
+        {
+            SimulationResult expected = simulator.simulate(requests.get(i));
+            assertEquals(requests.get(i), results.get(i).request());
+            assertEquals(expected.system(), results.get(i).system());
+            assertEquals(expected.endState(), results.get(i).endState());
+        }
+    }
+
+    @Test
+    public void testSimulateAllScenariosExportSeparately() throws IOException
+    {
+        // Given - several scenarios of one request with full metrics export
+        InstallationConfig config = configurationLoader.loadInstallation("test-installation-without-car.yaml");
+        SimulationRequest request = new SimulationRequest("what-if", MID_NIGHT_START, MID_NIGHT_START.plusDays(1), Duration.ofMinutes(15),
+                        deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), Forecasts.STANDARD, MetricsExport.FULL);
+        List<List<DeviceManipulator>> scenarios = Collections.nCopies(4, List.of());
+
+        // When
+        List<SimulationResult> results = simulator.simulateAll(request, scenarios);
+
+        // Then - each scenario has its own series
+        for (int i = 0; i < scenarios.size(); i++)
+        {
+            assertEquals("what-if-" + i, results.get(i).request().simulationId());
+            assertEquals(96, metricsExporter.getSeries("what-if-" + i).size());
+        }
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws IOException
+    {
+        InstallationConfig config = configurationLoader.loadInstallation("test-installation-without-car.yaml");
+        SimulationConfig simConfig = configurationLoader.loadSimulation("test-simulation-summer.yaml");
+        ZonedDateTime startDate = simConfig.getTimeSettings().getZonedStartTime();
+        ZonedDateTime chargeFrom = startDate.plusHours(20);
+
+        SimulationRequest request = new SimulationRequest("checkpoint-test", startDate, startDate.plusDays(1), Duration.ofMinutes(15),
+                        deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), Forecasts.STANDARD);
+        DeviceManipulator forceCharging = new DeviceManipulator()
+        {
+            @Override
+            public Map<DeviceRef, Device> apply(ZonedDateTime time, Map<DeviceRef, Device> devices)
+            {
+                if (time.isBefore(chargeFrom))
+                {
+                    return devices;
+                }
+                Map<DeviceRef, Device> result = new HashMap<>(devices);
+                devices.forEach((ref, device) -> {
+                    if (device instanceof Battery battery)
+                    {
+                        result.put(ref, battery.setOverrideForceChargingLimit(Percentage.ONE_HUNDRED));
+                    }
+                });
+                return result;
+            }
+
+            @Override
+            public Instant getEffectiveFrom()
+            {
+                return chargeFrom.toInstant();
+            }
+
+            @Override
+            public List<DeviceManipulator> evolute()
+            {
+                return List.of();
+            }
+        };
+
+        SimulationCheckpoints checkpoints = simulator.simulateWithCheckpoints(request, Duration.ofHours(1));
+        assertEquals(24, checkpoints.checkpoints().size());
+        assertEquals(chargeFrom, checkpoints.getLatestBefore(chargeFrom.toInstant()).startDate());
+        assertEquals(simulator.simulate(request).system(), checkpoints.result().system());
+
+        SimulationResult expected = simulator.simulate(request, List.of(forceCharging));
+        SimulationResult resumed = simulator.simulate(request, List.of(forceCharging), checkpoints);
+        assertEquals(expected.system(), resumed.system());
+        assertEquals(expected.endState(), resumed.endState());
+        assertNotEquals(checkpoints.result().system(), resumed.system());
+    }
+
+    @Test
+    public void testExporterLifecycle()
+    {
+        assertEquals(List.of("begin", "export-PT15M", "export-PT15M", "export-PT15M", "export-PT15M", "end"), runWithExporter(MetricsExport.FULL));
+        assertEquals(List.of("begin", "export-PT1H", "end"), runWithExporter(MetricsExport.SUMMARY));
+        assertEquals(List.of(), runWithExporter(MetricsExport.NONE));
+    }
+
+    private List<String> runWithExporter(MetricsExport metricsExport)
+    {
+        List<String> calls = new ArrayList<>();
+        SimulationMetricsExporter exporter = new SimulationMetricsExporter()
+        {
+            @Override
+            public void beginSimulation(SimulationRequest request)
+            {
+                calls.add("begin");
+            }
+
+            @Override
+            public void exportMetrics(SimulationResult result)
+            {
+                calls.add("export-" + result.step().duration());
+            }
+
+            @Override
+            public void endSimulation(SimulationRequest request)
+            {
+                calls.add("end");
+            }
+        };
+        SimulationRequest request = new SimulationRequest("lifecycle-test", MID_NIGHT_START, MID_NIGHT_END, Duration.ofMinutes(15),
+                        Map.of(new DeviceRef(DeviceType.GRID, "grid"), createGrid()), Collections.emptyMap(), Forecasts.STANDARD, metricsExport);
+        new Simulation(request, exporter, List.of()).run();
+        return calls;
+    }
+
+    @Test
+    public void testTraceRecordWriteAndReplay(@TempDir Path tempDir) throws IOException
+    {
+        InstallationConfig config = configurationLoader.loadInstallation("test-installation-without-car.yaml");
+        SimulationRequest request = new SimulationRequest("trace-test", MID_NIGHT_START, MID_NIGHT_START.plusDays(1), Duration.ofMinutes(15),
+                        deviceFactory.createDevices(config.getDevices()), Collections.emptyMap(), Forecasts.STANDARD, MetricsExport.NONE);
+        SimulationResult expected = simulator.simulate(request);
+
+        SimulationTrace trace = simulator.simulateWithTrace(request, List.of(), SimulationTrace.Storage.OFF_HEAP);
+        assertEquals(96, trace.size());
+        assertEquals(MID_NIGHT_START.toInstant(), trace.getStartTime(0));
+        Money importRevenue = Money.ZERO;
+        double produced = 0.0;
+        for (int row = 0; row < trace.size(); row++)
+        {
+            importRevenue = importRevenue.add(trace.getSystem(row).importRevenue());
+            produced += trace.getSystem(row).produced().amount();
+        }
+        assertEquals(expected.system().importRevenue(), importRevenue);
+        assertEquals(expected.system().produced().amount(), produced, 0.000001);
+        trace.getDevices().forEach(ref -> {
+            if (expected.endState().containsKey(ref))
+            {
+                assertEquals(expected.endState().get(ref), trace.getDeviceStates(trace.size() - 1).get(ref));
+            }
+        });
+
+        Path file = tempDir.resolve("trace.bin");
+        trace.write(file);
+        SimulationTrace loaded = SimulationTrace.read(file, SimulationTrace.Storage.HEAP);
+        assertEquals(trace.getDevices(), loaded.getDevices());
+        assertEquals(trace.size(), loaded.size());
+        for (int row = 0; row < trace.size(); row++)
+        {
+            assertEquals(trace.getStartTime(row), loaded.getStartTime(row));
+            assertEquals(trace.getSystem(row), loaded.getSystem(row));
+            assertEquals(trace.getDeviceStates(row), loaded.getDeviceStates(row));
+        }
+
+        List<SimulationResult> replayed = new ArrayList<>();
+        loaded.replay(request, replayed::add);
+        assertEquals(96, replayed.size());
+        assertEquals(MID_NIGHT_START.plusHours(1), replayed.get(4).step().startDate());
+        assertEquals(trace.getSystem(4), replayed.get(4).system());
+    }
+}
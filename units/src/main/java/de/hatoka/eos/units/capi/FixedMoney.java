@@ -0,0 +1,124 @@
+package de.hatoka.eos.units.capi;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * FixedMoney is a fixed point representation of {@link Money} for calculations in hot loops (e.g. simulation steps). The amount is stored as
+ * micro-cents (10^-8 of the currency unit), so the maximum amount is about 92 billion. The currency mnemonic is interned by
+ * {@link #valueOf(Money)} and kept by the arithmetic, so currencies are compared by reference first.
+ *
+ * @param microCents amount in 10^-8 of the currency unit
+ * @param currencyMnemonic currency, should be interned
+ */
+public record FixedMoney(long microCents, String currencyMnemonic)
+{
+    /**
+     * Decimal places of the fixed point amount
+     */
+    public static final int SCALE = 8;
+
+    public static final FixedMoney ZERO = valueOf(Money.ZERO);
+
+    /**
+     * Products below this limit are exact integers as double (2^53)
+     */
+    private static final double EXACT_RANGE = 0x1p53;
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    /**
+     * @param money money value, additional decimal places are rounded (HALF_EVEN)
+     * @return fixed point value of money
+     */
+    public static FixedMoney valueOf(Money money)
+    {
+        return new FixedMoney(money.amount().setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact(),
+                        money.currencyMnemonic().intern());
+    }
+
+    /**
+     * @return money with the exact amount of this value
+     */
+    public Money toMoney()
+    {
+        return new Money(BigDecimal.valueOf(microCents, SCALE), currencyMnemonic);
+    }
+
+    public FixedMoney add(FixedMoney augend)
+    {
+        checkCurrency(augend);
+        return new FixedMoney(Math.addExact(microCents, augend.microCents), currencyMnemonic);
+    }
+
+    public FixedMoney subtract(FixedMoney subtrahend)
+    {
+        checkCurrency(subtrahend);
+        return new FixedMoney(Math.subtractExact(microCents, subtrahend.microCents), currencyMnemonic);
+    }
+
+    /**
+     * Multiplies this amount by a factor, the result is rounded to micro-cents.
+     * @param factor the multiplication factor
+     * @return new instance with the product
+     */
+    public FixedMoney multiply(double factor)
+    {
+        return new FixedMoney(multiply(microCents, factor), currencyMnemonic);
+    }
+
+    /**
+     * Multiplies an amount of micro-cents by a factor without creating objects. Products beyond the exact range of a double are calculated
+     * exactly with {@link BigDecimal}.
+     * @param microCents amount in micro-cents
+     * @param factor the multiplication factor
+     * @return product rounded to micro-cents
+     * @throws ArithmeticException if the factor isn't finite or the product exceeds the range of micro-cents
+     */
+    public static long multiply(long microCents, double factor)
+    {
+        double product = microCents * factor;
+        if (Math.abs(product) < EXACT_RANGE)
+        {
+            return Math.round(product);
+        }
+        if (!Double.isFinite(factor))
+        {
+            throw new ArithmeticException("Can't multiply " + microCents + " micro-cents by " + factor);
+        }
+        // rounded like Math.round (half up to positive infinity)
+        return new BigDecimal(microCents).multiply(new BigDecimal(factor)).add(HALF).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    /**
+     * @param other other value
+     * @return true if both values use the same currency
+     */
+    public boolean isSameCurrency(FixedMoney other)
+    {
+        return isSameCurrency(other.currencyMnemonic);
+    }
+
+    /**
+     * @param mnemonic currency mnemonic
+     * @return true if this value use the given currency
+     */
+    public boolean isSameCurrency(String mnemonic)
+    {
+        return currencyMnemonic == mnemonic || currencyMnemonic.equals(mnemonic);
+    }
+
+    private void checkCurrency(FixedMoney other)
+    {
+        if (!isSameCurrency(other))
+        {
+            throw new IllegalArgumentException(
+                            "Cannot add Money with different currencies: " + this.currencyMnemonic + " and " + other.currencyMnemonic);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toMoney().toString();
+    }
+}
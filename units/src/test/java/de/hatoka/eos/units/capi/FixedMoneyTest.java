@@ -0,0 +1,93 @@
+package de.hatoka.eos.units.capi;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedMoneyTest
+{
+    @Test
+    void testRoundTrip()
+    {
+        Money money = Money.ofEur(10.12345678);
+
+        FixedMoney fixed = FixedMoney.valueOf(money);
+
+        assertEquals(1012345678L, fixed.microCents());
+        assertEquals(money, fixed.toMoney());
+        assertEquals(new BigDecimal("10.12345678"), fixed.toMoney().amount());
+    }
+
+    @Test
+    void testRoundsAdditionalDecimals()
+    {
+        FixedMoney fixed = FixedMoney.valueOf(new Money(new BigDecimal("0.123456785"), "EUR"));
+
+        assertEquals(12345678L, fixed.microCents());
+    }
+
+    @Test
+    void testMultiplyMatchesMoney()
+    {
+        Money price = Money.ofEur(0.39);
+
+        FixedMoney result = FixedMoney.valueOf(price).multiply(2.5);
+
+        assertEquals(price.multiply(2.5), result.toMoney());
+    }
+
+    @Test
+    void testMultiplyBeyondExactDoubleRange()
+    {
+        // 2^53 + 1 isn't exact as double
+        long microCents = (1L << 53) + 1;
+
+        assertEquals(2 * microCents, FixedMoney.multiply(microCents, 2.0));
+        assertEquals(-3 * microCents, FixedMoney.multiply(microCents, -3.0));
+        assertEquals(Long.MAX_VALUE - 1, FixedMoney.multiply(Long.MAX_VALUE / 2, 2.0));
+    }
+
+    @Test
+    void testMultiplyOverflow()
+    {
+        assertThrows(ArithmeticException.class, () -> FixedMoney.multiply(Long.MAX_VALUE / 2, 2.5));
+        assertThrows(ArithmeticException.class, () -> FixedMoney.multiply(Long.MIN_VALUE, 1.5));
+        assertThrows(ArithmeticException.class, () -> FixedMoney.multiply(1, Double.NaN));
+        assertThrows(ArithmeticException.class, () -> FixedMoney.multiply(1, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testAddAndSubtract()
+    {
+        FixedMoney money1 = FixedMoney.valueOf(Money.ofEur(10.50));
+        FixedMoney money2 = FixedMoney.valueOf(Money.ofEur(5.25));
+
+        assertEquals(Money.ofEur(15.75), money1.add(money2).toMoney());
+        assertEquals(Money.ofEur(5.25), money1.subtract(money2).toMoney());
+    }
+
+    @Test
+    void testAdd_differentCurrencies_throwsException()
+    {
+        FixedMoney money1 = FixedMoney.valueOf(new Money(BigDecimal.TEN, "EUR"));
+        FixedMoney money2 = FixedMoney.valueOf(new Money(BigDecimal.TEN, "USD"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> money1.add(money2));
+
+        assertTrue(exception.getMessage().contains("Cannot add Money with different currencies"));
+    }
+
+    @Test
+    void testCurrencyIsInterned()
+    {
+        FixedMoney fixed = FixedMoney.valueOf(new Money(BigDecimal.ONE, new String("EUR")));
+
+        assertSame("EUR", fixed.currencyMnemonic());
+        assertSame("EUR", fixed.add(fixed).multiply(2).currencyMnemonic());
+        assertTrue(fixed.isSameCurrency(FixedMoney.ZERO));
+        // not interned currencies are compared by value
+        assertTrue(new FixedMoney(1L, new String("EUR")).isSameCurrency(fixed));
+    }
+}